@@ -0,0 +1,54 @@
+package com.github.enanomapper.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.enanomapper.Configuration;
+import com.github.enanomapper.Slimmer;
+import com.github.enanomapper.SlimmerListener;
+import com.github.enanomapper.StreamingSlimmer;
+
+/**
+ * Benchmarks of slimming one ontology from its source to the saved slim, with the steps of
+ * a {@link com.github.enanomapper.SlimmingJob}, for both the OWLAPI based and the streaming
+ * engine.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndToEndBenchmark {
+
+	@Benchmark
+	public long slim(Fixture fixture) throws Exception {
+		Slimmer slimmer = new Slimmer(
+			fixture.owlResource(), new ByteArrayInputStream(fixture.owl),
+			"http://example.org/slim.owl", SlimmerListener.NONE
+		);
+		Configuration config = fixture.readConfiguration();
+		slimmer.removeAllExcept(config.getTreePartsToSave());
+		slimmer.removeAll(config.getTreePartsToRemove());
+		Fixture.CountingOutputStream output = new Fixture.CountingOutputStream();
+		slimmer.saveAs(output, "http://example.org/source.owl");
+		return output.count;
+	}
+
+	@Benchmark
+	public long slimStreaming(Fixture fixture) throws Exception {
+		Configuration config = fixture.readConfiguration();
+		Fixture.CountingOutputStream output = new Fixture.CountingOutputStream();
+		new StreamingSlimmer(fixture.owlFile, SlimmerListener.NONE).slim(
+			config, output, "http://example.org/slim.owl", "http://example.org/source.owl"
+		);
+		return output.count;
+	}
+}
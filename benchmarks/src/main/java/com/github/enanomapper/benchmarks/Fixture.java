@@ -0,0 +1,111 @@
+package com.github.enanomapper.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.parameters.OntologyCopy;
+
+import com.github.enanomapper.Configuration;
+import com.github.enanomapper.Slimmer;
+import com.github.enanomapper.SlimmerListener;
+
+/**
+ * One of the bundled test ontologies with a realistic <code>.iris</code> configuration. The
+ * ontology is read into memory and parsed once per trial, so that the benchmarks measure
+ * the slimming phases and not the disk.
+ */
+@State(Scope.Benchmark)
+public class Fixture {
+
+	@Param({"bfo", "bao", "uo"})
+	public String ontology;
+
+	byte[] owl;
+	String iris;
+	File owlFile;
+	OWLOntology source;
+	Configuration config;
+
+	@Setup
+	public void load() throws Exception {
+		owl = read(owlResource());
+		iris = new String(read(ontology + ".iris"), StandardCharsets.UTF_8);
+		owlFile = File.createTempFile("slimmer-" + ontology, ".owl");
+		Files.write(owlFile.toPath(), owl);
+		source = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(new ByteArrayInputStream(owl));
+		config = readConfiguration();
+	}
+
+	@TearDown
+	public void delete() {
+		owlFile.delete();
+	}
+
+	String owlResource() {
+		switch (ontology) {
+			case "bfo": return "bfo-1.1.owl";
+			case "bao": return "bao_core.owl";
+			case "uo": return "uo.owl";
+			default: throw new IllegalArgumentException("Unknown fixture: " + ontology);
+		}
+	}
+
+	Configuration readConfiguration() throws Exception {
+		Configuration config = new Configuration();
+		config.read(new StringReader(iris));
+		return config;
+	}
+
+	/**
+	 * Returns a Slimmer for a deep copy of the given ontology, which can be slimmed without
+	 * changing the original.
+	 */
+	static Slimmer copy(OWLOntology ontology) throws Exception {
+		OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+		OWLOntology copy = man.copyOntology(ontology, OntologyCopy.DEEP);
+		return new Slimmer(man, copy, null, SlimmerListener.NONE);
+	}
+
+	private byte[] read(String resource) throws IOException {
+		try (InputStream stream = Fixture.class.getClassLoader().getResourceAsStream(resource)) {
+			if (stream == null) throw new IOException("Missing resource: " + resource);
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			byte[] chunk = new byte[65536];
+			int read;
+			while ((read = stream.read(chunk)) != -1) buffer.write(chunk, 0, read);
+			return buffer.toByteArray();
+		}
+	}
+
+	/**
+	 * Output stream that only counts the bytes written to it.
+	 */
+	static class CountingOutputStream extends OutputStream {
+		long count = 0;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}
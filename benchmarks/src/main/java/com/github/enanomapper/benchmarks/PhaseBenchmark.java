@@ -0,0 +1,131 @@
+package com.github.enanomapper.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import com.github.enanomapper.ClassHierarchy;
+import com.github.enanomapper.Configuration;
+import com.github.enanomapper.Slimmer;
+import com.github.enanomapper.SlimmerListener;
+
+/**
+ * Benchmarks of the separate phases of slimming one ontology: reading the configuration,
+ * parsing the ontology, expanding the <code>U</code> and <code>D</code> instructions, removing
+ * the entities, and saving the slim. Phases that change the ontology get a fresh copy for
+ * every invocation; making the copy is not part of the measurement.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PhaseBenchmark {
+
+	/**
+	 * A copy of the source ontology, as loaded by a job.
+	 */
+	@State(Scope.Thread)
+	public static class Source {
+		Slimmer slimmer;
+
+		@Setup(Level.Invocation)
+		public void copy(Fixture fixture) throws Exception {
+			slimmer = Fixture.copy(fixture.source);
+		}
+	}
+
+	/**
+	 * A copy of the source ontology, after the keep instructions were applied.
+	 */
+	@State(Scope.Thread)
+	public static class Kept {
+		OWLOntology kept;
+		Slimmer slimmer;
+
+		@Setup(Level.Trial)
+		public void slim(Fixture fixture) throws Exception {
+			Slimmer slimmer = Fixture.copy(fixture.source);
+			slimmer.removeAllExcept(fixture.config.getTreePartsToSave());
+			kept = slimmer.getOntology();
+		}
+
+		@Setup(Level.Invocation)
+		public void copy() throws Exception {
+			slimmer = Fixture.copy(kept);
+		}
+	}
+
+	/**
+	 * A copy of the fully slimmed ontology.
+	 */
+	@State(Scope.Thread)
+	public static class Slimmed {
+		OWLOntology slimmed;
+		Slimmer slimmer;
+
+		@Setup(Level.Trial)
+		public void slim(Fixture fixture) throws Exception {
+			Slimmer slimmer = Fixture.copy(fixture.source);
+			slimmer.removeAllExcept(fixture.config.getTreePartsToSave());
+			slimmer.removeAll(fixture.config.getTreePartsToRemove());
+			slimmed = slimmer.getOntology();
+		}
+
+		@Setup(Level.Invocation)
+		public void copy() throws Exception {
+			slimmer = Fixture.copy(slimmed);
+		}
+	}
+
+	@Benchmark
+	public Configuration readConfiguration(Fixture fixture) throws Exception {
+		return fixture.readConfiguration();
+	}
+
+	@Benchmark
+	public OWLOntology parse(Fixture fixture) throws Exception {
+		return OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(
+			new ByteArrayInputStream(fixture.owl)
+		);
+	}
+
+	@Benchmark
+	public BitSet explode(Fixture fixture) {
+		ClassHierarchy hierarchy = new ClassHierarchy(fixture.source);
+		return hierarchy.explode(fixture.config.getTreePartsToSave(), SlimmerListener.NONE);
+	}
+
+	@Benchmark
+	public OWLOntology removeAllExcept(Fixture fixture, Source source) {
+		source.slimmer.removeAllExcept(fixture.config.getTreePartsToSave());
+		return source.slimmer.getOntology();
+	}
+
+	@Benchmark
+	public OWLOntology removeAll(Fixture fixture, Kept kept) {
+		kept.slimmer.removeAll(fixture.config.getTreePartsToRemove());
+		return kept.slimmer.getOntology();
+	}
+
+	@Benchmark
+	public long saveAs(Slimmed slimmed) throws Exception {
+		Fixture.CountingOutputStream output = new Fixture.CountingOutputStream();
+		slimmed.slimmer.saveAs(output, "http://example.org/source.owl");
+		return output.count;
+	}
+}
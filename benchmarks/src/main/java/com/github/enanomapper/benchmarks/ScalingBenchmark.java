@@ -0,0 +1,118 @@
+package com.github.enanomapper.benchmarks;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import com.github.enanomapper.ClassHierarchy;
+import com.github.enanomapper.Configuration;
+import com.github.enanomapper.OntologyGenerator;
+import com.github.enanomapper.Slimmer;
+import com.github.enanomapper.SlimmerListener;
+import com.github.enanomapper.StreamingSlimmer;
+
+/**
+ * Benchmarks of how explode, removal, saving, and streaming slimming grow with the size of
+ * the ontology, on ontologies made by the {@link OntologyGenerator}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ScalingBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Synthetic {
+		@Param({"10000", "100000", "1000000"})
+		public int classes;
+
+		@Param({"2"})
+		public int fanIn;
+
+		File owlFile;
+		OWLOntology source;
+		Configuration config;
+
+		@Setup
+		public void generate() throws Exception {
+			OntologyGenerator generator = new OntologyGenerator();
+			generator.setClassCount(classes);
+			generator.setDepth(8);
+			generator.setFanIn(fanIn);
+			File folder = File.createTempFile("slimmer-", "-synthetic");
+			folder.delete();
+			generator.write(folder, "synthetic", 24);
+			owlFile = new File(folder, "synthetic.owl");
+			source = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(owlFile);
+			StringWriter iris = new StringWriter();
+			generator.writeConfiguration(iris, 24);
+			config = new Configuration();
+			config.read(new StringReader(iris.toString()));
+		}
+
+		@TearDown
+		public void delete() {
+			File folder = owlFile.getParentFile();
+			for (File file : folder.listFiles()) file.delete();
+			folder.delete();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Source {
+		Slimmer slimmer;
+
+		@Setup(Level.Invocation)
+		public void copy(Synthetic synthetic) throws Exception {
+			slimmer = Fixture.copy(synthetic.source);
+		}
+	}
+
+	@Benchmark
+	public BitSet explode(Synthetic synthetic) {
+		ClassHierarchy hierarchy = new ClassHierarchy(synthetic.source);
+		return hierarchy.explode(synthetic.config.getTreePartsToSave(), SlimmerListener.NONE);
+	}
+
+	@Benchmark
+	public OWLOntology remove(Synthetic synthetic, Source source) {
+		source.slimmer.removeAllExcept(synthetic.config.getTreePartsToSave());
+		source.slimmer.removeAll(synthetic.config.getTreePartsToRemove());
+		return source.slimmer.getOntology();
+	}
+
+	@Benchmark
+	public long saveAs(Source source) throws Exception {
+		Fixture.CountingOutputStream output = new Fixture.CountingOutputStream();
+		source.slimmer.saveAs(output, "http://example.org/synthetic.owl");
+		return output.count;
+	}
+
+	@Benchmark
+	public long slimStreaming(Synthetic synthetic) throws Exception {
+		Fixture.CountingOutputStream output = new Fixture.CountingOutputStream();
+		new StreamingSlimmer(synthetic.owlFile, SlimmerListener.NONE).slim(
+			synthetic.config, output, "http://example.org/slim.owl", "http://example.org/synthetic.owl"
+		);
+		return output.count;
+	}
+}
@@ -0,0 +1,181 @@
+package com.github.enanomapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.AddAxiom;
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAnnotationAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLAnnotationProperty;
+import org.semanticweb.owlapi.model.OWLAnnotationValue;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.RemoveAxiom;
+
+/**
+ * Rules that rewrite the annotations of the classes in a slim. There are three kinds of rules,
+ * which are read from the <code>.props</code> file, each as a list separated by spaces or commas:
+ * <ul>
+ *   <li><code>annotations.copy</code>: pairs <code>from&gt;to</code> of annotation properties;
+ *       every annotation with the first property is copied to the second</li>
+ *   <li><code>annotations.drop</code>: annotation properties whose annotations are removed,
+ *       after they have been copied</li>
+ *   <li><code>annotations.languages</code>: language tags; literals with another language tag
+ *       are removed and not copied, while literals without a language tag are kept</li>
+ * </ul>
+ *
+ * <p>A missing key gives the rules that the Slimmer always applied: <code>dc:description</code>
+ * and NCIt <code>P97</code> are copied to <code>IAO_0000115</code> (definition), NPO
+ * <code>FULL_SYN</code> and <code>definition</code> are dropped, and all languages are kept. An
+ * empty value turns the rules of that kind off. For example:
+ * <pre>
+ * annotations.copy=http://www.w3.org/2004/02/skos/core#definition&gt;http://purl.obolibrary.org/obo/IAO_0000115
+ * annotations.drop=http://www.w3.org/2004/02/skos/core#definition
+ * annotations.languages=en
+ * </pre>
+ *
+ * <p>The rules are looked up by property IRI, so all rules are applied in a single pass over
+ * the annotation assertion axioms, however many there are.
+ */
+public class AnnotationRules {
+
+	static final String DEFAULT_COPY =
+		"http://purl.org/dc/elements/1.1/description>http://purl.obolibrary.org/obo/IAO_0000115 "
+		+ "http://ncicb.nci.nih.gov/xml/owl/EVS/Thesaurus.owl#P97>http://purl.obolibrary.org/obo/IAO_0000115";
+	static final String DEFAULT_DROP =
+		"http://purl.bioontology.org/ontology/npo#FULL_SYN "
+		+ "http://purl.bioontology.org/ontology/npo#definition";
+
+	private final Map<String,List<String>> copies = new HashMap<String,List<String>>();
+	private final Set<String> drops = new HashSet<String>();
+	private final Set<String> languages = new HashSet<String>();
+
+	/**
+	 * Returns the rules given by the <code>annotations.*</code> keys of a <code>.props</code>
+	 * file, with the default rules for missing keys.
+	 *
+	 * @param props
+	 * @return
+	 */
+	public static AnnotationRules read(Properties props) {
+		AnnotationRules rules = new AnnotationRules();
+		for (String pair : split(props.getProperty("annotations.copy", DEFAULT_COPY))) {
+			int index = pair.indexOf('>');
+			if (index <= 0 || index == pair.length() - 1) {
+				throw new IllegalArgumentException("Invalid annotations.copy rule, expected from>to: " + pair);
+			}
+			rules.addCopy(pair.substring(0, index), pair.substring(index + 1));
+		}
+		for (String property : split(props.getProperty("annotations.drop", DEFAULT_DROP))) rules.addDrop(property);
+		for (String language : split(props.getProperty("annotations.languages", ""))) rules.addLanguage(language);
+		return rules;
+	}
+
+	/**
+	 * Returns the rules that the Slimmer applies when none are given.
+	 *
+	 * @return
+	 */
+	public static AnnotationRules defaults() {
+		return read(new Properties());
+	}
+
+	private static List<String> split(String list) {
+		List<String> items = new ArrayList<String>();
+		for (String item : list.split("[\\s,]+")) {
+			if (!item.isEmpty()) items.add(item);
+		}
+		return items;
+	}
+
+	public void addCopy(String from, String to) {
+		copies.computeIfAbsent(from, key -> new ArrayList<String>()).add(to);
+	}
+
+	public void addDrop(String property) {
+		drops.add(property);
+	}
+
+	public void addLanguage(String language) {
+		languages.add(language.toLowerCase());
+	}
+
+	/**
+	 * Returns the properties to which annotations with the given property are copied, except
+	 * those that are dropped.
+	 *
+	 * @param property
+	 * @return
+	 */
+	public List<String> getCopies(String property) {
+		List<String> targets = copies.get(property);
+		if (targets == null) return Collections.emptyList();
+		List<String> kept = new ArrayList<String>(targets.size());
+		for (String target : targets) {
+			if (!drops.contains(target)) kept.add(target);
+		}
+		return kept;
+	}
+
+	public boolean isDropped(String property) {
+		return drops.contains(property);
+	}
+
+	/**
+	 * Returns true if literals with the given language tag are kept.
+	 *
+	 * @param language the language tag, or null or empty for literals without one
+	 * @return
+	 */
+	public boolean isLanguageKept(String language) {
+		return languages.isEmpty() || language == null || language.isEmpty()
+			|| languages.contains(language.toLowerCase());
+	}
+
+	/**
+	 * Plans the rewriting of the annotations of the classes of the ontology that the plan does
+	 * not remove, in a single pass over the annotation assertion axioms.
+	 *
+	 * @param onto
+	 * @param plan
+	 */
+	public void plan(OWLOntology onto, ChangePlan plan) {
+		OWLDataFactory factory = onto.getOWLOntologyManager().getOWLDataFactory();
+		Map<IRI,List<OWLAnnotationProperty>> targets = new HashMap<IRI,List<OWLAnnotationProperty>>();
+		for (String property : copies.keySet()) {
+			List<OWLAnnotationProperty> properties = new ArrayList<OWLAnnotationProperty>();
+			for (String target : getCopies(property)) properties.add(factory.getOWLAnnotationProperty(IRI.create(target)));
+			targets.put(IRI.create(property), properties);
+		}
+		Set<IRI> dropped = new HashSet<IRI>();
+		for (String property : drops) dropped.add(IRI.create(property));
+
+		for (OWLAnnotationAssertionAxiom axiom : onto.getAxioms(AxiomType.ANNOTATION_ASSERTION)) {
+			if (!axiom.getSubject().isIRI()) continue;
+			IRI subject = (IRI)axiom.getSubject();
+			if (!onto.containsClassInSignature(subject) || plan.isRemoved(factory.getOWLClass(subject))) continue;
+			IRI property = axiom.getProperty().getIRI();
+			OWLAnnotationValue value = axiom.getValue();
+			if (!languages.isEmpty() && value instanceof OWLLiteral && !isLanguageKept(((OWLLiteral)value).getLang())) {
+				plan.add("annotations", new RemoveAxiom(onto, axiom));
+				continue;
+			}
+			List<OWLAnnotationProperty> copyTo = targets.get(property);
+			if (copyTo != null) {
+				for (OWLAnnotationProperty target : copyTo) {
+					plan.add("annotations", new AddAxiom(onto,
+						factory.getOWLAnnotationAssertionAxiom(subject, factory.getOWLAnnotation(target, value))));
+				}
+			}
+			if (dropped.contains(property)) plan.add("annotations", new RemoveAxiom(onto, axiom));
+		}
+	}
+}
@@ -0,0 +1,224 @@
+package com.github.enanomapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a {@link SlimmingJob} for each of a set of <code>.props</code> files. With a single
+ * worker the jobs run one after another and report directly to <code>System.out</code>.
+ * With more workers the jobs run in parallel, each with its own log buffer, and the log of
+ * each job is printed as one block when that job has finished.
+ *
+ * <p>When more than one job is run, all jobs share an {@link OntologyCache}, so that
+ * source ontologies slimmed by several jobs and commonly imported ontologies are
+ * parsed only once.
+ *
+ * <p>With a report folder, the phases of each job are measured by a {@link ReportListener},
+ * and a JSON report is written per job, together with a summary of the run.
+ */
+public class BatchRunner {
+
+	private int threads;
+	private SnapshotStore snapshots;
+	private ImportLoader imports;
+	private ResultCache results;
+	private File reportFolder;
+	private LogListener.Level level = LogListener.Level.INFO;
+	private boolean dryRun;
+
+	/**
+	 * @param threads the maximum number of jobs to run at the same time
+	 */
+	public BatchRunner(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Sets the store from which merged source ontologies are loaded, when possible.
+	 *
+	 * @param snapshots
+	 */
+	public void setSnapshotStore(SnapshotStore snapshots) {
+		this.snapshots = snapshots;
+	}
+
+	/**
+	 * Sets the loader of the imports of the source ontologies.
+	 *
+	 * @param imports
+	 */
+	public void setImportLoader(ImportLoader imports) {
+		this.imports = imports;
+	}
+
+	/**
+	 * Sets the store of earlier results, from which unchanged slims are copied.
+	 *
+	 * @param results
+	 */
+	public void setResultCache(ResultCache results) {
+		this.results = results;
+	}
+
+	/**
+	 * Sets the folder to which a JSON report of the phases of each job is written, and a
+	 * summary of the whole run (see {@link ReportListener}).
+	 *
+	 * @param reportFolder the folder, or null for no reports
+	 */
+	public void setReportFolder(File reportFolder) {
+		this.reportFolder = reportFolder;
+	}
+
+	/**
+	 * Sets how much each job reports.
+	 *
+	 * @param level
+	 */
+	public void setLogLevel(LogListener.Level level) {
+		this.level = level;
+	}
+
+	/**
+	 * Sets whether the jobs only write the changes they would make, instead of saving slims.
+	 *
+	 * @param dryRun
+	 */
+	public void setDryRun(boolean dryRun) {
+		this.dryRun = dryRun;
+	}
+
+	/**
+	 * Slims the ontologies described by the given <code>.props</code> files.
+	 *
+	 * @param rootFolder folder in which the <code>.iris</code> files are found
+	 * @param files the <code>.props</code> files
+	 * @return true if all jobs succeeded
+	 */
+	public boolean run(String rootFolder, File[] files) {
+		long start = System.nanoTime();
+		List<ReportListener> reports = new ArrayList<ReportListener>();
+		boolean allSucceeded = run(rootFolder, files, reports);
+		if (reportFolder != null) {
+			try {
+				write(new File(reportFolder, "summary.json"), ReportListener.summary(reports, System.nanoTime() - start));
+			} catch (IOException exception) {
+				System.out.println("Could not write the report summary: " + exception.getMessage());
+			}
+		}
+		return allSucceeded;
+	}
+
+	private boolean run(String rootFolder, File[] files, List<ReportListener> reports) {
+		boolean allSucceeded = true;
+		OntologyCache cache = new OntologyCache();
+		cache.setImportLoader(imports);
+		if (threads == 1 || files.length < 2) {
+			for (File file : files) {
+				SlimmingJob job = createJob(rootFolder, file, new LogListener(System.out, level), reports);
+				if (files.length > 1) share(job, cache);
+				if (!job.call()) allSucceeded = false;
+			}
+			return allSucceeded;
+		}
+
+		System.out.println("Running " + files.length + " jobs on " + threads + " threads");
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, files.length));
+		CompletionService<Boolean> service = new ExecutorCompletionService<Boolean>(executor);
+		Map<Future<Boolean>,File> jobFiles = new HashMap<Future<Boolean>,File>();
+		Map<Future<Boolean>,ByteArrayOutputStream> jobLogs = new HashMap<Future<Boolean>,ByteArrayOutputStream>();
+		try {
+			for (File file : files) {
+				ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+				PrintStream log = new PrintStream(buffer, true, "UTF-8");
+				SlimmingJob job = createJob(rootFolder, file, new LogListener(log, level), reports);
+				share(job, cache);
+				Future<Boolean> future = service.submit(job);
+				jobFiles.put(future, file);
+				jobLogs.put(future, buffer);
+			}
+			for (int i=0; i<files.length; i++) {
+				Future<Boolean> future = service.take();
+				boolean succeeded;
+				try {
+					succeeded = future.get();
+				} catch (ExecutionException exception) {
+					exception.getCause().printStackTrace(System.out);
+					succeeded = false;
+				}
+				if (!succeeded) allSucceeded = false;
+				System.out.println("=== " + jobFiles.get(future).getName() + (succeeded ? " (done)" : " (failed)"));
+				System.out.print(jobLogs.get(future).toString("UTF-8"));
+				System.out.flush();
+			}
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+			allSucceeded = false;
+		} catch (UnsupportedEncodingException exception) {
+			throw new IllegalStateException(exception); // UTF-8 is always supported
+		} finally {
+			executor.shutdownNow();
+		}
+		return allSucceeded;
+	}
+
+	private SlimmingJob createJob(String rootFolder, File file, SlimmerListener listener, List<ReportListener> reports) {
+		listener = SlimmerListener.withFlightRecorder(listener);
+		if (reportFolder == null) return configure(new SlimmingJob(rootFolder, file, listener));
+		ReportListener report = new ReportListener(file.getName(), listener);
+		reports.add(report);
+		// the report is finished and written by the thread that runs the job
+		return configure(new SlimmingJob(rootFolder, file, report) {
+			@Override
+			public Boolean call() {
+				report.start();
+				boolean succeeded = super.call();
+				report.finish(succeeded);
+				try {
+					write(new File(reportFolder, file.getName().replaceAll("\\.props$", "") + ".report.json"), report.toJson());
+				} catch (IOException exception) {
+					report.warning("could not write the report: " + exception.getMessage());
+				}
+				return succeeded;
+			}
+		});
+	}
+
+	private SlimmingJob configure(SlimmingJob job) {
+		job.setSnapshotStore(snapshots);
+		job.setImportLoader(imports);
+		job.setResultCache(results);
+		job.setDryRun(dryRun);
+		return job;
+	}
+
+	private static void write(File file, String content) throws IOException {
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void share(SlimmingJob job, OntologyCache cache) {
+		try {
+			if (job.isStreaming()) return; // streaming jobs do not load the ontology
+			cache.expect(job.getSourceFile());
+			job.setCache(cache);
+		} catch (IOException exception) {
+			// the job itself will report the problem
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.github.enanomapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.AddAxiom;
+import org.semanticweb.owlapi.model.AddImport;
+import org.semanticweb.owlapi.model.AddOntologyAnnotation;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.RemoveAxiom;
+import org.semanticweb.owlapi.model.RemoveImport;
+import org.semanticweb.owlapi.model.RemoveOntologyAnnotation;
+import org.semanticweb.owlapi.model.SetOntologyID;
+
+/**
+ * Changes to an ontology that are gathered first and then applied with a single
+ * <code>applyChanges</code> call, so that the indexes of the ontology are updated once
+ * instead of once per change. Every change is recorded with the step that planned it, like
+ * <code>remove</code> or <code>annotations</code>. Instead of being applied, a plan can also
+ * be written out, as a dry run.
+ *
+ * <p>Since the changes are not applied while planning, later steps use
+ * {@link #isRemoved(OWLEntity)} to skip the entities that earlier steps planned to remove.
+ */
+public class ChangePlan {
+
+	private final OWLOntologyManager man;
+	private final List<OWLOntologyChange> changes = new ArrayList<OWLOntologyChange>();
+	private final List<String> steps = new ArrayList<String>();
+	private final Set<OWLOntologyChange> planned = new HashSet<OWLOntologyChange>();
+	private final Set<OWLEntity> removedEntities = new HashSet<OWLEntity>();
+
+	/**
+	 * @param man the manager of the ontologies that are changed
+	 */
+	public ChangePlan(OWLOntologyManager man) {
+		this.man = man;
+	}
+
+	/**
+	 * Adds a change, unless the same change is already planned.
+	 *
+	 * @param step the step that plans the change
+	 * @param change
+	 */
+	public void add(String step, OWLOntologyChange change) {
+		if (planned.add(change)) {
+			changes.add(change);
+			steps.add(step);
+		}
+	}
+
+	/**
+	 * Adds changes, except those that are already planned.
+	 *
+	 * @param step the step that plans the changes
+	 * @param changes
+	 */
+	public void addAll(String step, List<? extends OWLOntologyChange> changes) {
+		for (OWLOntologyChange change : changes) add(step, change);
+	}
+
+	/**
+	 * Records that the changes remove the given entity.
+	 *
+	 * @param entity
+	 */
+	public void entityRemoved(OWLEntity entity) {
+		removedEntities.add(entity);
+	}
+
+	/**
+	 * Returns true if the changes remove the given entity.
+	 *
+	 * @param entity
+	 * @return
+	 */
+	public boolean isRemoved(OWLEntity entity) {
+		return removedEntities.contains(entity);
+	}
+
+	public List<OWLOntologyChange> getChanges() {
+		return Collections.unmodifiableList(changes);
+	}
+
+	public int size() {
+		return changes.size();
+	}
+
+	/**
+	 * Returns the number of changes per step, in the order in which the steps planned them.
+	 *
+	 * @return
+	 */
+	public Map<String,Integer> getCounts() {
+		Map<String,Integer> counts = new LinkedHashMap<String,Integer>();
+		for (String step : steps) counts.merge(step, 1, Integer::sum);
+		return counts;
+	}
+
+	/**
+	 * Applies all changes at once, after which the plan is empty. Slimmers apply plans with
+	 * {@link Slimmer#apply(ChangePlan)}, which also drops their outdated class hierarchy.
+	 */
+	void apply() {
+		if (!changes.isEmpty()) man.applyChanges(changes);
+		changes.clear();
+		steps.clear();
+		planned.clear();
+	}
+
+	/**
+	 * Writes the plan, one change per line, preceded by the step that planned it.
+	 *
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void write(Writer writer) throws IOException {
+		for (int i=0; i<changes.size(); i++) {
+			writer.write(steps.get(i));
+			writer.write('\t');
+			writer.write(toString(changes.get(i)));
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+
+	private static String toString(OWLOntologyChange change) {
+		if (change instanceof AddAxiom) return "+ " + change.getAxiom();
+		if (change instanceof RemoveAxiom) return "- " + change.getAxiom();
+		if (change instanceof AddImport) return "+ import " + ((AddImport)change).getImportDeclaration().getIRI();
+		if (change instanceof RemoveImport) return "- import " + ((RemoveImport)change).getImportDeclaration().getIRI();
+		if (change instanceof AddOntologyAnnotation) return "+ " + ((AddOntologyAnnotation)change).getAnnotation();
+		if (change instanceof RemoveOntologyAnnotation) return "- " + ((RemoveOntologyAnnotation)change).getAnnotation();
+		if (change instanceof SetOntologyID) return "= " + ((SetOntologyID)change).getNewOntologyID();
+		return change.toString();
+	}
+}
@@ -0,0 +1,468 @@
+package com.github.enanomapper;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+
+/**
+ * Index of the named class hierarchy of an ontology. The index is built once from the
+ * asserted <code>SubClassOf</code> axioms between named classes and keeps the parent and
+ * child adjacency of every class. Transitive closures are computed iteratively, so that
+ * deep or cyclic hierarchies do not overflow the stack, and are cached per class.
+ *
+ * <p>Classes are identified by their id in an {@link IRIDictionary}, and sets of classes are
+ * {@link BitSet}s over these ids. The dictionary may be shared with other indexes, such as a
+ * {@link #derive(BitSet, Map) derived} one, so that their sets can be combined directly.
+ *
+ * <p>The index is a snapshot: changes to the ontology after it is built are not reflected.
+ */
+public class ClassHierarchy {
+
+	private final IRIDictionary dictionary;
+	private final BitSet classes = new BitSet();
+	private int size;
+	private int[][] parents;
+	private int[][] children;
+	private int cyclicClassCount;
+
+	private int[] edges = new int[64];
+	private int edgeCount = 0;
+
+	private final Map<Integer,BitSet> superClassCache = new ConcurrentHashMap<Integer,BitSet>();
+	private final Map<Integer,BitSet> subClassCache = new ConcurrentHashMap<Integer,BitSet>();
+
+	/**
+	 * Builds the hierarchy index for the classes in the signature of the given ontology.
+	 *
+	 * @param ontology
+	 */
+	public ClassHierarchy(OWLOntology ontology) {
+		this(ontology, new IRIDictionary());
+	}
+
+	/**
+	 * Builds the hierarchy index for the classes in the signature of the given ontology,
+	 * adding their IRIs to the given dictionary.
+	 *
+	 * @param ontology
+	 * @param dictionary
+	 */
+	public ClassHierarchy(OWLOntology ontology, IRIDictionary dictionary) {
+		this(Collections.singleton(ontology), dictionary);
+	}
+
+	/**
+	 * Builds the hierarchy index for the classes in the signatures of the given ontologies
+	 * together, such as those of an imports closure, adding their IRIs to the given dictionary.
+	 *
+	 * @param ontologies
+	 * @param dictionary
+	 */
+	public ClassHierarchy(Collection<OWLOntology> ontologies, IRIDictionary dictionary) {
+		this(dictionary);
+		for (OWLOntology ontology : ontologies) {
+			ontology.classesInSignature().forEach(clazz -> classes.set(dictionary.intern(clazz.getIRI())));
+		}
+		for (OWLOntology ontology : ontologies) {
+			for (OWLSubClassOfAxiom axiom : ontology.getAxioms(AxiomType.SUBCLASS_OF)) {
+				if (axiom.getSubClass().isOWLClass() && axiom.getSuperClass().isOWLClass()) {
+					addEdge(
+						dictionary.intern(axiom.getSubClass().asOWLClass().getIRI()),
+						dictionary.intern(axiom.getSuperClass().asOWLClass().getIRI())
+					);
+				}
+			}
+		}
+		build();
+	}
+
+	/**
+	 * Creates an empty index, to be filled with {@link #addClass(String)} and
+	 * {@link #addSubClassOf(String, String)}, and finished with {@link #build()}.
+	 */
+	ClassHierarchy() {
+		this(new IRIDictionary());
+	}
+
+	ClassHierarchy(IRIDictionary dictionary) {
+		this.dictionary = dictionary;
+	}
+
+	void addClass(String iri) {
+		classes.set(dictionary.intern(iri));
+	}
+
+	void addSubClassOf(String subClass, String superClass) {
+		addEdge(dictionary.intern(subClass), dictionary.intern(superClass));
+	}
+
+	private void addEdge(int subClass, int superClass) {
+		classes.set(subClass);
+		classes.set(superClass);
+		if (edgeCount + 2 > edges.length) edges = Arrays.copyOf(edges, edges.length * 2);
+		edges[edgeCount++] = subClass;
+		edges[edgeCount++] = superClass;
+	}
+
+	void build() {
+		index();
+		edges = null;
+	}
+
+	/**
+	 * Returns the dictionary with the ids of the classes in this index.
+	 *
+	 * @return
+	 */
+	public IRIDictionary getDictionary() {
+		return dictionary;
+	}
+
+	/**
+	 * Returns a new index with only the given classes of this index, plus the given new
+	 * super classes. This is the hierarchy left after removing all other classes and
+	 * adding the super class axioms, without having to build it from an ontology again.
+	 * The new index shares the dictionary of this one.
+	 *
+	 * @param retained the ids of the classes to keep
+	 * @param newSuperClasses new super class for classes
+	 * @return
+	 */
+	public ClassHierarchy derive(BitSet retained, Map<String,String> newSuperClasses) {
+		ClassHierarchy derived = new ClassHierarchy(dictionary);
+		for (int id = classes.nextSetBit(0); id >= 0; id = classes.nextSetBit(id + 1)) {
+			if (!retained.get(id)) continue;
+			derived.classes.set(id);
+			for (int parent : parents[id]) {
+				if (retained.get(parent)) derived.addEdge(id, parent);
+			}
+		}
+		for (Map.Entry<String,String> entry : newSuperClasses.entrySet()) {
+			if (derived.contains(entry.getKey())) derived.addSubClassOf(entry.getKey(), entry.getValue());
+		}
+		derived.build();
+		return derived;
+	}
+
+	private void index() {
+		size = dictionary.size();
+		int[] parentCounts = new int[size];
+		int[] childCounts = new int[size];
+		for (int i=0; i<edgeCount; i+=2) {
+			parentCounts[edges[i]]++;
+			childCounts[edges[i+1]]++;
+		}
+		parents = new int[size][];
+		children = new int[size][];
+		for (int i=0; i<size; i++) {
+			parents[i] = new int[parentCounts[i]];
+			children[i] = new int[childCounts[i]];
+		}
+		for (int i=0; i<edgeCount; i+=2) {
+			int sub = edges[i];
+			int sup = edges[i+1];
+			parents[sub][--parentCounts[sub]] = sup;
+			children[sup][--childCounts[sup]] = sub;
+		}
+		cyclicClassCount = countCyclicClasses();
+	}
+
+	/**
+	 * Kahn's algorithm: all classes that cannot be sorted topologically are on, or below,
+	 * a subclass cycle.
+	 */
+	private int countCyclicClasses() {
+		int[] inDegree = new int[size];
+		Deque<Integer> queue = new ArrayDeque<Integer>();
+		for (int i=0; i<size; i++) {
+			inDegree[i] = parents[i].length;
+			if (inDegree[i] == 0) queue.add(i);
+		}
+		int sorted = 0;
+		while (!queue.isEmpty()) {
+			int node = queue.poll();
+			sorted++;
+			for (int child : children[node]) {
+				if (--inDegree[child] == 0) queue.add(child);
+			}
+		}
+		return size - sorted;
+	}
+
+	/**
+	 * Returns true if the given IRI is a class known to this index.
+	 *
+	 * @param iri
+	 * @return
+	 */
+	public boolean contains(String iri) {
+		int id = dictionary.getId(iri);
+		return id >= 0 && classes.get(id);
+	}
+
+	/**
+	 * Returns true if the given id is a class known to this index.
+	 *
+	 * @param id
+	 * @return
+	 */
+	public boolean contains(int id) {
+		return id >= 0 && classes.get(id);
+	}
+
+	/**
+	 * Returns the number of classes in this index.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return classes.cardinality();
+	}
+
+	/**
+	 * Returns true if the asserted class hierarchy has no subclass cycles.
+	 *
+	 * @return
+	 */
+	public boolean isAcyclic() {
+		return cyclicClassCount == 0;
+	}
+
+	/**
+	 * Returns the number of classes that are on, or below, a subclass cycle.
+	 *
+	 * @return
+	 */
+	public int getCyclicClassCount() {
+		return cyclicClassCount;
+	}
+
+	/**
+	 * Returns the IRIs of all direct and indirect super classes of the given class.
+	 *
+	 * @param iri
+	 * @return an unmodifiable set, empty if the class is unknown
+	 */
+	public Set<String> getSuperClasses(String iri) {
+		return Collections.unmodifiableSet(dictionary.toIRIs(getSuperClassIds(dictionary.getId(iri))));
+	}
+
+	/**
+	 * Returns the IRIs of all direct and indirect sub classes of the given class.
+	 *
+	 * @param iri
+	 * @return an unmodifiable set, empty if the class is unknown
+	 */
+	public Set<String> getSubClasses(String iri) {
+		return Collections.unmodifiableSet(dictionary.toIRIs(getSubClassIds(dictionary.getId(iri))));
+	}
+
+	/**
+	 * Returns the ids of the super classes of the given class at most the given number of levels up.
+	 *
+	 * @param id
+	 * @param depth the number of levels, or {@link Instruction#UNBOUNDED} for all super classes
+	 * @return a new set, which the caller may change
+	 */
+	public BitSet getSuperClassIds(int id, int depth) {
+		if (depth == Instruction.UNBOUNDED) return getSuperClassIds(id);
+		BitSet start = new BitSet();
+		if (id >= 0 && id < size) start.set(id);
+		return closure(start, parents, depth);
+	}
+
+	/**
+	 * Returns the ids of the sub classes of the given class at most the given number of levels down.
+	 *
+	 * @param id
+	 * @param depth the number of levels, or {@link Instruction#UNBOUNDED} for all sub classes
+	 * @return a new set, which the caller may change
+	 */
+	public BitSet getSubClassIds(int id, int depth) {
+		if (depth == Instruction.UNBOUNDED) return getSubClassIds(id);
+		BitSet start = new BitSet();
+		if (id >= 0 && id < size) start.set(id);
+		return closure(start, children, depth);
+	}
+
+	/**
+	 * Returns the ids of all direct and indirect super classes of the given class. The
+	 * returned set is cached and must not be modified.
+	 *
+	 * @param id
+	 * @return the ids, empty if the class is unknown
+	 */
+	public BitSet getSuperClassIds(int id) {
+		if (id < 0 || id >= size) return new BitSet();
+		return superClassCache.computeIfAbsent(id, node -> closure(node, parents));
+	}
+
+	/**
+	 * Returns the ids of all direct and indirect sub classes of the given class. The
+	 * returned set is cached and must not be modified.
+	 *
+	 * @param id
+	 * @return the ids, empty if the class is unknown
+	 */
+	public BitSet getSubClassIds(int id) {
+		if (id < 0 || id >= size) return new BitSet();
+		return subClassCache.computeIfAbsent(id, node -> closure(node, children));
+	}
+
+	/**
+	 * This functions applies the <code>D</code> and <code>U</code> statements from the configuration
+	 * files by looking up all parents or all children of the instructed classes. IRIs that are not
+	 * in the dictionary, and thus not in the ontology, are skipped rather than added, so that
+	 * exploding only reads the hierarchy and its dictionary. Wildcard instructions apply to all IRIs in the dictionary that start with their prefix; they
+	 * are matched together, with a {@link PrefixTrie}, in one pass over the dictionary per depth.
+	 * Instructions with a depth only go that many levels up or down, breadth-first.
+	 *
+	 * @param instructions
+	 * @param listener listener to which progress is reported
+	 * @return the ids of all classes and properties covered by the instructions
+	 */
+	public BitSet explode(Set<Instruction> instructions, SlimmerListener listener) {
+		BitSet singleIRIs = new BitSet(dictionary.size());
+		Map<Integer,PrefixTrie> prefixes = new TreeMap<Integer,PrefixTrie>();
+		boolean debug = listener.isDebugEnabled();
+		for (Instruction instruction : instructions) {
+			String iri = instruction.getUriString();
+			if (instruction.isWildcard()) {
+				if (debug) listener.debug("Extracting " + iri + "...");
+				prefixes.computeIfAbsent(instruction.getDepth(), depth -> new PrefixTrie())
+					.add(instruction.getPrefix(), instruction.getScope());
+			} else if (instruction.getScope() == Instruction.Scope.UP) {
+				listener.instructionStarted(instruction);
+				int id = dictionary.getId(iri);
+				BitSet superClasses = getSuperClassIds(id, instruction.getDepth());
+				if (debug) listener.debug("Extracting " + iri + "... superclass count: " + superClasses.cardinality());
+				singleIRIs.or(superClasses);
+				if (id >= 0) singleIRIs.set(id);
+				listener.instructionExpanded(instruction, superClasses.cardinality());
+			} else if (instruction.getScope() == Instruction.Scope.DOWN) {
+				listener.instructionStarted(instruction);
+				int id = dictionary.getId(iri);
+				BitSet subClasses = getSubClassIds(id, instruction.getDepth());
+				if (debug) listener.debug("Extracting " + iri + "... subclass count: " + subClasses.cardinality());
+				singleIRIs.or(subClasses);
+				if (id >= 0) singleIRIs.set(id);
+				listener.instructionExpanded(instruction, subClasses.cardinality());
+			} else if (instruction.getScope() == Instruction.Scope.SINGLE) {
+				listener.instructionStarted(instruction);
+				if (debug) listener.debug("Extracting " + iri + "...");
+				int id = dictionary.getId(iri);
+				if (id >= 0) singleIRIs.set(id);
+				listener.instructionExpanded(instruction, 0);
+			} else {
+				listener.warning("Cannot handle this instruction: " + instruction.getScope());
+			}
+		}
+		for (Map.Entry<Integer,PrefixTrie> entry : prefixes.entrySet()) {
+			singleIRIs.or(explode(entry.getValue(), entry.getKey(), listener));
+		}
+		return singleIRIs;
+	}
+
+	private BitSet explode(PrefixTrie prefixes, int depth, SlimmerListener listener) {
+		BitSet matched = new BitSet();
+		BitSet up = new BitSet();
+		BitSet down = new BitSet();
+		int upMask = PrefixTrie.mask(Instruction.Scope.UP);
+		int downMask = PrefixTrie.mask(Instruction.Scope.DOWN);
+		for (int id=0, count=dictionary.size(); id<count; id++) {
+			int scopes = prefixes.match(dictionary.getIRI(id));
+			if (scopes == 0) continue;
+			matched.set(id);
+			if ((scopes & upMask) != 0) up.set(id);
+			if ((scopes & downMask) != 0) down.set(id);
+		}
+		if (listener.isDebugEnabled()) listener.debug("  IRIs matching " + prefixes.size() + " prefixes: " + matched.cardinality());
+		if (!up.isEmpty()) matched.or(closure(up, parents, depth));
+		if (!down.isEmpty()) matched.or(closure(down, children, depth));
+		return matched;
+	}
+
+	/**
+	 * Returns the union of the classes at most the given number of steps away from the given
+	 * classes, found breadth-first, level by level.
+	 *
+	 * @param depth the number of steps, or {@link Instruction#UNBOUNDED}
+	 */
+	private BitSet closure(BitSet starts, int[][] adjacency, int depth) {
+		if (depth == Instruction.UNBOUNDED) return closure(starts, adjacency);
+		BitSet visited = new BitSet(size);
+		int[] frontier = new int[16];
+		int count = 0;
+		for (int start = starts.nextSetBit(0); start >= 0 && start < size; start = starts.nextSetBit(start + 1)) {
+			if (count == frontier.length) frontier = Arrays.copyOf(frontier, count * 2);
+			frontier[count++] = start;
+		}
+		int[] next = new int[16];
+		for (int level=1; level<=depth && count>0; level++) {
+			int nextCount = 0;
+			for (int i=0; i<count; i++) {
+				for (int node : adjacency[frontier[i]]) {
+					if (visited.get(node)) continue;
+					visited.set(node);
+					if (nextCount == next.length) next = Arrays.copyOf(next, nextCount * 2);
+					next[nextCount++] = node;
+				}
+			}
+			int[] swap = frontier;
+			frontier = next;
+			next = swap;
+			count = nextCount;
+		}
+		return visited;
+	}
+
+	private BitSet closure(int start, int[][] adjacency) {
+		BitSet visited = new BitSet(size);
+		int[] stack = new int[Math.max(16, adjacency[start].length)];
+		int top = 0;
+		for (int next : adjacency[start]) stack[top++] = next;
+		return closure(visited, stack, top, adjacency);
+	}
+
+	/**
+	 * Returns the union of the closures of the given classes, in one traversal.
+	 */
+	private BitSet closure(BitSet starts, int[][] adjacency) {
+		BitSet visited = new BitSet(size);
+		int[] stack = new int[16];
+		int top = 0;
+		for (int start = starts.nextSetBit(0); start >= 0 && start < size; start = starts.nextSetBit(start + 1)) {
+			for (int next : adjacency[start]) {
+				if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+				stack[top++] = next;
+			}
+		}
+		return closure(visited, stack, top, adjacency);
+	}
+
+	private static BitSet closure(BitSet visited, int[] stack, int top, int[][] adjacency) {
+		while (top > 0) {
+			int node = stack[--top];
+			if (visited.get(node)) continue;
+			visited.set(node);
+			for (int next : adjacency[node]) {
+				if (!visited.get(next)) {
+					if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+					stack[top++] = next;
+				}
+			}
+		}
+		return visited;
+	}
+}
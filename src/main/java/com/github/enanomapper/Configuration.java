@@ -2,9 +2,16 @@ package com.github.enanomapper;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -24,12 +31,22 @@ import java.util.Set;
  * character indicates whether a whole upper (U) or down (D) tree should be included or
  * excluded. After the colon the URI of the resource is given to be in- or excluded, followed
  * by a user-oriented comment. Finally, before the colon and in brackets an optional
- * superclass of this resource can be specified, possibly from other ontologies.
+ * superclass of this resource can be specified, possibly from other ontologies. An URI that
+ * ends with <code>*</code> applies to all URIs that start with the part before it, for example
+ * <code>-D:http://purl.obolibrary.org/obo/BFO_*</code>. A number after the U or D limits
+ * the tree to that many levels, for example <code>+D2:</code> for the children and
+ * grandchildren of a class.
+ *
+ * <p>Configuration files are read as UTF-8, one line at a time. All invalid lines are
+ * reported together, in a {@link ConfigurationException}.
  *
  * @author egonw
  */
 public class Configuration {
 
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int MAX_DEPTH_DIGITS = 9;
+
 	private Set<Instruction> irisToSave = new HashSet<Instruction>();
 	private Set<Instruction> irisToRemove = new HashSet<Instruction>();
 	
@@ -49,87 +66,157 @@ public class Configuration {
 		return irisToRemove;
 	}
 
-	public void read(File file) throws Exception {
-		read(new FileReader(file));
+	/**
+	 * Reads the instructions of a configuration file, which is decoded as UTF-8.
+	 *
+	 * @param file
+	 * @throws IOException
+	 * @throws ConfigurationException if lines of the file are invalid
+	 */
+	public void read(File file) throws IOException, ConfigurationException {
+		read(file, SlimmerListener.NONE);
+	}
+
+	/**
+	 * Reads the instructions of a configuration file, which is decoded as UTF-8.
+	 *
+	 * @param file
+	 * @param listener listener to which skipped lines are reported
+	 * @throws IOException
+	 * @throws ConfigurationException if lines of the file are invalid
+	 */
+	public void read(File file, SlimmerListener listener) throws IOException, ConfigurationException {
+		read(new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.UTF_8), listener);
 	}
 
-	public void read(Reader file) throws Exception {
-		BufferedReader reader = new BufferedReader(file);
-		String line = reader.readLine();
-		int lineNumber = 1;
-		while (line != null) {
-			String instruction = line.trim().replace("\t", " ");
-			if (instruction.length() == 0) {
-				System.out.println("Skipping an unexpected empty line at line " + lineNumber);
-				line = reader.readLine();
+	/**
+	 * Reads the instructions of a configuration, line by line. Invalid lines do not stop the
+	 * reading: all of them are reported together, after the last line.
+	 *
+	 * @param file
+	 * @throws IOException
+	 * @throws ConfigurationException if lines of the configuration are invalid
+	 */
+	public void read(Reader file) throws IOException, ConfigurationException {
+		read(file, SlimmerListener.NONE);
+	}
+
+	/**
+	 * Reads the instructions of a configuration, line by line. Invalid lines do not stop the
+	 * reading: all of them are reported together, after the last line.
+	 *
+	 * @param file
+	 * @param listener listener to which skipped lines are reported
+	 * @throws IOException
+	 * @throws ConfigurationException if lines of the configuration are invalid
+	 */
+	public void read(Reader file, SlimmerListener listener) throws IOException, ConfigurationException {
+		List<String> errors = new ArrayList<String>();
+		Map<String,String> superClasses = new HashMap<String,String>();
+		try (BufferedReader reader = new BufferedReader(file, BUFFER_SIZE)) {
+			int lineNumber = 1;
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				String error = read(line, lineNumber, superClasses, listener);
+				if (error != null) errors.add("Invalid configuration input at line " + lineNumber + ": " + error);
 				lineNumber++;
-				continue;
 			}
+		}
+		if (!errors.isEmpty()) throw new ConfigurationException(errors);
+	}
 
-			char addRemoveInstruct = instruction.charAt(0);
-			if (addRemoveInstruct != '+' && addRemoveInstruct != '-') {
-				reader.close();
-				throw new Exception("Invalid configuration input at line " + lineNumber + ": first character should be '+' or '-'.");
-			}
-                        
-			char upDownInstruct = instruction.charAt(1);
-			Instruction.Scope scope = Instruction.Scope.SINGLE;
-			String newSuperClass = null;
-			int startURI = 2;
-			if (upDownInstruct != ':' && upDownInstruct != '(') {
-				if (upDownInstruct == 'U') {
-					scope = Instruction.Scope.UP;
-					if (instruction.charAt(2) != ':') {
-						reader.close();
-						throw new Exception("Invalid configuration input at line " + lineNumber + ": expected ':' at position 3.");
-					}
-					startURI = 3;
-				} else if (upDownInstruct == 'D') {
-					scope = Instruction.Scope.DOWN;
-					startURI = 3;
-					int indexCloseSuper = instruction.indexOf(')');
-					if (instruction.charAt(2) == '(' && indexCloseSuper != -1) {
-						newSuperClass = instruction.substring(3, indexCloseSuper);
-						startURI = indexCloseSuper + 2;
-					} else if (instruction.charAt(2) != ':') {
-						reader.close();
-						throw new Exception("Invalid configuration input at line " + lineNumber + ": expected ':' at position 3.");
-					}
-				} else {
-					reader.close();
-					throw new Exception("Invalid configuration input at line " + lineNumber + ": second instruction should be 'U', 'D', or empty.");
-				}
-			} else {
-				// OK, SINGLE
-				int indexCloseSuper = instruction.indexOf(')');
-				if (instruction.charAt(1) == '(' && indexCloseSuper != -1) {
-					newSuperClass = instruction.substring(2, indexCloseSuper);
-					startURI = indexCloseSuper + 2;
-				}
-			}
+	/**
+	 * Reads one line, only taking substrings for the IRIs and the comment.
+	 *
+	 * @param superClasses the new super classes read so far, so that each is kept only once
+	 * @return a description of what is wrong with the line, or null if it is valid
+	 */
+	private String read(String line, int lineNumber, Map<String,String> superClasses, SlimmerListener listener) {
+		int end = line.length();
+		while (end > 0 && isSpace(line.charAt(end - 1))) end--;
+		int start = 0;
+		while (start < end && isSpace(line.charAt(start))) start++;
+		if (start == end) {
+			listener.info("Skipping an unexpected empty line at line " + lineNumber);
+			return null;
+		}
+
+		char addRemoveInstruct = line.charAt(start);
+		if (addRemoveInstruct != '+' && addRemoveInstruct != '-') {
+			return "first character should be '+' or '-'.";
+		}
+		int position = start + 1;
+		Instruction.Scope scope = Instruction.Scope.SINGLE;
+		char upDownInstruct = position < end ? line.charAt(position) : ':';
+		if (upDownInstruct == 'U') {
+			scope = Instruction.Scope.UP;
+			position++;
+		} else if (upDownInstruct == 'D') {
+			scope = Instruction.Scope.DOWN;
+			position++;
+		} else if (upDownInstruct != ':' && upDownInstruct != '(') {
+			return "second instruction should be 'U', 'D', or empty.";
+		}
 
-			String iri = instruction.substring(startURI);
-			int index = iri.indexOf(' ');
-			String comment = "";
-			if (index != -1) {
-				comment = iri.substring(index).trim();
-				iri = iri.substring(0, index);
+		int depth = Instruction.UNBOUNDED;
+		if (scope != Instruction.Scope.SINGLE) {
+			int startDepth = position;
+			while (position < end && position - startDepth < MAX_DEPTH_DIGITS
+					&& line.charAt(position) >= '0' && line.charAt(position) <= '9') {
+				depth = depth * 10 + (line.charAt(position) - '0');
+				position++;
 			}
-			Instruction ins = new Instruction(iri, scope, comment);
-			if (newSuperClass != null) {
-				ins.setNewSuperClass(newSuperClass);
-				Instruction superIns = new Instruction(newSuperClass, Instruction.Scope.SINGLE, "Used as Superclass");
-				irisToSave.add(superIns);
+			if (position > startDepth && depth == 0) {
+				return "the depth should be at least 1.";
 			}
-			if (addRemoveInstruct == '+') {
-				irisToSave.add(ins);
-			} else {
-				irisToRemove.add(ins);
+		}
+
+		String newSuperClass = null;
+		if (scope != Instruction.Scope.UP && position < end && line.charAt(position) == '(') {
+			int indexCloseSuper = line.indexOf(')', position);
+			if (indexCloseSuper == -1 || indexCloseSuper >= end) {
+				return "expected ')' after the new super class.";
 			}
-			
-			line = reader.readLine();
-			lineNumber++;
+			newSuperClass = line.substring(position + 1, indexCloseSuper);
+			String known = superClasses.putIfAbsent(newSuperClass, newSuperClass);
+			if (known != null) newSuperClass = known;
+			position = indexCloseSuper + 1;
+		}
+		if (position >= end || line.charAt(position) != ':') {
+			return "expected ':' at position " + (position - start + 1) + ".";
+		}
+		position++;
+
+		int endURI = position;
+		while (endURI < end && !isSpace(line.charAt(endURI))) endURI++;
+		if (endURI == position) {
+			return "expected an IRI after ':'.";
+		}
+		String iri = line.substring(position, endURI);
+		if (newSuperClass != null && iri.endsWith(Instruction.WILDCARD)) {
+			return "a new super class cannot be given for a wildcard IRI.";
 		}
-		reader.close();
+		String comment = "";
+		if (endURI < end) {
+			int startComment = endURI;
+			while (isSpace(line.charAt(startComment))) startComment++;
+			comment = line.substring(startComment, end);
+			if (comment.indexOf('\t') != -1) comment = comment.replace('\t', ' ');
+		}
+
+		Instruction ins = new Instruction(iri, scope, depth, newSuperClass, comment);
+		if (newSuperClass != null) {
+			Instruction superIns = new Instruction(newSuperClass, Instruction.Scope.SINGLE, "Used as Superclass");
+			irisToSave.add(superIns);
+		}
+		if (addRemoveInstruct == '+') {
+			irisToSave.add(ins);
+		} else {
+			irisToRemove.add(ins);
+		}
+		return null;
+	}
+
+	private static boolean isSpace(char character) {
+		return character <= ' ';
 	}
 }
@@ -0,0 +1,28 @@
+package com.github.enanomapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when a configuration file has invalid lines. It lists all invalid lines of the file,
+ * not only the first one, so that they can all be fixed at once.
+ */
+public class ConfigurationException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<String> errors;
+
+	/**
+	 * @param errors the description of each invalid line, in the order of the lines
+	 */
+	public ConfigurationException(List<String> errors) {
+		super(String.join("\n", errors));
+		this.errors = Collections.unmodifiableList(new ArrayList<String>(errors));
+	}
+
+	public List<String> getErrors() {
+		return errors;
+	}
+}
@@ -0,0 +1,112 @@
+package com.github.enanomapper;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.semanticweb.owlapi.model.IRI;
+
+/**
+ * Dictionary that gives every IRI a dense <code>int</code> id, in the order in which the IRIs
+ * are added. Sets of classes and properties can then be represented as {@link BitSet}s over
+ * these ids, so that combining them is a bitwise operation and a membership test is a single
+ * bit lookup, without hashing or creating IRI strings.
+ *
+ * <p>Ids can be looked up by IRI string, as found in the configuration, and by OWLAPI
+ * {@link IRI}, as found in the ontology. The dictionary can be read from several threads
+ * while IRIs are being added: adding is synchronized, while lookups do not lock.
+ */
+public class IRIDictionary {
+
+	private final Map<String,Integer> ids = new ConcurrentHashMap<String,Integer>();
+	private final Map<IRI,Integer> owlIds = new ConcurrentHashMap<IRI,Integer>();
+	private volatile String[] iris = new String[64];
+	private volatile int size;
+
+	/**
+	 * Returns the id of the given IRI, adding it to the dictionary if it is not known yet.
+	 *
+	 * @param iri
+	 * @return
+	 */
+	public int intern(String iri) {
+		Integer id = ids.get(iri);
+		if (id != null) return id;
+		synchronized (this) {
+			id = ids.get(iri);
+			if (id == null) {
+				id = size;
+				if (id == iris.length) iris = Arrays.copyOf(iris, id * 2);
+				iris[id] = iri;
+				size = id + 1;
+				ids.put(iri, id); // publishes the IRI to readers that find this id
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the id of the given IRI, adding it to the dictionary if it is not known yet.
+	 *
+	 * @param iri
+	 * @return
+	 */
+	public int intern(IRI iri) {
+		Integer id = owlIds.get(iri);
+		if (id == null) {
+			id = intern(iri.toString());
+			owlIds.putIfAbsent(iri, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the id of the given IRI.
+	 *
+	 * @param iri
+	 * @return the id, or -1 if the IRI is not in the dictionary
+	 */
+	public int getId(String iri) {
+		Integer id = ids.get(iri);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns the id of the given IRI.
+	 *
+	 * @param iri
+	 * @return the id, or -1 if the IRI was not added with {@link #intern(IRI)}
+	 */
+	public int getId(IRI iri) {
+		Integer id = owlIds.get(iri);
+		return id == null ? -1 : id;
+	}
+
+	public String getIRI(int id) {
+		return iris[id];
+	}
+
+	/**
+	 * Returns the number of IRIs in the dictionary, which is one more than the highest id.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the IRIs for the ids in the given set.
+	 *
+	 * @param set
+	 * @return
+	 */
+	public Set<String> toIRIs(BitSet set) {
+		Set<String> result = new HashSet<String>(set.cardinality() * 2);
+		for (int id = set.nextSetBit(0); id >= 0; id = set.nextSetBit(id + 1)) result.add(getIRI(id));
+		return result;
+	}
+}
@@ -0,0 +1,158 @@
+package com.github.enanomapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLOntologyIRIMapper;
+import org.semanticweb.owlapi.util.AutoIRIMapper;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+/**
+ * Maps the IRIs of imported ontologies to local documents, so that imports are read from disk
+ * instead of downloaded. Mappings come from Protege-style <code>catalog-v001.xml</code> files
+ * (XML catalogs with <code>uri</code>, <code>group</code> and <code>nextCatalog</code> entries)
+ * and from folders, in which every ontology file is mapped from the ontology IRI it declares.
+ * A mapped local file may be compressed (see {@link SourceInput}). When several mappings exist
+ * for an IRI, the one that was added first is used.
+ */
+public class ImportCatalog implements OWLOntologyIRIMapper {
+
+	/** the name of the catalog file that Protege writes next to an ontology */
+	public static final String CATALOG_FILENAME = "catalog-v001.xml";
+
+	private static final long serialVersionUID = 1L;
+
+	private final Map<IRI,IRI> entries = new LinkedHashMap<IRI,IRI>();
+	private final List<AutoIRIMapper> folders = new ArrayList<AutoIRIMapper>();
+	private final Set<File> catalogs = new HashSet<File>();
+
+	/**
+	 * Adds the mappings of a catalog file or, if a folder is given, of the ontology files and
+	 * catalogs in that folder and its subfolders.
+	 *
+	 * @param file a catalog file or a folder
+	 * @throws IOException if the file does not exist or a catalog cannot be read
+	 */
+	public void add(File file) throws IOException {
+		if (file.isDirectory()) {
+			addFolder(file);
+		} else if (file.exists()) {
+			addCatalog(file);
+		} else {
+			throw new IOException("Catalog not found: " + file);
+		}
+	}
+
+	/**
+	 * Adds the mappings of an XML catalog file. Relative document locations are resolved
+	 * against the folder of the catalog, or against the <code>xml:base</code> of the entry.
+	 *
+	 * @param catalog
+	 * @throws IOException if the catalog cannot be read
+	 */
+	public void addCatalog(File catalog) throws IOException {
+		catalog = catalog.getAbsoluteFile();
+		if (!catalogs.add(catalog)) return; // nextCatalog loops
+		Element root;
+		try {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setNamespaceAware(true);
+			factory.setExpandEntityReferences(false);
+			// catalogs may declare the OASIS DTD, which must not be downloaded
+			factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+			root = factory.newDocumentBuilder().parse(catalog).getDocumentElement();
+		} catch (ParserConfigurationException | SAXException exception) {
+			throw new IOException("Could not read catalog " + catalog + ": " + exception.getMessage(), exception);
+		}
+		try {
+			read(root, catalog.toURI());
+		} catch (IllegalArgumentException exception) {
+			throw new IOException("Invalid location in catalog " + catalog + ": " + exception.getMessage(), exception);
+		}
+	}
+
+	private void read(Element element, URI base) throws IOException {
+		String xmlBase = element.getAttributeNS(XMLConstants.XML_NS_URI, "base");
+		if (!xmlBase.isEmpty()) base = base.resolve(xmlBase);
+		String name = element.getLocalName();
+		if ("uri".equals(name) && element.hasAttribute("name") && element.hasAttribute("uri")) {
+			IRI iri = IRI.create(element.getAttribute("name"));
+			if (!entries.containsKey(iri)) entries.put(iri, getDocumentIRI(base.resolve(element.getAttribute("uri"))));
+		} else if ("nextCatalog".equals(name) && element.hasAttribute("catalog")) {
+			URI next = base.resolve(element.getAttribute("catalog"));
+			if ("file".equals(next.getScheme())) addCatalog(new File(next));
+		}
+		for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child instanceof Element) read((Element)child, base);
+		}
+	}
+
+	private static IRI getDocumentIRI(URI location) {
+		if ("file".equals(location.getScheme())) return IRI.create(SourceInput.find(new File(location)));
+		return IRI.create(location);
+	}
+
+	/**
+	 * Adds the mappings of the ontology files in the given folder and its subfolders, from the
+	 * ontology IRI and version IRI they declare to the file, and those of the catalogs found in
+	 * these folders. The folder is scanned right away, once.
+	 *
+	 * @param folder
+	 * @throws IOException if a catalog in the folder cannot be read
+	 */
+	public void addFolder(File folder) throws IOException {
+		addCatalogs(folder);
+		AutoIRIMapper mapper = new AutoIRIMapper(folder, true);
+		mapper.update();
+		folders.add(mapper);
+	}
+
+	private void addCatalogs(File folder) throws IOException {
+		File[] files = folder.listFiles();
+		if (files == null) return;
+		for (File file : files) {
+			if (file.isDirectory()) {
+				addCatalogs(file);
+			} else if (file.getName().equals(CATALOG_FILENAME)) {
+				addCatalog(file);
+			}
+		}
+	}
+
+	/**
+	 * Returns the local document of the given ontology, or null if it is not mapped.
+	 */
+	@Override
+	public IRI getDocumentIRI(IRI ontologyIRI) {
+		IRI documentIRI = entries.get(ontologyIRI);
+		if (documentIRI != null) return documentIRI;
+		for (AutoIRIMapper folder : folders) {
+			documentIRI = folder.getDocumentIRI(ontologyIRI);
+			if (documentIRI != null) return documentIRI;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the number of mapped ontology IRIs.
+	 */
+	public int size() {
+		Set<IRI> mapped = new HashSet<IRI>(entries.keySet());
+		for (AutoIRIMapper folder : folders) mapped.addAll(folder.getOntologyIRIs());
+		return mapped.size();
+	}
+}
@@ -0,0 +1,241 @@
+package com.github.enanomapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.io.IRIDocumentSource;
+import org.semanticweb.owlapi.io.OWLOntologyDocumentSource;
+import org.semanticweb.owlapi.io.StreamDocumentSource;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.MissingImportHandlingStrategy;
+import org.semanticweb.owlapi.model.OWLImportsDeclaration;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyIRIMapper;
+import org.semanticweb.owlapi.model.OWLOntologyLoaderConfiguration;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.parameters.OntologyCopy;
+
+/**
+ * Loads an ontology together with its import closure, parsing the imported ontologies in
+ * parallel on a bounded pool of threads. Every document is parsed in its own
+ * <code>OWLOntologyManager</code> without following its imports; the imports it declares are
+ * then queued, and each imported ontology is parsed only once, however many ontologies in the
+ * closure import it. When all are parsed, they are moved to the manager of the source, so that
+ * its import closure is complete, as if the OWLAPI had loaded the imports itself.
+ *
+ * <p>Imports mapped by the {@link ImportCatalog} are read from the local document it gives.
+ * Otherwise, with a mirror folder, imports are read from the file in that folder named after the
+ * last part of their IRI, and imports that are not mirrored are skipped, so that the network is
+ * never used. Without a mirror folder, the other imports are downloaded from their IRI. Local
+ * files may be compressed (see {@link SourceInput}).
+ */
+public class ImportLoader {
+
+	/** connection and read timeout for imports that are downloaded, in milliseconds */
+	static final int DOWNLOAD_TIMEOUT = 20000;
+
+	/** document IRI to which the imports are mapped while parsing, so that they are not loaded */
+	private static final IRI NOT_LOADED = IRI.create("file:/nonexistent/import-loaded-by-ImportLoader");
+
+	private final File mirror;
+	private final int threads;
+	private final ImportCatalog catalog;
+
+	/**
+	 * @param mirror folder with local copies of the imported ontologies, or null to download them
+	 * @param threads the maximum number of ontologies parsed at the same time
+	 */
+	public ImportLoader(File mirror, int threads) {
+		this(mirror, threads, new ImportCatalog());
+	}
+
+	/**
+	 * @param mirror folder with local copies of the imported ontologies, or null to download them
+	 * @param threads the maximum number of ontologies parsed at the same time
+	 * @param catalog the local documents of imported ontologies, which take precedence over the mirror
+	 */
+	public ImportLoader(File mirror, int threads, ImportCatalog catalog) {
+		this.mirror = mirror;
+		this.threads = Math.max(1, threads);
+		this.catalog = catalog;
+	}
+
+	public File getMirror() {
+		return mirror;
+	}
+
+	public ImportCatalog getCatalog() {
+		return catalog;
+	}
+
+	/**
+	 * Parses the source ontology into the given manager and loads its import closure. Imports
+	 * that the manager already holds, or that one of its IRI mappers adds to it when asked for
+	 * their document, are not loaded again, and imports that cannot be loaded are reported and
+	 * skipped.
+	 *
+	 * @param man the manager to which the source and its imports are added
+	 * @param concurrent true if the manager is a concurrent one, so that the ontologies are
+	 *     parsed into thread-safe ontologies too
+	 * @param source the content of the source ontology
+	 * @param listener listener to which progress is reported
+	 * @return the source ontology
+	 * @throws OWLOntologyCreationException if the source itself cannot be parsed
+	 */
+	public OWLOntology load(OWLOntologyManager man, boolean concurrent, InputStream source, SlimmerListener listener) throws OWLOntologyCreationException {
+		OWLOntology root = parse(new StreamDocumentSource(source), concurrent);
+		listener.phaseStarted("imports");
+		Set<IRI> queued = new HashSet<IRI>();
+		List<OWLOntology> loaded = new ArrayList<OWLOntology>();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			CompletionService<OWLOntology> completion = new ExecutorCompletionService<OWLOntology>(executor);
+			int pending = queue(root, man, concurrent, queued, completion, listener);
+			while (pending > 0) {
+				Future<OWLOntology> done = completion.take();
+				pending--;
+				OWLOntology imported = getLoaded(done);
+				if (imported == null) continue;
+				loaded.add(imported);
+				pending += queue(imported, man, concurrent, queued, completion, listener);
+			}
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+			throw new OWLOntologyCreationException("Interrupted while loading the imports", exception);
+		} finally {
+			executor.shutdownNow();
+		}
+		for (OWLOntology imported : loaded) {
+			if (!man.contains(imported.getOntologyID())) man.copyOntology(imported, OntologyCopy.MOVE);
+		}
+		listener.count("loaded imports", loaded.size());
+		listener.phaseFinished("imports");
+		return man.copyOntology(root, OntologyCopy.MOVE);
+	}
+
+	/**
+	 * Queues the imports of the given ontology that are neither loaded nor queued yet.
+	 *
+	 * @return the number of queued imports
+	 */
+	private int queue(OWLOntology ontology, OWLOntologyManager man, boolean concurrent, Set<IRI> queued,
+			CompletionService<OWLOntology> completion, SlimmerListener listener) {
+		if (ontology.getOntologyID().getOntologyIRI().isPresent()) queued.add(ontology.getOntologyID().getOntologyIRI().get());
+		int count = 0;
+		for (OWLImportsDeclaration declaration : ontology.getImportsDeclarations()) {
+			IRI iri = declaration.getIRI();
+			if (isLoaded(man, iri) || !queued.add(iri)) continue;
+			completion.submit(() -> loadImport(iri, concurrent, listener));
+			count++;
+		}
+		return count;
+	}
+
+	private static boolean isLoaded(OWLOntologyManager man, IRI iri) {
+		if (man.contains(iri)) return true;
+		// ask the mappers like the OWLAPI does, which lets them add the import (see OntologyCache)
+		IRI document = null;
+		for (OWLOntologyIRIMapper mapper : man.getIRIMappers()) {
+			document = mapper.getDocumentIRI(iri);
+			if (document != null) break;
+		}
+		if (man.contains(iri)) return true;
+		for (OWLOntology ontology : man.getOntologies()) {
+			IRI loaded = man.getOntologyDocumentIRI(ontology);
+			if (iri.equals(loaded) || (document != null && document.equals(loaded))) return true;
+		}
+		return false;
+	}
+
+	private static OWLOntology getLoaded(Future<OWLOntology> done) throws InterruptedException {
+		try {
+			return done.get();
+		} catch (ExecutionException exception) {
+			return null; // already reported by loadImport()
+		}
+	}
+
+	private OWLOntology loadImport(IRI iri, boolean concurrent, SlimmerListener listener) throws OWLOntologyCreationException, IOException {
+		long start = System.nanoTime();
+		try {
+			IRI document = getDocumentIRI(iri);
+			if (document == null) {
+				listener.warning("Imported ontology is not in the mirror folder, skipping it: " + iri);
+				return null;
+			}
+			OWLOntology imported = parse(document, concurrent);
+			listener.info("Loaded imported ontology: " + iri + " (" + imported.getAxiomCount() + " axioms, "
+				+ (System.nanoTime() - start) / 1000000 + " ms)");
+			return imported;
+		} catch (OWLOntologyCreationException | IOException | RuntimeException exception) {
+			listener.warning("Failed to load imported ontology: " + iri + " (" + exception.getMessage() + ")");
+			throw exception;
+		}
+	}
+
+	/**
+	 * Returns the document from which the given import is read: the local document given by
+	 * the catalog, the file in the mirror folder, or else the IRI itself.
+	 *
+	 * @param iri
+	 * @return the document, or null if the import is skipped because it is not in the mirror folder
+	 */
+	IRI getDocumentIRI(IRI iri) {
+		IRI document = catalog.getDocumentIRI(iri);
+		if (document != null) return document;
+		if (mirror == null) return iri;
+		File file = getMirrorFile(iri);
+		return file.exists() ? IRI.create(file) : null;
+	}
+
+	/**
+	 * Returns the file in the mirror folder for the given import.
+	 *
+	 * @param iri
+	 * @return
+	 */
+	File getMirrorFile(IRI iri) {
+		String name = iri.toString();
+		if (name.endsWith("/")) name = name.substring(0, name.length() - 1);
+		name = name.substring(name.lastIndexOf('/') + 1);
+		int hash = name.indexOf('#');
+		if (hash >= 0) name = name.substring(0, hash);
+		return SourceInput.find(new File(mirror, name));
+	}
+
+	/**
+	 * Parses the document of an import: a local file, which may be compressed, or else a download.
+	 */
+	private static OWLOntology parse(IRI document, boolean concurrent) throws OWLOntologyCreationException, IOException {
+		if (!"file".equals(document.getScheme())) return parse(new IRIDocumentSource(document), concurrent);
+		try (InputStream stream = SourceInput.open(new File(document.toURI()))) {
+			// the file is the document, like with an IRI mapper, so that snapshots notice changes
+			return parse(new StreamDocumentSource(stream, document), concurrent);
+		}
+	}
+
+	/**
+	 * Parses one document in a manager of its own, without loading the ontologies it imports.
+	 */
+	private static OWLOntology parse(OWLOntologyDocumentSource source, boolean concurrent) throws OWLOntologyCreationException {
+		OWLOntologyManager man = concurrent ? OWLManager.createConcurrentOWLOntologyManager() : OWLManager.createOWLOntologyManager();
+		man.getIRIMappers().set(iri -> NOT_LOADED);
+		OWLOntologyLoaderConfiguration configuration = man.getOntologyLoaderConfiguration()
+			.setMissingImportHandlingStrategy(MissingImportHandlingStrategy.SILENT)
+			.setConnectionTimeout(DOWNLOAD_TIMEOUT);
+		return man.loadOntologyFromOntologyDocument(source, configuration);
+	}
+}
@@ -0,0 +1,70 @@
+package com.github.enanomapper;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+
+/**
+ * Slims one loaded source ontology again and again, for changing configurations. The source
+ * ontology and its {@link ClassHierarchy} are kept, and so are the classes and properties that
+ * each instruction to keep expands to. When the configuration changes, only the instructions
+ * that were added or changed are expanded again, and the slim is made from a copy of the
+ * source instead of parsing and merging it again.
+ *
+ * <p>Not thread-safe.
+ */
+public class IncrementalSlimmer {
+
+	private final Slimmer source;
+	private final Map<Instruction,BitSet> exploded = new HashMap<Instruction,BitSet>();
+
+	/**
+	 * @param source slimmer for the merged source ontology, which is not changed
+	 */
+	public IncrementalSlimmer(Slimmer source) {
+		this.source = source;
+	}
+
+	public Slimmer getSource() {
+		return source;
+	}
+
+	/**
+	 * Slims a copy of the source ontology as described by the given configuration.
+	 *
+	 * @param config
+	 * @param listener listener to which progress is reported
+	 * @return a slimmer for the slimmed copy
+	 * @throws OWLOntologyCreationException
+	 */
+	public Slimmer slim(Configuration config, SlimmerListener listener) throws OWLOntologyCreationException {
+		listener.phaseStarted("diff");
+		Set<Instruction> irisToSave = config.getTreePartsToSave();
+		int before = exploded.size();
+		exploded.keySet().retainAll(irisToSave);
+		int dropped = before - exploded.size();
+		int added = 0;
+		ClassHierarchy hierarchy = source.getHierarchy();
+		BitSet singleIRIs = new BitSet(hierarchy.size());
+		for (Instruction instruction : irisToSave) {
+			BitSet ids = exploded.get(instruction);
+			if (ids == null) {
+				ids = hierarchy.explode(Collections.singleton(instruction), listener);
+				exploded.put(instruction, ids);
+				added++;
+			}
+			singleIRIs.or(ids);
+		}
+		listener.count("added instructions", added);
+		listener.count("dropped instructions", dropped);
+		listener.phaseFinished("diff");
+
+		Slimmer slimmer = source.copy(listener);
+		slimmer.apply(slimmer.plan(singleIRIs, Slimmer.getNewSuperClasses(irisToSave), config.getTreePartsToRemove()));
+		return slimmer;
+	}
+}
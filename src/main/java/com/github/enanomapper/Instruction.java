@@ -1,6 +1,21 @@
 package com.github.enanomapper;
 
-public class Instruction {
+import java.util.Objects;
+
+/**
+ * One line of a configuration file: the IRI of a class or property, the part of the hierarchy
+ * around it that the line applies to, an optional new super class, and a comment. Instructions
+ * are immutable, and equal when all their fields are equal. Their hash code is computed once,
+ * so that they are cheap to use as keys of hash sets and maps.
+ *
+ * <p>An IRI that ends with {@link #WILDCARD} makes the instruction apply to all IRIs that start
+ * with the part before it, such as <code>http://purl.obolibrary.org/obo/CHEBI_*</code>.
+ *
+ * <p>An <code>UP</code> or <code>DOWN</code> instruction may have a depth, which limits it to the
+ * super or sub classes at most that many <code>SubClassOf</code> steps away, such as
+ * <code>D2:</code> for the children and grandchildren of a class.
+ */
+public final class Instruction {
 
 	public enum Scope {
 		UP,
@@ -8,15 +23,47 @@ public class Instruction {
 		DOWN
 	}
 
-	private String uriString;
-	private Scope scope;
-	private String comment;
-	private String newSuperClass;
-	
+	/** the character at the end of the IRI of an instruction that applies to all IRIs with a prefix */
+	public static final String WILDCARD = "*";
+
+	/** the depth of instructions that apply to all super or sub classes */
+	public static final int UNBOUNDED = 0;
+
+	private final String uriString;
+	private final Scope scope;
+	private final String comment;
+	private final String newSuperClass;
+	private final int depth;
+	private final int hash;
+
 	public Instruction(String uriString, Scope scope, String comment) {
+		this(uriString, scope, null, comment);
+	}
+
+	/**
+	 * @param uriString the IRI the instruction applies to
+	 * @param scope
+	 * @param newSuperClass the IRI of the new super class of the class, or null
+	 * @param comment
+	 */
+	public Instruction(String uriString, Scope scope, String newSuperClass, String comment) {
+		this(uriString, scope, UNBOUNDED, newSuperClass, comment);
+	}
+
+	/**
+	 * @param uriString the IRI the instruction applies to
+	 * @param scope
+	 * @param depth the maximum number of steps up or down the hierarchy, or {@link #UNBOUNDED}
+	 * @param newSuperClass the IRI of the new super class of the class, or null
+	 * @param comment
+	 */
+	public Instruction(String uriString, Scope scope, int depth, String newSuperClass, String comment) {
 		this.uriString = uriString;
 		this.scope = scope;
+		this.depth = scope == Scope.SINGLE ? UNBOUNDED : Math.max(UNBOUNDED, depth);
+		this.newSuperClass = newSuperClass;
 		this.comment = comment;
+		this.hash = Objects.hash(uriString, scope, this.depth, newSuperClass, comment);
 	}
 
 	public String getUriString() {
@@ -35,15 +82,38 @@ public class Instruction {
 		return newSuperClass;
 	}
 
-	public void setNewSuperClass(String newSuperClass) {
-		this.newSuperClass = newSuperClass;
+	/**
+	 * Returns the maximum number of steps up or down the hierarchy this instruction applies to.
+	 *
+	 * @return the depth, or {@link #UNBOUNDED}
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Returns true if the instruction applies to all IRIs that start with its {@link #getPrefix() prefix}.
+	 *
+	 * @return
+	 */
+	public boolean isWildcard() {
+		return uriString.endsWith(WILDCARD);
+	}
+
+	/**
+	 * Returns the prefix of the IRIs a wildcard instruction applies to.
+	 *
+	 * @return the IRI without the wildcard, or the IRI itself if it is not a wildcard
+	 */
+	public String getPrefix() {
+		return isWildcard() ? uriString.substring(0, uriString.length() - WILDCARD.length()) : uriString;
 	}
 
 	public String toString() {
-		StringBuffer buffer = new StringBuffer();
-		if (scope == Scope.SINGLE) {}
-		else if (scope == Scope.UP) { buffer.append("U"); }
+		StringBuilder buffer = new StringBuilder();
+		if (scope == Scope.UP) { buffer.append("U"); }
 		else if (scope == Scope.DOWN) { buffer.append("D"); }
+		if (depth != UNBOUNDED) { buffer.append(depth); }
 		if (newSuperClass != null) {
 			buffer.append('(').append(newSuperClass).append(')');
 		}
@@ -56,12 +126,19 @@ public class Instruction {
 
 	@Override
 	public int hashCode() {
-		return toString().hashCode();
+		return hash;
 	}
 
 	@Override
 	public boolean equals(Object obj) {
+		if (this == obj) return true;
 		if (!(obj instanceof Instruction)) return false;
-		return this.hashCode() == obj.hashCode();
+		Instruction other = (Instruction)obj;
+		return hash == other.hash
+			&& scope == other.scope
+			&& depth == other.depth
+			&& Objects.equals(uriString, other.uriString)
+			&& Objects.equals(newSuperClass, other.newSuperClass)
+			&& Objects.equals(comment, other.comment);
 	}
 }
@@ -0,0 +1,94 @@
+package com.github.enanomapper;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link SlimmerListener} that writes the events to a stream, filtered by a {@link Level}.
+ * The default {@link Level#INFO} level gives a short summary per step, with its duration
+ * and counts; {@link Level#DEBUG} adds every kept and removed entity.
+ */
+public class LogListener implements SlimmerListener {
+
+	public enum Level {
+		/** only warnings and errors */
+		QUIET,
+		/** phases, counts, and messages */
+		INFO,
+		/** everything, including per-entity events */
+		DEBUG
+	}
+
+	private final PrintStream out;
+	private final Level level;
+	private final Map<String,Long> started = new ConcurrentHashMap<String,Long>();
+
+	public LogListener(PrintStream out) {
+		this(out, Level.INFO);
+	}
+
+	public LogListener(PrintStream out, Level level) {
+		this.out = out;
+		this.level = level;
+	}
+
+	public Level getLevel() {
+		return level;
+	}
+
+	@Override
+	public void phaseStarted(String phase) {
+		started.put(phase, System.nanoTime());
+		if (level == Level.DEBUG) out.println("Started: " + phase);
+	}
+
+	@Override
+	public void phaseFinished(String phase) {
+		Long start = started.remove(phase);
+		if (level == Level.QUIET) return;
+		if (start == null) out.println("Finished: " + phase);
+		else out.println("Finished: " + phase + " (" + (System.nanoTime() - start) / 1000000 + " ms)");
+	}
+
+	@Override
+	public void count(String name, long value) {
+		if (level != Level.QUIET) out.println("  " + name + ": " + value);
+	}
+
+	@Override
+	public void info(String message) {
+		if (level != Level.QUIET) out.println(message);
+	}
+
+	@Override
+	public void warning(String message) {
+		out.println("Warning: " + message);
+	}
+
+	@Override
+	public void error(String message, Throwable exception) {
+		out.println("Error: " + message);
+		if (exception != null) exception.printStackTrace(out);
+	}
+
+	@Override
+	public boolean isDebugEnabled() {
+		return level == Level.DEBUG;
+	}
+
+	@Override
+	public void debug(String message) {
+		if (level == Level.DEBUG) out.println(message);
+	}
+
+	@Override
+	public void entityRemoved(String iri) {
+		if (level == Level.DEBUG) out.println("Remove: " + iri);
+	}
+
+	@Override
+	public void entityKept(String iri) {
+		if (level == Level.DEBUG) out.println("Keep: " + iri);
+	}
+}
@@ -0,0 +1,196 @@
+package com.github.enanomapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyIRIMapper;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.parameters.OntologyCopy;
+
+/**
+ * Cache of parsed source ontologies and of the ontologies in their import closures, shared
+ * between the {@link SlimmingJob}s of one batch. A source is parsed only once, even when
+ * several jobs slim it, and ontologies imported by more than one source, like BFO or IAO,
+ * are parsed only once for the whole batch. Every job gets its own deep copy, in its own
+ * <code>OWLOntologyManager</code>, which it can change freely.
+ *
+ * <p>Sources are keyed by their canonical file name and the SHA-256 hash of their content,
+ * imported ontologies by their document IRI and the hash of that document (see
+ * {@link SourceFingerprint}), so that an import read from another document, or from a changed
+ * file, is parsed again. While a source is parsed, only the cached imports it actually resolves
+ * are copied to its manager, through an IRI mapper. A source is dropped from the
+ * cache when the last job announced with {@link #expect(File)} has called
+ * {@link #release(File)}, whether or not it took a copy, while the imported ontologies are
+ * kept for the whole batch. A source that no job was announced for is not kept at all.
+ */
+public class OntologyCache {
+
+	private final Map<String,CachedSource> sources = new ConcurrentHashMap<String,CachedSource>();
+	private final Map<String,Integer> expectedUses = new ConcurrentHashMap<String,Integer>();
+	private final Map<String,OWLOntology> imports = new ConcurrentHashMap<String,OWLOntology>();
+	private ImportLoader importLoader;
+
+	private static class CachedSource {
+		String hash;
+		FutureTask<OWLOntology> ontology;
+	}
+
+	/**
+	 * Sets the loader of the imports of the sources. Imports that are cached already are not
+	 * loaded again.
+	 *
+	 * @param importLoader
+	 */
+	public void setImportLoader(ImportLoader importLoader) {
+		this.importLoader = importLoader;
+	}
+
+	/**
+	 * Announces that one more job will ask for the given source, so that it is kept in the
+	 * cache until that job has released it with {@link #release(File)}.
+	 *
+	 * @param owlFile
+	 */
+	public void expect(File owlFile) {
+		expectedUses.merge(key(owlFile), 1, Integer::sum);
+	}
+
+	/**
+	 * Creates a {@link Slimmer} for a private copy of the given source ontology, parsing the
+	 * source only if it is not cached yet. A job that was announced with {@link #expect(File)}
+	 * must still {@link #release(File)} the source afterwards.
+	 *
+	 * @param owlFile
+	 * @param mergedOntologyIRI
+	 * @param listener listener to which progress is reported
+	 * @return
+	 * @throws OWLOntologyCreationException
+	 * @throws IOException
+	 */
+	public Slimmer createSlimmer(File owlFile, String mergedOntologyIRI, SlimmerListener listener) throws OWLOntologyCreationException, IOException {
+		OWLOntology source = getSource(owlFile, listener);
+		OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+		OWLOntology copy = man.copyOntology(source, OntologyCopy.DEEP);
+		for (OWLOntology imported : source.getImportsClosure()) {
+			if (imported != source && !man.contains(imported.getOntologyID())) {
+				man.copyOntology(imported, OntologyCopy.DEEP);
+			}
+		}
+		listener.info("Copied cached ontology " + owlFile.getName() + " with "
+			+ (man.getOntologies().size() - 1) + " imported ontologies");
+		String key = key(owlFile);
+		if (!expectedUses.containsKey(key)) sources.remove(key);
+		return new Slimmer(man, copy, mergedOntologyIRI, listener);
+	}
+
+	private OWLOntology getSource(File owlFile, SlimmerListener listener) throws OWLOntologyCreationException, IOException {
+		String key = key(owlFile);
+		String hash = SourceFingerprint.sha256(owlFile);
+		CachedSource cached = sources.compute(key, (k, existing) -> {
+			if (existing != null && existing.hash.equals(hash)) return existing;
+			CachedSource entry = new CachedSource();
+			entry.hash = hash;
+			entry.ontology = new FutureTask<OWLOntology>(() -> parse(owlFile, listener));
+			return entry;
+		});
+		cached.ontology.run(); // only the first caller actually parses
+		try {
+			return cached.ontology.get();
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+			throw new OWLOntologyCreationException("Interrupted while loading " + owlFile, exception);
+		} catch (ExecutionException exception) {
+			sources.remove(key, cached);
+			Throwable cause = exception.getCause();
+			if (cause instanceof OWLOntologyCreationException) throw (OWLOntologyCreationException)cause;
+			if (cause instanceof IOException) throw (IOException)cause;
+			throw new OWLOntologyCreationException("Could not load " + owlFile, cause);
+		}
+	}
+
+	private OWLOntology parse(File owlFile, SlimmerListener listener) throws OWLOntologyCreationException, IOException {
+		listener.phaseStarted("load");
+		listener.info("Loading OWL file: " + owlFile.getName());
+		OWLOntologyManager man = OWLManager.createConcurrentOWLOntologyManager();
+		OWLOntologyIRIMapper cachedImports = iri -> copyImport(man, iri);
+		man.getIRIMappers().add(cachedImports);
+		OWLOntology source;
+		try (InputStream stream = SourceInput.open(owlFile)) {
+			source = importLoader != null
+				? importLoader.load(man, true, stream, listener)
+				: man.loadOntologyFromOntologyDocument(stream);
+		} finally {
+			man.getIRIMappers().remove(cachedImports);
+		}
+		Set<OWLOntology> closure = source.getImportsClosure();
+		for (OWLOntology unused : new ArrayList<OWLOntology>(man.getOntologies())) {
+			if (!closure.contains(unused)) man.removeOntology(unused);
+		}
+		for (OWLOntology imported : closure) {
+			if (imported == source) continue;
+			IRI documentIRI = man.getOntologyDocumentIRI(imported);
+			if (documentIRI != null) imports.putIfAbsent(importKey(documentIRI), imported);
+		}
+		listener.count("parsed axioms", source.getAxiomCount());
+		listener.phaseFinished("load");
+		return source;
+	}
+
+	/**
+	 * Copies the cached import with the given IRI, and the cached ontologies it imports in
+	 * turn, to the given manager, when the manager asks for the document of the import.
+	 *
+	 * @return the document of the copied import, or null if it is not cached, so that the
+	 *     import is loaded as usual
+	 */
+	private IRI copyImport(OWLOntologyManager man, IRI iri) {
+		IRI document = importLoader != null ? importLoader.getDocumentIRI(iri) : iri;
+		if (document == null) return null;
+		try {
+			OWLOntology cached = imports.get(importKey(document));
+			if (cached == null) return null;
+			for (OWLOntology imported : cached.getImportsClosure()) {
+				if (!man.contains(imported.getOntologyID())) man.copyOntology(imported, OntologyCopy.DEEP);
+			}
+			return document;
+		} catch (IOException | OWLOntologyCreationException exception) {
+			return null;
+		}
+	}
+
+	private static String importKey(IRI document) throws IOException {
+		return document + " " + SourceFingerprint.hashDocument(document.toString());
+	}
+
+	/**
+	 * Tells that one of the jobs announced with {@link #expect(File)} does not need the given
+	 * source anymore, whether it took a copy, loaded the source from elsewhere, or failed.
+	 * After the last of these jobs, the source is dropped from the cache.
+	 *
+	 * @param owlFile
+	 */
+	public void release(File owlFile) {
+		String key = key(owlFile);
+		Integer remaining = expectedUses.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+		if (remaining == null) sources.remove(key);
+	}
+
+	private static String key(File file) {
+		try {
+			return file.getCanonicalPath();
+		} catch (IOException exception) {
+			return file.getAbsolutePath();
+		}
+	}
+}
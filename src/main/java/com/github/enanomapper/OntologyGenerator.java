@@ -0,0 +1,328 @@
+package com.github.enanomapper;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.OWL;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFWriter;
+import org.eclipse.rdf4j.rio.Rio;
+
+/**
+ * Generates synthetic ontologies, and matching <code>.iris</code> configurations, of a
+ * configurable size and shape, for scaling tests and benchmarks. The ontology is written
+ * as RDF/XML while it is generated, so that ontologies with millions of classes do not
+ * have to fit in memory.
+ *
+ * <p>The classes form a tree of about the given depth, in which every class has one
+ * parent; a part of the classes gets extra parents, which are always classes created
+ * before it, so that the hierarchy is a DAG without cycles. Object properties get a
+ * domain and range, and some classes get an <code>owl:someValuesFrom</code> restriction.
+ * The same seed always gives the same ontology and configuration.
+ */
+public class OntologyGenerator {
+
+	private static final String IAO_DEFINITION = "http://purl.obolibrary.org/obo/IAO_0000115";
+	private static final String DESCRIPTION = "http://purl.org/dc/elements/1.1/description";
+
+	private String baseIRI = "http://example.org/synthetic/";
+	private int classCount = 1000;
+	private int depth = 6;
+	private int fanIn = 1;
+	private double multipleParentRatio = 0.1;
+	private int objectPropertyCount = 10;
+	private int dataPropertyCount = 5;
+	private int annotationsPerClass = 2;
+	private double restrictionRatio = 0.1;
+	private long seed = 42;
+
+	public void setBaseIRI(String baseIRI) {
+		this.baseIRI = baseIRI;
+	}
+
+	public void setClassCount(int classCount) {
+		this.classCount = Math.max(1, classCount);
+	}
+
+	/**
+	 * Sets the depth of the class tree, not counting the extra parents.
+	 *
+	 * @param depth
+	 */
+	public void setDepth(int depth) {
+		this.depth = Math.max(1, depth);
+	}
+
+	/**
+	 * Sets the maximum number of parents of a class. With 1 the hierarchy is a tree.
+	 *
+	 * @param fanIn
+	 */
+	public void setFanIn(int fanIn) {
+		this.fanIn = Math.max(1, fanIn);
+	}
+
+	/**
+	 * Sets the part of the classes that get more than one parent, if the fan-in allows it.
+	 *
+	 * @param multipleParentRatio a number between 0 and 1
+	 */
+	public void setMultipleParentRatio(double multipleParentRatio) {
+		this.multipleParentRatio = multipleParentRatio;
+	}
+
+	public void setObjectPropertyCount(int objectPropertyCount) {
+		this.objectPropertyCount = objectPropertyCount;
+	}
+
+	public void setDataPropertyCount(int dataPropertyCount) {
+		this.dataPropertyCount = dataPropertyCount;
+	}
+
+	/**
+	 * Sets the number of annotations of each class, besides its label: a definition, a
+	 * description, and comments.
+	 *
+	 * @param annotationsPerClass
+	 */
+	public void setAnnotationsPerClass(int annotationsPerClass) {
+		this.annotationsPerClass = annotationsPerClass;
+	}
+
+	/**
+	 * Sets the part of the classes that get a restriction on an object property as super
+	 * class.
+	 *
+	 * @param restrictionRatio a number between 0 and 1
+	 */
+	public void setRestrictionRatio(double restrictionRatio) {
+		this.restrictionRatio = restrictionRatio;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public String getClassIRI(int index) {
+		return baseIRI + "C_" + index;
+	}
+
+	public String getObjectPropertyIRI(int index) {
+		return baseIRI + "P_" + index;
+	}
+
+	public String getDataPropertyIRI(int index) {
+		return baseIRI + "D_" + index;
+	}
+
+	/**
+	 * Returns the number of children of every class in the tree, chosen such that the tree
+	 * has about the configured depth.
+	 */
+	int getBranching() {
+		return Math.max(2, (int)Math.ceil(Math.pow(classCount, 1.0 / depth)));
+	}
+
+	/**
+	 * Returns the tree parent of a class, or -1 for the root.
+	 */
+	int getParent(int index) {
+		return index == 0 ? -1 : (index - 1) / getBranching();
+	}
+
+	/**
+	 * Writes the ontology as RDF/XML.
+	 *
+	 * @param output
+	 * @param ontologyIRI
+	 */
+	public void writeOntology(OutputStream output, String ontologyIRI) {
+		SimpleValueFactory factory = SimpleValueFactory.getInstance();
+		Random random = new Random(seed);
+		RDFWriter writer = Rio.createWriter(RDFFormat.RDFXML, output);
+		writer.startRDF();
+		writer.handleNamespace("owl", OWL.NAMESPACE);
+		writer.handleNamespace("rdfs", RDFS.NAMESPACE);
+		writer.handleNamespace("syn", baseIRI);
+
+		IRI ontology = factory.createIRI(ontologyIRI);
+		write(writer, ontology, RDF.TYPE, OWL.ONTOLOGY);
+		write(writer, factory.createIRI(IAO_DEFINITION), RDF.TYPE, OWL.ANNOTATIONPROPERTY);
+		write(writer, factory.createIRI(DESCRIPTION), RDF.TYPE, OWL.ANNOTATIONPROPERTY);
+
+		for (int i=0; i<objectPropertyCount; i++) {
+			IRI property = factory.createIRI(getObjectPropertyIRI(i));
+			write(writer, property, RDF.TYPE, OWL.OBJECTPROPERTY);
+			write(writer, property, RDFS.LABEL, factory.createLiteral("object property " + i));
+			write(writer, property, RDFS.DOMAIN, factory.createIRI(getClassIRI(random.nextInt(classCount))));
+			write(writer, property, RDFS.RANGE, factory.createIRI(getClassIRI(random.nextInt(classCount))));
+		}
+		for (int i=0; i<dataPropertyCount; i++) {
+			IRI property = factory.createIRI(getDataPropertyIRI(i));
+			write(writer, property, RDF.TYPE, OWL.DATATYPEPROPERTY);
+			write(writer, property, RDFS.LABEL, factory.createLiteral("data property " + i));
+			write(writer, property, RDFS.DOMAIN, factory.createIRI(getClassIRI(random.nextInt(classCount))));
+		}
+
+		for (int i=0; i<classCount; i++) {
+			IRI clazz = factory.createIRI(getClassIRI(i));
+			write(writer, clazz, RDF.TYPE, OWL.CLASS);
+			write(writer, clazz, RDFS.LABEL, factory.createLiteral("class " + i));
+			for (int j=0; j<annotationsPerClass; j++) {
+				IRI property = j == 0 ? factory.createIRI(IAO_DEFINITION)
+					: j == 1 ? factory.createIRI(DESCRIPTION) : RDFS.COMMENT;
+				write(writer, clazz, property, factory.createLiteral("annotation " + j + " of class " + i));
+			}
+			int parent = getParent(i);
+			if (parent >= 0) {
+				write(writer, clazz, RDFS.SUBCLASSOF, factory.createIRI(getClassIRI(parent)));
+				if (fanIn > 1 && random.nextDouble() < multipleParentRatio) {
+					int extraParents = 1 + random.nextInt(fanIn - 1);
+					for (int j=0; j<extraParents; j++) {
+						int extraParent = random.nextInt(i); // created earlier, so no cycles
+						if (extraParent != parent) {
+							write(writer, clazz, RDFS.SUBCLASSOF, factory.createIRI(getClassIRI(extraParent)));
+						}
+					}
+				}
+			}
+			if (objectPropertyCount > 0 && random.nextDouble() < restrictionRatio) {
+				BNode restriction = factory.createBNode("restriction" + i);
+				write(writer, clazz, RDFS.SUBCLASSOF, restriction);
+				write(writer, restriction, RDF.TYPE, OWL.RESTRICTION);
+				write(writer, restriction, OWL.ONPROPERTY, factory.createIRI(getObjectPropertyIRI(random.nextInt(objectPropertyCount))));
+				write(writer, restriction, OWL.SOMEVALUESFROM, factory.createIRI(getClassIRI(random.nextInt(classCount))));
+			}
+		}
+		writer.endRDF();
+	}
+
+	private void write(RDFWriter writer, Resource subject, IRI predicate, Value object) {
+		writer.handleStatement(SimpleValueFactory.getInstance().createStatement(subject, predicate, object));
+	}
+
+	/**
+	 * Writes a configuration with the given number of instructions for the generated
+	 * ontology. It keeps subtrees, some of them under a new super class, and the super
+	 * classes of single classes, keeps some properties, and removes subtrees and single
+	 * classes again.
+	 *
+	 * @param output
+	 * @param instructionCount
+	 */
+	public void writeConfiguration(Writer output, int instructionCount) {
+		PrintWriter writer = new PrintWriter(output);
+		Random random = new Random(seed + 1);
+		int branching = getBranching();
+		// classes with children in the tree
+		int innerCount = Math.max(1, (classCount - 2) / branching + 1);
+		for (int i=0; i<instructionCount; i++) {
+			int inner = random.nextInt(innerCount);
+			int any = random.nextInt(classCount);
+			switch (i % 6) {
+				case 0:
+					writer.println("+D:" + getClassIRI(inner) + " subtree " + inner);
+					break;
+				case 1:
+					writer.println("+D(" + baseIRI + "Root):" + getClassIRI(inner) + " rewired subtree " + inner);
+					break;
+				case 2:
+					writer.println("+U:" + getClassIRI(any) + " super classes of " + any);
+					break;
+				case 3:
+					if (objectPropertyCount > 0) {
+						writer.println("+:" + getObjectPropertyIRI(random.nextInt(objectPropertyCount)));
+						break;
+					}
+					writer.println("+:" + getClassIRI(any));
+					break;
+				case 4:
+					// a subtree below one of the kept subtrees
+					int child = Math.min(classCount - 1, inner * branching + 1 + random.nextInt(branching));
+					writer.println("-D:" + getClassIRI(child) + " not subtree " + child);
+					break;
+				default:
+					writer.println("-:" + getClassIRI(any) + " not " + any);
+			}
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Writes <code>name.owl</code>, <code>name.iris</code>, and <code>name.props</code> to
+	 * the given folder, so that it can be slimmed with {@link Slimmer#main(String[])}.
+	 *
+	 * @param folder
+	 * @param name
+	 * @param instructionCount
+	 * @throws IOException
+	 */
+	public void write(File folder, String name, int instructionCount) throws IOException {
+		folder.mkdirs();
+		try (OutputStream output = new BufferedOutputStream(new FileOutputStream(new File(folder, name + ".owl")), 1 << 16)) {
+			writeOntology(output, baseIRI + name + ".owl");
+		}
+		try (Writer output = new OutputStreamWriter(new FileOutputStream(new File(folder, name + ".iris")), StandardCharsets.UTF_8)) {
+			writeConfiguration(output, instructionCount);
+		}
+		try (PrintWriter output = new PrintWriter(new OutputStreamWriter(new FileOutputStream(new File(folder, name + ".props")), StandardCharsets.UTF_8))) {
+			output.println("owl=" + baseIRI + name + ".owl");
+			output.println("iris=" + name + ".iris");
+			output.println("slimmed=" + baseIRI + name + "-slim.owl");
+		}
+	}
+
+	/**
+	 * Generates an ontology with its configuration from the command line:
+	 * <pre>
+	 * OntologyGenerator folder name [--classes=N] [--depth=N] [--fan-in=N] [--multiple-parents=R]
+	 *   [--object-properties=N] [--data-properties=N] [--annotations=N] [--restrictions=R]
+	 *   [--instructions=N] [--seed=N]
+	 * </pre>
+	 *
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: OntologyGenerator folder name [--classes=N] [--depth=N] [--fan-in=N] ...");
+			System.exit(-1);
+		}
+		OntologyGenerator generator = new OntologyGenerator();
+		int instructionCount = 12;
+		for (int i=2; i<args.length; i++) {
+			String arg = args[i];
+			String value = arg.substring(arg.indexOf('=') + 1);
+			if (arg.startsWith("--classes=")) generator.setClassCount(Integer.parseInt(value));
+			else if (arg.startsWith("--depth=")) generator.setDepth(Integer.parseInt(value));
+			else if (arg.startsWith("--fan-in=")) generator.setFanIn(Integer.parseInt(value));
+			else if (arg.startsWith("--multiple-parents=")) generator.setMultipleParentRatio(Double.parseDouble(value));
+			else if (arg.startsWith("--object-properties=")) generator.setObjectPropertyCount(Integer.parseInt(value));
+			else if (arg.startsWith("--data-properties=")) generator.setDataPropertyCount(Integer.parseInt(value));
+			else if (arg.startsWith("--annotations=")) generator.setAnnotationsPerClass(Integer.parseInt(value));
+			else if (arg.startsWith("--restrictions=")) generator.setRestrictionRatio(Double.parseDouble(value));
+			else if (arg.startsWith("--instructions=")) instructionCount = Integer.parseInt(value);
+			else if (arg.startsWith("--seed=")) generator.setSeed(Long.parseLong(value));
+			else {
+				System.out.println("Unknown argument: " + arg);
+				System.exit(-1);
+			}
+		}
+		generator.write(new File(args[0]), args[1], instructionCount);
+	}
+}
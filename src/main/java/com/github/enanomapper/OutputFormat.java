@@ -0,0 +1,170 @@
+package com.github.enanomapper;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.semanticweb.owlapi.formats.FunctionalSyntaxDocumentFormat;
+import org.semanticweb.owlapi.formats.NTriplesDocumentFormat;
+import org.semanticweb.owlapi.formats.OBODocumentFormat;
+import org.semanticweb.owlapi.formats.RDFXMLDocumentFormat;
+import org.semanticweb.owlapi.formats.TurtleDocumentFormat;
+import org.semanticweb.owlapi.model.OWLDocumentFormat;
+import org.semanticweb.owlapi.model.PrefixManager;
+
+/**
+ * The formats in which a slim can be saved. They are selected with the <code>formats</code> key
+ * of the <code>.props</code> file, a list separated by spaces or commas, for example:
+ * <pre>
+ * formats=rdfxml,turtle
+ * gzip=true
+ * </pre>
+ *
+ * <p>RDF/XML, the default, is saved under the file name of the slimmed ontology; the other
+ * formats replace its extension with their own. With <code>gzip=true</code> all files are
+ * compressed and get a <code>.gz</code> extension.
+ */
+public enum OutputFormat {
+
+	RDFXML("rdfxml", ".owl", "application/rdf+xml", RDFFormat.RDFXML),
+	NTRIPLES("ntriples", ".nt", "application/n-triples", RDFFormat.NTRIPLES),
+	TURTLE("turtle", ".ttl", "text/turtle", RDFFormat.TURTLE),
+	FUNCTIONAL("functional", ".ofn", "text/owl-functional", null),
+	OBO("obo", ".obo", "text/obo", null);
+
+	static final int BUFFER_SIZE = 1 << 16;
+
+	private final String name;
+	private final String extension;
+	private final String mediaType;
+	private final RDFFormat rioFormat;
+
+	private OutputFormat(String name, String extension, String mediaType, RDFFormat rioFormat) {
+		this.name = name;
+		this.extension = extension;
+		this.mediaType = mediaType;
+		this.rioFormat = rioFormat;
+	}
+
+	/**
+	 * Returns the name of the format as used in the <code>.props</code> file.
+	 *
+	 * @return
+	 */
+	public String getName() {
+		return name;
+	}
+
+	public String getExtension() {
+		return extension;
+	}
+
+	public String getMediaType() {
+		return mediaType;
+	}
+
+	/**
+	 * Returns the format in which the {@link StreamingSlimmer} writes triples, or null if it cannot
+	 * write this format.
+	 *
+	 * @return
+	 */
+	public RDFFormat getRioFormat() {
+		return rioFormat;
+	}
+
+	/**
+	 * Returns a new OWLAPI document format, with the prefixes of the slims.
+	 *
+	 * @return
+	 */
+	public OWLDocumentFormat createDocumentFormat() {
+		OWLDocumentFormat format;
+		switch (this) {
+			case NTRIPLES: format = new NTriplesDocumentFormat(); break;
+			case TURTLE: format = new TurtleDocumentFormat(); break;
+			case FUNCTIONAL: format = new FunctionalSyntaxDocumentFormat(); break;
+			case OBO:
+				format = new OBODocumentFormat();
+				// most slims are not valid OBO, for example with several comments per class
+				format.setParameter(OBODocumentFormat.VALIDATION, Boolean.FALSE);
+				break;
+			default: format = new RDFXMLDocumentFormat();
+		}
+		if (format.isPrefixOWLDocumentFormat()) {
+			PrefixManager prefixes = format.asPrefixOWLDocumentFormat();
+			prefixes.setPrefix("ncicp", Slimmer.NCICP);
+		}
+		return format;
+	}
+
+	/**
+	 * Returns the name of the file in which the slim is saved in this format.
+	 *
+	 * @param slimmedFilename the file name of the slimmed ontology
+	 * @param gzip whether the file is compressed
+	 * @return
+	 */
+	public String getFilename(String slimmedFilename, boolean gzip) {
+		String filename = slimmedFilename;
+		if (this != RDFXML) {
+			int dot = filename.lastIndexOf('.');
+			if (dot > 0) filename = filename.substring(0, dot);
+			filename += extension;
+		}
+		return gzip ? filename + ".gz" : filename;
+	}
+
+	/**
+	 * Returns the format with the given name.
+	 *
+	 * @param name
+	 * @return
+	 * @throws IllegalArgumentException if there is no such format
+	 */
+	public static OutputFormat forName(String name) {
+		for (OutputFormat format : values()) {
+			if (format.name.equalsIgnoreCase(name)) return format;
+		}
+		throw new IllegalArgumentException("Unknown output format: " + name);
+	}
+
+	/**
+	 * Returns the formats given by the <code>formats</code> key of a <code>.props</code> file,
+	 * or only RDF/XML if it is missing.
+	 *
+	 * @param props
+	 * @return
+	 */
+	public static List<OutputFormat> read(Properties props) {
+		List<OutputFormat> formats = new ArrayList<OutputFormat>();
+		for (String name : props.getProperty("formats", RDFXML.name).split("[\\s,]+")) {
+			if (name.isEmpty()) continue;
+			OutputFormat format = forName(name);
+			if (!formats.contains(format)) formats.add(format);
+		}
+		if (formats.isEmpty()) throw new IllegalArgumentException("No output formats given");
+		return formats;
+	}
+
+	/**
+	 * Opens a buffered stream that writes to the given file, compressed if asked.
+	 *
+	 * @param file
+	 * @param gzip
+	 * @return
+	 * @throws IOException
+	 */
+	public static OutputStream open(File file, boolean gzip) throws IOException {
+		OutputStream stream = Files.newOutputStream(file.toPath());
+		if (gzip) return new BufferedOutputStream(new GZIPOutputStream(stream, BUFFER_SIZE), BUFFER_SIZE);
+		return new BufferedOutputStream(stream, BUFFER_SIZE);
+	}
+}
@@ -0,0 +1,97 @@
+package com.github.enanomapper;
+
+import java.util.Arrays;
+
+/**
+ * Matches IRIs against a set of IRI prefixes, such as those of the wildcard instructions
+ * <code>+:http://purl.obolibrary.org/obo/CHEBI_*</code>. The prefixes are kept in a trie of
+ * their characters, so that an IRI is matched against all prefixes in one walk over its
+ * characters, however many prefixes there are. Each prefix carries the {@link Instruction.Scope}s
+ * of the instructions it comes from, and a match returns those of all matching prefixes.
+ */
+public class PrefixTrie {
+
+	private static class Node {
+		char[] keys = new char[0];
+		Node[] next = new Node[0];
+		int scopes;
+
+		Node child(char key) {
+			int index = Arrays.binarySearch(keys, key);
+			return index < 0 ? null : next[index];
+		}
+
+		Node addChild(char key) {
+			int index = Arrays.binarySearch(keys, key);
+			if (index >= 0) return next[index];
+			index = -index - 1;
+			char[] newKeys = new char[keys.length + 1];
+			Node[] newNext = new Node[keys.length + 1];
+			System.arraycopy(keys, 0, newKeys, 0, index);
+			System.arraycopy(next, 0, newNext, 0, index);
+			System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+			System.arraycopy(next, index, newNext, index + 1, keys.length - index);
+			newKeys[index] = key;
+			newNext[index] = new Node();
+			keys = newKeys;
+			next = newNext;
+			return next[index];
+		}
+	}
+
+	private final Node root = new Node();
+	private int size;
+
+	/**
+	 * Returns the bit for the given scope in the result of {@link #match(String)}.
+	 *
+	 * @param scope
+	 * @return
+	 */
+	public static int mask(Instruction.Scope scope) {
+		return 1 << scope.ordinal();
+	}
+
+	/**
+	 * Adds a prefix, for an instruction with the given scope.
+	 *
+	 * @param prefix
+	 * @param scope
+	 */
+	public void add(String prefix, Instruction.Scope scope) {
+		Node node = root;
+		for (int i=0; i<prefix.length(); i++) node = node.addChild(prefix.charAt(i));
+		if (node.scopes == 0) size++;
+		node.scopes |= mask(scope);
+	}
+
+	/**
+	 * Returns the number of distinct prefixes.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the scopes of all prefixes of the given IRI, as bits given by {@link #mask(Instruction.Scope)}.
+	 *
+	 * @param iri
+	 * @return the scopes, or 0 if no prefix matches
+	 */
+	public int match(String iri) {
+		Node node = root;
+		int scopes = node.scopes;
+		for (int i=0; i<iri.length(); i++) {
+			node = node.child(iri.charAt(i));
+			if (node == null) break;
+			scopes |= node.scopes;
+		}
+		return scopes;
+	}
+}
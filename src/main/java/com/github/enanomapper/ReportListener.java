@@ -0,0 +1,326 @@
+package com.github.enanomapper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link SlimmerListener} that measures each phase of one slimming job, and passes all events
+ * on to another listener. For each phase it records the wall time, the CPU time and the bytes
+ * allocated by the thread of the job, the heap in use at the end of the phase, and the counts
+ * reported during the phase, such as the number of axioms and classes after it. The report
+ * is written as JSON with {@link #toJson()}, and the reports of a whole run are summarized
+ * with {@link #summary(Collection, long)}.
+ *
+ * <p>Imports that the {@link ImportLoader} parses on its own threads are included in the
+ * wall time of a phase, but not in its CPU time and allocated bytes. The heap is shared by
+ * all jobs of a run, so with parallel jobs it includes what the other jobs use.
+ */
+public class ReportListener implements SlimmerListener {
+
+	private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+	private static class Phase {
+		String name;
+		int depth;
+		long wall;
+		long cpu;
+		long allocated;
+		long heap;
+		Map<String,Long> counts = new LinkedHashMap<String,Long>();
+	}
+
+	private final SlimmerListener delegate;
+	private final String job;
+	private final List<Phase> phases = new ArrayList<Phase>();
+	private final List<Phase> open = new ArrayList<Phase>();
+	private final Map<String,Long> counts = new LinkedHashMap<String,Long>();
+	private long wall;
+	private long cpu;
+	private long allocated;
+	private long finishedWall;
+	private long finishedCpu;
+	private long finishedAllocated;
+	private boolean succeeded;
+
+	/**
+	 * @param job the name of the job, such as the name of its <code>.props</code> file
+	 * @param delegate the listener to pass all events on to
+	 */
+	public ReportListener(String job, SlimmerListener delegate) {
+		this.job = job;
+		this.delegate = delegate;
+		start();
+	}
+
+	public String getJob() {
+		return job;
+	}
+
+	/**
+	 * Starts measuring the job, on the thread that runs it.
+	 */
+	public synchronized void start() {
+		this.wall = System.nanoTime();
+		this.cpu = cpuTime();
+		this.allocated = allocatedBytes();
+	}
+
+	/**
+	 * Stops measuring the job, on the thread that ran it. Phases that are still running, because the job failed, end here.
+	 *
+	 * @param succeeded whether the job succeeded
+	 */
+	public synchronized void finish(boolean succeeded) {
+		for (int i=open.size()-1; i>=0; i--) end(open.get(i));
+		open.clear();
+		this.succeeded = succeeded;
+		this.finishedWall = System.nanoTime() - wall;
+		this.finishedCpu = cpuTime() - cpu;
+		this.finishedAllocated = allocatedBytes() - allocated;
+	}
+
+	/**
+	 * Returns the CPU time of the current thread in nanoseconds, or 0 if it cannot be measured.
+	 */
+	private static long cpuTime() {
+		return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : 0;
+	}
+
+	/**
+	 * Returns the bytes allocated by the current thread so far, or 0 if they cannot be measured.
+	 */
+	private static long allocatedBytes() {
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) return 0;
+		com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean)threads;
+		if (!sunThreads.isThreadAllocatedMemorySupported() || !sunThreads.isThreadAllocatedMemoryEnabled()) return 0;
+		return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	@Override
+	public void phaseStarted(String phase) {
+		synchronized (this) {
+			Phase started = new Phase();
+			started.name = phase;
+			started.depth = open.size();
+			phases.add(started);
+			open.add(started);
+			started.allocated = allocatedBytes();
+			started.cpu = cpuTime();
+			started.wall = System.nanoTime();
+		}
+		delegate.phaseStarted(phase);
+	}
+
+	@Override
+	public void phaseFinished(String phase) {
+		synchronized (this) {
+			for (int i=open.size()-1; i>=0; i--) {
+				Phase finished = open.get(i);
+				if (!finished.name.equals(phase)) continue;
+				end(finished);
+				open.remove(i);
+				break;
+			}
+		}
+		delegate.phaseFinished(phase);
+	}
+
+	private static void end(Phase phase) {
+		phase.wall = System.nanoTime() - phase.wall;
+		phase.cpu = cpuTime() - phase.cpu;
+		phase.allocated = allocatedBytes() - phase.allocated;
+		phase.heap = usedHeap();
+	}
+
+	@Override
+	public void count(String name, long value) {
+		synchronized (this) {
+			// a count belongs to the innermost phase that is running
+			if (!open.isEmpty()) open.get(open.size() - 1).counts.put(name, value);
+			counts.put(name, value);
+		}
+		delegate.count(name, value);
+	}
+
+	@Override
+	public void instructionStarted(Instruction instruction) {
+		delegate.instructionStarted(instruction);
+	}
+
+	@Override
+	public void instructionExpanded(Instruction instruction, int closureSize) {
+		delegate.instructionExpanded(instruction, closureSize);
+	}
+
+	@Override
+	public void info(String message) {
+		delegate.info(message);
+	}
+
+	@Override
+	public void warning(String message) {
+		delegate.warning(message);
+	}
+
+	@Override
+	public void error(String message, Throwable exception) {
+		delegate.error(message, exception);
+	}
+
+	@Override
+	public boolean isDebugEnabled() {
+		return delegate.isDebugEnabled();
+	}
+
+	@Override
+	public void debug(String message) {
+		delegate.debug(message);
+	}
+
+	@Override
+	public void entityRemoved(String iri) {
+		delegate.entityRemoved(iri);
+	}
+
+	@Override
+	public void entityKept(String iri) {
+		delegate.entityKept(iri);
+	}
+
+	/**
+	 * Returns the report of the job as a JSON object, with the totals of the job, each phase
+	 * in the order in which they started, with the depth at which it is nested in other
+	 * phases, and the last value of each count.
+	 *
+	 * @return
+	 */
+	public synchronized String toJson() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\n");
+		json.append("  \"job\": ").append(quote(job)).append(",\n");
+		json.append("  \"succeeded\": ").append(succeeded).append(",\n");
+		json.append("  \"wallMillis\": ").append(finishedWall / 1000000).append(",\n");
+		json.append("  \"cpuMillis\": ").append(finishedCpu / 1000000).append(",\n");
+		json.append("  \"allocatedBytes\": ").append(finishedAllocated).append(",\n");
+		json.append("  \"phases\": [");
+		for (int i=0; i<phases.size(); i++) {
+			Phase phase = phases.get(i);
+			json.append(i == 0 ? "\n" : ",\n");
+			json.append("    {\"name\": ").append(quote(phase.name));
+			json.append(", \"depth\": ").append(phase.depth);
+			json.append(", \"wallMillis\": ").append(phase.wall / 1000000);
+			json.append(", \"cpuMillis\": ").append(phase.cpu / 1000000);
+			json.append(", \"allocatedBytes\": ").append(phase.allocated);
+			json.append(", \"heapUsedBytes\": ").append(phase.heap);
+			json.append(", \"counts\": ");
+			append(json, phase.counts);
+			json.append('}');
+		}
+		json.append(phases.isEmpty() ? "],\n" : "\n  ],\n");
+		json.append("  \"counts\": ");
+		append(json, counts);
+		json.append("\n}\n");
+		return json.toString();
+	}
+
+	/**
+	 * Returns the summary of the given job reports as a JSON object: the number of jobs and
+	 * failed jobs, the wall time of the whole run, the sums of the CPU time and allocated bytes
+	 * of all jobs, the sums per phase name, and the totals of each job.
+	 *
+	 * @param reports the reports of the finished jobs
+	 * @param wallNanos the wall time of the whole run, in nanoseconds
+	 * @return
+	 */
+	public static String summary(Collection<ReportListener> reports, long wallNanos) {
+		long cpu = 0;
+		long allocated = 0;
+		int failed = 0;
+		Map<String,long[]> phases = new LinkedHashMap<String,long[]>();
+		for (ReportListener report : reports) {
+			synchronized (report) {
+				cpu += report.finishedCpu;
+				allocated += report.finishedAllocated;
+				if (!report.succeeded) failed++;
+				for (Phase phase : report.phases) {
+					long[] sums = phases.computeIfAbsent(phase.name, name -> new long[4]);
+					sums[0]++;
+					sums[1] += phase.wall;
+					sums[2] += phase.cpu;
+					sums[3] += phase.allocated;
+				}
+			}
+		}
+		StringBuilder json = new StringBuilder();
+		json.append("{\n");
+		json.append("  \"jobs\": ").append(reports.size()).append(",\n");
+		json.append("  \"failed\": ").append(failed).append(",\n");
+		json.append("  \"wallMillis\": ").append(wallNanos / 1000000).append(",\n");
+		json.append("  \"cpuMillis\": ").append(cpu / 1000000).append(",\n");
+		json.append("  \"allocatedBytes\": ").append(allocated).append(",\n");
+		json.append("  \"phases\": {");
+		boolean first = true;
+		for (Map.Entry<String,long[]> phase : phases.entrySet()) {
+			long[] sums = phase.getValue();
+			json.append(first ? "\n" : ",\n");
+			json.append("    ").append(quote(phase.getKey())).append(": {\"count\": ").append(sums[0]);
+			json.append(", \"wallMillis\": ").append(sums[1] / 1000000);
+			json.append(", \"cpuMillis\": ").append(sums[2] / 1000000);
+			json.append(", \"allocatedBytes\": ").append(sums[3]).append('}');
+			first = false;
+		}
+		json.append(phases.isEmpty() ? "},\n" : "\n  },\n");
+		json.append("  \"reports\": [");
+		first = true;
+		for (ReportListener report : reports) {
+			synchronized (report) {
+				json.append(first ? "\n" : ",\n");
+				json.append("    {\"job\": ").append(quote(report.job));
+				json.append(", \"succeeded\": ").append(report.succeeded);
+				json.append(", \"wallMillis\": ").append(report.finishedWall / 1000000);
+				json.append(", \"cpuMillis\": ").append(report.finishedCpu / 1000000);
+				json.append(", \"allocatedBytes\": ").append(report.finishedAllocated).append('}');
+			}
+			first = false;
+		}
+		json.append(reports.isEmpty() ? "]\n" : "\n  ]\n");
+		json.append("}\n");
+		return json.toString();
+	}
+
+	private static void append(StringBuilder json, Map<String,Long> counts) {
+		json.append('{');
+		boolean first = true;
+		for (Map.Entry<String,Long> count : counts.entrySet()) {
+			if (!first) json.append(", ");
+			json.append(quote(count.getKey())).append(": ").append(count.getValue());
+			first = false;
+		}
+		json.append('}');
+	}
+
+	private static String quote(String value) {
+		StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+		for (int i=0; i<value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			} else if (c < 0x20) {
+				quoted.append(String.format("\\u%04x", (int)c));
+			} else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+}
@@ -0,0 +1,219 @@
+package com.github.enanomapper;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.semanticweb.owlapi.model.IRI;
+
+/**
+ * On-disk store of the saved slims of earlier runs, so that a job whose inputs have not
+ * changed copies the slim from the store instead of loading, slimming and saving again.
+ *
+ * <p>Results are stored under a key that is the SHA-256 hash of everything that determines
+ * the slim: the content of the source file, the <code>.props</code> settings (which include
+ * the output formats), the parsed instructions of the <code>.iris</code> file, and the
+ * version of the Slimmer. When that version cannot be determined, results are neither
+ * stored nor reused. The imports of the source are only known after it has been loaded,
+ * so a manifest next to each result holds the {@link SourceFingerprint} of the source and its
+ * imports, and a result is ignored, and later overwritten, as soon as a local import file
+ * changes.
+ */
+public class ResultCache {
+
+	private static String version;
+	private static boolean versionKnown;
+
+	private File folder;
+
+	/**
+	 * @param folder the folder in which the results are stored
+	 */
+	public ResultCache(File folder) {
+		this.folder = folder;
+		folder.mkdirs();
+	}
+
+	/**
+	 * Returns the key of the slim of the given source, made with the given settings and
+	 * instructions.
+	 *
+	 * @param source the source ontology
+	 * @param props the content of the <code>.props</code> file
+	 * @param config the instructions of the <code>.iris</code> file
+	 * @return the key, or null if the version of the Slimmer is unknown, so that no result can be reused
+	 * @throws IOException
+	 */
+	public static String key(File source, Properties props, Configuration config) throws IOException {
+		String version = getVersion();
+		if (version == null) return null;
+		StringBuilder content = new StringBuilder();
+		content.append("version ").append(version).append('\n');
+		content.append("source ").append(SourceFingerprint.sha256(source)).append('\n');
+		for (String name : new TreeSet<String>(props.stringPropertyNames())) {
+			content.append("prop ").append(name).append('=').append(props.getProperty(name)).append('\n');
+		}
+		// the instructions are sets, so sort them to get the same key for the same instructions
+		for (String instruction : sorted(config.getTreePartsToSave())) {
+			content.append("+ ").append(instruction).append('\n');
+		}
+		for (String instruction : sorted(config.getTreePartsToRemove())) {
+			content.append("- ").append(instruction).append('\n');
+		}
+		return SourceFingerprint.sha256(content.toString());
+	}
+
+	private static Collection<String> sorted(Collection<Instruction> instructions) {
+		Collection<String> sorted = new TreeSet<String>();
+		for (Instruction instruction : instructions) sorted.add(instruction.toString());
+		return sorted;
+	}
+
+	/**
+	 * Returns the version of the Slimmer that makes the slims, so that any change to the code
+	 * invalidates the stored results: the SHA-256 hash of the jar it is run from, or, when it
+	 * is run from a folder of classes, like in a build, the hash of all files in that folder.
+	 *
+	 * @return the version, or null if the code cannot be read
+	 * @throws IOException
+	 */
+	static synchronized String getVersion() throws IOException {
+		if (!versionKnown) {
+			File code = null;
+			CodeSource source = ResultCache.class.getProtectionDomain().getCodeSource();
+			if (source != null) {
+				try {
+					code = new File(source.getLocation().toURI());
+				} catch (URISyntaxException | IllegalArgumentException exception) {
+					// not a local file
+				}
+			}
+			if (code != null && code.isFile()) {
+				version = "jar " + SourceFingerprint.sha256(code);
+			} else if (code != null && code.isDirectory()) {
+				version = "classes " + hashFolder(code.toPath());
+			}
+			versionKnown = true;
+		}
+		return version;
+	}
+
+	/**
+	 * Returns the hash of the relative paths and the content of all files in the given folder.
+	 */
+	private static String hashFolder(Path folder) throws IOException {
+		List<Path> files;
+		try (Stream<Path> walk = Files.walk(folder)) {
+			files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+		}
+		StringBuilder content = new StringBuilder();
+		for (Path file : files) {
+			String name = folder.relativize(file).toString().replace(File.separatorChar, '/');
+			content.append(name).append(' ').append(SourceFingerprint.sha256(file.toFile())).append('\n');
+		}
+		return SourceFingerprint.sha256(content.toString());
+	}
+
+	/**
+	 * Copies the files of the stored result with the given key to the given folder, under the
+	 * names they were saved with, if there is a result that is still current.
+	 *
+	 * @param key
+	 * @param target the folder to copy the files to
+	 * @param listener listener to which progress is reported
+	 * @return true if the result was copied
+	 * @throws IOException
+	 */
+	public boolean restore(String key, File target, SlimmerListener listener) throws IOException {
+		File entry = new File(folder, key);
+		File manifest = new File(folder, key + ".properties");
+		if (!entry.isDirectory() || !manifest.exists()) return false;
+
+		Properties props = new Properties();
+		try (InputStream stream = new FileInputStream(manifest)) {
+			props.load(stream);
+		}
+		SourceFingerprint fingerprint = SourceFingerprint.load(props);
+		if (fingerprint == null || !fingerprint.importsAreCurrent()) {
+			listener.info("Ignoring outdated result: " + entry);
+			return false;
+		}
+		List<String> outputs = new ArrayList<String>();
+		int count = Integer.parseInt(props.getProperty("outputs", "0"));
+		for (int i=0; i<count; i++) {
+			String output = props.getProperty("output." + i);
+			if (!new File(entry, output).exists()) return false;
+			outputs.add(output);
+		}
+		for (String output : outputs) {
+			File file = new File(target, output);
+			listener.info("Copying unchanged result to: " + file.getAbsolutePath());
+			Files.copy(new File(entry, output).toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		return true;
+	}
+
+	/**
+	 * Stores the given saved files as the result with the given key.
+	 *
+	 * @param key
+	 * @param source the source ontology
+	 * @param importDocuments the documents of the imports that were merged into the slim
+	 * @param outputs the saved files
+	 * @param listener listener to which progress is reported
+	 * @throws IOException
+	 */
+	public void store(String key, File source, Collection<IRI> importDocuments, Collection<File> outputs, SlimmerListener listener) throws IOException {
+		SourceFingerprint fingerprint = SourceFingerprint.of(source, importDocuments);
+		File entry = new File(folder, key);
+		File manifest = new File(folder, key + ".properties");
+
+		// copy to a temporary folder first, so that parallel jobs never see half a result
+		File tmpEntry = Files.createTempDirectory(folder.toPath(), key).toFile();
+		File tmpManifest = File.createTempFile(key, ".properties.tmp", folder);
+		try {
+			Properties props = new Properties();
+			fingerprint.store(props);
+			int i = 0;
+			for (File output : outputs) {
+				Files.copy(output.toPath(), new File(tmpEntry, output.getName()).toPath());
+				props.setProperty("output." + (i++), output.getName());
+			}
+			props.setProperty("outputs", "" + i);
+			try (OutputStream stream = new FileOutputStream(tmpManifest)) {
+				props.store(stream, "Slimmer result of " + source.getName());
+			}
+			// the manifest is removed first and written last, so that it never describes another result
+			manifest.delete();
+			delete(entry);
+			Files.move(tmpEntry.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			Files.move(tmpManifest.toPath(), manifest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			listener.info("Stored result: " + entry);
+		} finally {
+			delete(tmpEntry);
+			tmpManifest.delete();
+		}
+	}
+
+	private static void delete(File folder) {
+		File[] files = folder.listFiles();
+		if (files == null) return;
+		for (File file : files) file.delete();
+		folder.delete();
+	}
+}
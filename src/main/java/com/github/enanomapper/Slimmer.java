@@ -1,34 +1,36 @@
 package com.github.enanomapper;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.FilenameFilter;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Properties;
 import java.util.Set;
-import java.util.stream.Stream;
 
 import org.semanticweb.owlapi.apibinding.OWLManager;
-import org.semanticweb.owlapi.formats.RDFXMLDocumentFormat;
 import org.semanticweb.owlapi.model.AddAxiom;
+import org.semanticweb.owlapi.model.AddImport;
 import org.semanticweb.owlapi.model.AddOntologyAnnotation;
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLAnnotation;
 import org.semanticweb.owlapi.model.OWLAnnotationAssertionAxiom;
 import org.semanticweb.owlapi.model.OWLAnnotationProperty;
+import org.semanticweb.owlapi.model.OWLAnnotationSubject;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLClass;
-import org.semanticweb.owlapi.model.OWLClassExpression;
 import org.semanticweb.owlapi.model.OWLDataFactory;
 import org.semanticweb.owlapi.model.OWLDataProperty;
 import org.semanticweb.owlapi.model.OWLEntity;
@@ -39,13 +41,9 @@ import org.semanticweb.owlapi.model.OWLOntology;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
 import org.semanticweb.owlapi.model.OWLOntologyStorageException;
-import org.semanticweb.owlapi.model.RemoveImport;
-import org.semanticweb.owlapi.model.SetOntologyID;
-import org.semanticweb.owlapi.search.EntitySearcher;
-import org.semanticweb.owlapi.search.Searcher;
+import org.semanticweb.owlapi.model.parameters.OntologyCopy;
 import org.semanticweb.owlapi.util.OWLEntityRemover;
 import org.semanticweb.owlapi.util.OWLOntologyMerger;
-import org.semanticweb.owlapi.util.SimpleIRIMapper;
 import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
 
 /**
@@ -63,82 +61,332 @@ import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
  */
 public class Slimmer {
 
+	static final String VERSION_INFO =
+		"This SLIM file was generated automatically by the eNanoMapper Slimmer "
+		+ "software library. For more information see "
+		+ "http://github.com/enanomapper/slimmer.";
+	static final String PAV_IMPORTED_FROM = "http://purl.org/pav/importedFrom";
+	static final String AUTO_GENERATED_BY = "http://www.geneontology.org/formats/oboInOwl#auto-generated-by";
+	static final String GENERATION_DATE = "http://www.geneontology.org/formats/oboInOwl#date";
+	static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+	static final String NCICP = "http://ncicb.nci.nih.gov/xml/owl/EVS/ComplexProperties.xsd#";
+
 	private OWLOntologyManager man;
 	private OWLOntology onto;
+	private OWLOntology source;
+	private Set<IRI> importDocuments = new HashSet<IRI>();
+	private ClassHierarchy hierarchy;
+	private SlimmerListener listener;
+
+	public Slimmer(File owlFile, String mergedOntologyIRI) throws OWLOntologyCreationException, IOException {
+		this(owlFile, mergedOntologyIRI, new LogListener(System.out));
+	}
 
-	public Slimmer(File owlFile, String mergedOntologyIRI) throws OWLOntologyCreationException, FileNotFoundException {
-		this(owlFile.getName(), new FileInputStream(owlFile), mergedOntologyIRI);
+	/**
+	 * Constructs a new Slimmer object that will slim the given OWL file, which may be compressed
+	 * with gzip or xz, or be in a zip archive (see {@link SourceInput}).
+	 *
+	 * @param owlFile
+	 * @param mergedOntologyIRI
+	 * @param listener listener to which progress is reported
+	 * @throws OWLOntologyCreationException
+	 * @throws IOException
+	 */
+	public Slimmer(File owlFile, String mergedOntologyIRI, SlimmerListener listener) throws OWLOntologyCreationException, IOException {
+		this(owlFile, mergedOntologyIRI, null, listener);
+	}
+
+	/**
+	 * Constructs a new Slimmer object that will slim the given OWL file, whose imports are
+	 * loaded in parallel by the given {@link ImportLoader}.
+	 *
+	 * @param owlFile
+	 * @param mergedOntologyIRI
+	 * @param imports the loader of the imports, or null to let the OWLAPI load them one by one
+	 * @param listener listener to which progress is reported
+	 * @throws OWLOntologyCreationException
+	 * @throws IOException
+	 */
+	public Slimmer(File owlFile, String mergedOntologyIRI, ImportLoader imports, SlimmerListener listener) throws OWLOntologyCreationException, IOException {
+		this.listener = listener;
+		try (InputStream stream = SourceInput.open(owlFile)) {
+			load(owlFile.getName(), stream, imports);
+		}
+		if (mergedOntologyIRI != null) merge(mergedOntologyIRI);
 	}
 
 	public Slimmer(InputStream owlFile) throws OWLOntologyCreationException {
 		this("undefined for InputStream", owlFile, null);
 	}
 
+	public Slimmer(String filename, InputStream owlFile, String mergedOntologyIRI) throws OWLOntologyCreationException {
+		this(filename, owlFile, mergedOntologyIRI, new LogListener(System.out));
+	}
+
 	/**
 	 * Constructs a new Slimmer object that will slim the given OWL file.
 	 *
 	 * @param owlFile
 	 * @param mergedOntologyIRI
+	 * @param listener listener to which progress is reported
 	 * @throws OWLOntologyCreationException
 	 */
-	public Slimmer(String filename, InputStream owlFile, String mergedOntologyIRI) throws OWLOntologyCreationException {
-		System.out.println("Loading OWL file: " + filename);
+	public Slimmer(String filename, InputStream owlFile, String mergedOntologyIRI, SlimmerListener listener) throws OWLOntologyCreationException {
+		this.listener = listener;
+		load(filename, owlFile, null);
+		if (mergedOntologyIRI != null) merge(mergedOntologyIRI);
+	}
+
+	/**
+	 * Constructs a new Slimmer object for an ontology that is already loaded, such as a copy
+	 * handed out by the {@link OntologyCache}. The manager is expected to hold the imports
+	 * closure of the ontology too.
+	 *
+	 * @param man the manager that holds the ontology
+	 * @param onto the ontology to slim
+	 * @param mergedOntologyIRI
+	 * @param listener listener to which progress is reported
+	 * @throws OWLOntologyCreationException
+	 */
+	public Slimmer(OWLOntologyManager man, OWLOntology onto, String mergedOntologyIRI, SlimmerListener listener) throws OWLOntologyCreationException {
+		this.listener = listener;
+		this.man = man;
+		this.onto = onto;
+		if (mergedOntologyIRI != null) merge(mergedOntologyIRI);
+	}
+
+	private void load(String filename, InputStream owlFile, ImportLoader imports) throws OWLOntologyCreationException {
+		listener.phaseStarted("load");
+		listener.info("Loading OWL file: " + filename);
 		man = OWLManager.createOWLOntologyManager();
-		if (System.getenv("WORKSPACE") != null) {
-			String root = System.getenv("WORKSPACE");
-			System.out.println("Adding mappings with root: " + root);
-			addMappings(man, root);
+		if (imports != null) {
+			onto = imports.load(man, false, owlFile, listener);
+		} else {
+			onto = man.loadOntologyFromOntologyDocument(owlFile);
 		}
-		onto = man.loadOntologyFromOntologyDocument(owlFile);
-		if (mergedOntologyIRI != null) {
-			Set<OWLImportsDeclaration> importDeclarations = onto.getImportsDeclarations();
-			for (OWLImportsDeclaration declaration : importDeclarations) {
-				if (!man.contains(declaration.getIRI())) {
-					try {
-						man.getOntology(declaration.getIRI());
-						System.out.println("Loaded imported ontology: " + declaration.getIRI());
-					} catch (Exception exception) {
-						System.out.println("Failed to load imported ontology: " + declaration.getIRI());
-					}
+		listener.count("parsed axioms", onto.getAxiomCount());
+		listener.phaseFinished("load");
+	}
+
+	private void merge(String mergedOntologyIRI) throws OWLOntologyCreationException {
+		listener.phaseStarted("merge");
+		loadImports();
+		// Merge all of the loaded ontologies, specifying an IRI for the new ontology
+		OWLOntologyMerger merger = new OWLOntologyMerger(man);
+		onto = merger.createMergedOntology(man, IRI.create(mergedOntologyIRI));
+		copyOntologyAnnotations();
+		listener.count("merged axioms", onto.getAxiomCount());
+		listener.count("merged classes", onto.getClassesInSignature().size());
+		listener.phaseFinished("merge");
+	}
+
+	/**
+	 * Merges the loaded ontology with its imports, like the constructors do when given the IRI
+	 * of the merged ontology, but copies only the axioms that {@link #removeAllExcept(Set)}
+	 * would keep for the given instructions: those without classes or properties outside the
+	 * kept ones, and that do not annotate a class or property that is not kept. The kept
+	 * classes and properties are found in the hierarchy of the whole imports closure, which
+	 * is then used by {@link #plan(Set, Set)} too, so that the slim is the same as after a
+	 * full merge, without the copy of everything that would then be removed again.
+	 *
+	 * @param mergedOntologyIRI
+	 * @param irisToSave which IRIs are to be kept
+	 * @throws OWLOntologyCreationException
+	 */
+	public void merge(String mergedOntologyIRI, Set<Instruction> irisToSave) throws OWLOntologyCreationException {
+		listener.phaseStarted("merge");
+		loadImports();
+		List<OWLOntology> ontologies = new ArrayList<OWLOntology>(man.getOntologies());
+		IRIDictionary dictionary = new IRIDictionary();
+		ClassHierarchy closure = new ClassHierarchy(ontologies, dictionary);
+		BitSet entities = new BitSet();
+		for (OWLOntology ontology : ontologies) {
+			ontology.classesInSignature().forEach(clazz -> entities.set(dictionary.intern(clazz.getIRI())));
+			ontology.objectPropertiesInSignature().forEach(prop -> entities.set(dictionary.intern(prop.getIRI())));
+			ontology.dataPropertiesInSignature().forEach(prop -> entities.set(dictionary.intern(prop.getIRI())));
+		}
+		BitSet kept = closure.explode(irisToSave, listener);
+		BitSet removed = (BitSet)entities.clone();
+		removed.andNot(kept);
+
+		onto = man.createOntology(IRI.create(mergedOntologyIRI));
+		List<OWLAxiom> axioms = new ArrayList<OWLAxiom>();
+		int skipped = 0;
+		for (OWLOntology ontology : ontologies) {
+			for (OWLAxiom axiom : ontology.getAxioms()) {
+				if (isKept(axiom, dictionary, removed)) {
+					axioms.add(axiom);
+				} else {
+					skipped++;
 				}
 			}
-			// Merge all of the loaded ontologies, specifying an IRI for the new ontology
-			OWLOntologyMerger merger = new OWLOntologyMerger(man);
-			onto = merger.createMergedOntology(man, IRI.create(mergedOntologyIRI));
-			for (OWLOntology ontology : man.getOntologies()) {
-				System.out.println("  Copying annotations from " + ontology.getOntologyID());
-				for (OWLAnnotation annotation : ontology.getAnnotations()) {
-					System.out.println("  copying annotation: " + annotation.getProperty() + " -> " + annotation.getValue());
-					AddOntologyAnnotation annotationAdd = new AddOntologyAnnotation(onto, annotation);
-					man.applyChange(annotationAdd);
+		}
+		man.addAxioms(onto, axioms);
+		copyOntologyAnnotations();
+		hierarchy = closure; // so that the instructions expand to the same IRIs again
+		listener.count("merged axioms", onto.getAxiomCount());
+		listener.count("merged classes", onto.getClassesInSignature().size());
+		listener.count("skipped axioms", skipped);
+		listener.phaseFinished("merge");
+	}
+
+	/**
+	 * Returns false if the axiom would be removed together with one of the removed classes
+	 * or properties by the <code>OWLEntityRemover</code>.
+	 */
+	private static boolean isKept(OWLAxiom axiom, IRIDictionary dictionary, BitSet removed) {
+		for (OWLEntity entity : axiom.getSignature()) {
+			if ((entity.isOWLClass() || entity.isOWLObjectProperty() || entity.isOWLDataProperty())
+					&& removed.get(dictionary.getId(entity.getIRI()))) {
+				return false;
+			}
+		}
+		if (axiom instanceof OWLAnnotationAssertionAxiom) {
+			OWLAnnotationSubject subject = ((OWLAnnotationAssertionAxiom)axiom).getSubject();
+			if (subject instanceof IRI) {
+				int id = dictionary.getId((IRI)subject);
+				if (id != -1 && removed.get(id)) return false;
+			}
+		}
+		return true;
+	}
+
+	private void loadImports() {
+		source = onto;
+		Set<OWLImportsDeclaration> importDeclarations = onto.getImportsDeclarations();
+		for (OWLImportsDeclaration declaration : importDeclarations) {
+			if (!man.contains(declaration.getIRI())) {
+				try {
+					man.getOntology(declaration.getIRI());
+					listener.info("Loaded imported ontology: " + declaration.getIRI());
+				} catch (Exception exception) {
+					listener.warning("Failed to load imported ontology: " + declaration.getIRI());
 				}
 			}
 		}
 	}
 
+	/**
+	 * Copies the annotations of all loaded ontologies to the merged ontology.
+	 */
+	private void copyOntologyAnnotations() {
+		ChangePlan plan = new ChangePlan(man);
+		for (OWLOntology ontology : man.getOntologies()) {
+			listener.debug("  Copying annotations from " + ontology.getOntologyID());
+			for (OWLAnnotation annotation : ontology.getAnnotations()) {
+				if (listener.isDebugEnabled()) {
+					listener.debug("  copying annotation: " + annotation.getProperty() + " -> " + annotation.getValue());
+				}
+				plan.add("merge", new AddOntologyAnnotation(onto, annotation));
+			}
+		}
+		plan.apply();
+	}
+
 	public OWLOntology getOntology() {
 		return this.onto;
 	}
 
 	/**
-	 * Main method to allow running the Slimmer from the command line. The full slimming
-	 * process consists of a number of steps:
-	 * <ol>
-	 *   <li>read the instructions that specify which ontology to slim</li>
-	 *   <li>read the ontology to slim (including imports)</li>
-	 *   <li>read the instructions that specify how the ontology is to be slimmed</li>
-	 *   <li>remove everything from the ontology except what is to be kept, but after that still
-	 *       delete things explicitly marked to be removed</li>
-	 *   <li>remove owl:import statements from the OWL file</li>
-	 *   <li>normalize term labels</li>
-	 *   <li>save as OWL/XML (which includes updating the ontology metadata)</li>
-	 * </ol>
+	 * Main method to allow running the Slimmer from the command line. It searches the given
+	 * folder for <code>.props</code> files and runs a {@link SlimmingJob} for each of them.
+	 * The optional <code>--threads=N</code> argument runs up to N jobs in parallel; with
+	 * <code>--threads=0</code> one job per available processor is run. The optional
+	 * <code>--snapshots=folder</code> argument keeps snapshots of the merged source
+	 * ontologies in the given folder (see {@link SnapshotStore}), and the optional
+	 * <code>--results=folder</code> argument keeps the saved slims, which are copied
+	 * instead of made again as long as nothing they depend on changes (see
+	 * {@link ResultCache}). The optional <code>--report=folder</code> argument writes a JSON
+	 * report of the duration, CPU time, allocations and counts of the phases of each job, and
+	 * a summary of the run, to the given folder (see {@link ReportListener}). The optional
+	 * <code>--log=quiet|info|debug</code> argument sets how much is reported (see
+	 * {@link LogListener.Level}). With the optional <code>--watch</code> argument the
+	 * Slimmer keeps running and slims an ontology again whenever its configuration changes
+	 * (see {@link SlimmingDaemon}). With the optional <code>--serve=port</code> argument
+	 * nothing is slimmed right away; instead a local HTTP service is started that slims on
+	 * request (see {@link SlimmingServer}), keeping loaded sources within the estimated
+	 * heap budget given by the optional <code>--heap-budget=MB</code> argument. With the
+	 * optional <code>--dry-run</code> argument the changes that would be made are written to
+	 * a <code>.plan</code> file next to each slim instead (see {@link ChangePlan}). The imports
+	 * of the source ontologies are loaded in parallel, on up to the number of threads given by
+	 * the optional <code>--import-threads=N</code> argument (4 by default), and with the optional
+	 * <code>--imports=folder</code> argument only from the local copies in the given folder (see
+	 * {@link ImportLoader}). Imports mapped by a <code>catalog-v001.xml</code> in the root folder,
+	 * or by the catalog files or scanned folders given with <code>--catalog=path</code>
+	 * arguments, are always read from their local documents (see {@link ImportCatalog}).
+	 * When the Java runtime has a Flight Recorder, the phases and the expanded instructions
+	 * are recorded as events too (see {@link FlightRecorderListener}).
 	 *
 	 * @param args
 	 */
 	public static void main(String[] args) {
-		boolean allSucceeded = true;
 		String rootFolder = args[0];
+		int threads = 1;
+		SnapshotStore snapshots = null;
+		ResultCache results = null;
+		File reportFolder = null;
+		LogListener.Level level = LogListener.Level.INFO;
+		boolean watch = false;
+		boolean dryRun = false;
+		int port = -1;
+		long heapBudget = Runtime.getRuntime().maxMemory() / 2;
+		File importMirror = null;
+		int importThreads = 4;
+		ImportCatalog catalog = new ImportCatalog();
+		try {
+			for (int i=1; i<args.length; i++) {
+				if (args[i].startsWith("--catalog=")) catalog.add(new File(args[i].substring("--catalog=".length())));
+			}
+			File rootCatalog = new File(rootFolder, ImportCatalog.CATALOG_FILENAME);
+			if (rootCatalog.exists()) catalog.addCatalog(rootCatalog);
+		} catch (IOException exception) {
+			exception.printStackTrace(System.out);
+			System.exit(-1);
+		}
+		for (int i=1; i<args.length; i++) {
+			if (args[i].startsWith("--threads=")) {
+				threads = (int)numberArgument(args[i], "--threads=", Integer.MAX_VALUE);
+				if (threads == 0) threads = Runtime.getRuntime().availableProcessors();
+			} else if (args[i].startsWith("--snapshots=")) {
+				snapshots = new SnapshotStore(new File(args[i].substring("--snapshots=".length())));
+			} else if (args[i].startsWith("--results=")) {
+				results = new ResultCache(new File(args[i].substring("--results=".length())));
+			} else if (args[i].startsWith("--report=")) {
+				reportFolder = new File(args[i].substring("--report=".length()));
+			} else if (args[i].startsWith("--log=")) {
+				level = levelArgument(args[i], "--log=");
+			} else if (args[i].equals("--watch")) {
+				watch = true;
+			} else if (args[i].equals("--dry-run")) {
+				dryRun = true;
+			} else if (args[i].startsWith("--serve=")) {
+				port = (int)numberArgument(args[i], "--serve=", 65535);
+			} else if (args[i].startsWith("--heap-budget=")) {
+				heapBudget = numberArgument(args[i], "--heap-budget=", Long.MAX_VALUE / (1024 * 1024)) * 1024 * 1024;
+			} else if (args[i].startsWith("--imports=")) {
+				importMirror = new File(args[i].substring("--imports=".length()));
+			} else if (args[i].startsWith("--import-threads=")) {
+				importThreads = (int)numberArgument(args[i], "--import-threads=", Integer.MAX_VALUE);
+			} else if (args[i].startsWith("--catalog=")) {
+				// already read
+			} else {
+				System.out.println("Unknown argument: " + args[i]);
+				System.exit(-1);
+			}
+		}
+		ImportLoader imports = new ImportLoader(importMirror, importThreads, catalog);
+		if (port != -1) {
+			SlimmingServer server = new SlimmingServer(rootFolder, heapBudget, SlimmerListener.withFlightRecorder(new LogListener(System.out, level)));
+			server.setSnapshotStore(snapshots);
+			server.setImportLoader(imports);
+			try {
+				server.start(port, threads);
+			} catch (IOException exception) {
+				exception.printStackTrace(System.out);
+				System.exit(-1);
+			}
+			return;
+		}
 		System.out.println("Searching configuration files in " + rootFolder);
 		File dir = new File(rootFolder);
 		File[] files = dir.listFiles(new FilenameFilter() {
@@ -146,110 +394,134 @@ public class Slimmer {
 		        return name.toLowerCase().endsWith(".props");
 		    }
 		});
-		for (File file : files) {
+		if (watch) {
+			SlimmingDaemon daemon = new SlimmingDaemon(rootFolder, SlimmerListener.withFlightRecorder(new LogListener(System.out, level)));
+			daemon.setSnapshotStore(snapshots);
+			daemon.setImportLoader(imports);
+			daemon.start(files);
 			try {
-				System.out.println("Slimming for " + file.getName());
-
-				// read the information about the ontology to process
-				Properties props = new Properties();
-				props.load(new FileReader(file));
-				String owlURL = props.getProperty("owl"); // for step 1
-				String owlFilename = owlURL;
-				if (owlFilename.contains("/")) {
-					owlFilename = owlFilename.substring(owlFilename.lastIndexOf('/')+1);
-				}
-				String iriFilename = props.getProperty("iris"); // for step 2,3
-				String slimmedURI = props.getProperty("slimmed"); // for step 5
-				String slimmedFilename = slimmedURI;
-				if (slimmedFilename.contains("/")) {
-					slimmedFilename = slimmedFilename.substring(slimmedFilename.lastIndexOf('/')+1);
-				}
+				daemon.watch();
+			} catch (IOException exception) {
+				exception.printStackTrace(System.out);
+				System.exit(-1);
+			} catch (InterruptedException exception) {
+				Thread.currentThread().interrupt();
+			}
+			return;
+		}
+		BatchRunner runner = new BatchRunner(threads);
+		runner.setSnapshotStore(snapshots);
+		runner.setImportLoader(imports);
+		runner.setResultCache(results);
+		runner.setReportFolder(reportFolder);
+		runner.setLogLevel(level);
+		runner.setDryRun(dryRun);
+		boolean allSucceeded = runner.run(rootFolder, files);
+		if (!allSucceeded) System.exit(-1);
+	}
 
-				// 1. read the original ontology
-				File owlFile = new File(owlFilename);
-				Slimmer slimmer = new Slimmer(owlFile, slimmedFilename);
-				OWLOntology onto = slimmer.getOntology();
-				System.out.println("Loaded axioms: " + onto.getAxiomCount());
+	/**
+	 * Returns the log level given with a command line option, or exits with the accepted
+	 * levels when it is not one of them.
+	 */
+	private static LogListener.Level levelArgument(String argument, String option) {
+		String name = argument.substring(option.length());
+		for (LogListener.Level level : LogListener.Level.values()) {
+			if (level.name().equalsIgnoreCase(name)) return level;
+		}
+		StringBuilder accepted = new StringBuilder();
+		for (LogListener.Level level : LogListener.Level.values()) {
+			if (accepted.length() > 0) accepted.append(", ");
+			accepted.append(level.name().toLowerCase());
+		}
+		System.out.println("Unknown log level in argument: " + argument + " (accepted: " + accepted + ")");
+		System.exit(-1);
+		return null;
+	}
 
-				// 2. read the configuration of what to keep/remove
-				File configFile = new File(rootFolder,iriFilename);
-				Configuration config = new Configuration();
-				try {
-					System.out.println("Reading config file: " + configFile);
-					config.read(configFile);
-				} catch (Exception exception) {
-					System.out.println("Error while reading the config file: " + exception.getMessage());
-					System.exit(-1);
-				}
+	/**
+	 * Returns the number given with a command line option, or exits like for an unknown
+	 * argument when it is not a number from 0 to the given maximum.
+	 */
+	private static long numberArgument(String argument, String option, long max) {
+		try {
+			long value = Long.parseLong(argument.substring(option.length()));
+			if (value >= 0 && value <= max) return value;
+		} catch (NumberFormatException exception) {
+			// reported below
+		}
+		System.out.println("Invalid number in argument: " + argument);
+		System.exit(-1);
+		return -1;
+	}
 
-				// 3. remove everything except for what is defined by the instructions
-				Set<Instruction> irisToSave = config.getTreePartsToSave();
-				slimmer.removeAllExcept(irisToSave);
-				Set<Instruction> irisToRemove = config.getTreePartsToRemove();
-				slimmer.removeAll(irisToRemove);
-
-				// 4. remove owl:imports
-				Set<OWLImportsDeclaration> importDeclarations = onto.getImportsDeclarations();
-				for (OWLImportsDeclaration declaration : importDeclarations) {
-					System.out.println("Removing imports: " + declaration.getIRI());
-					RemoveImport removeImport = new RemoveImport(onto, declaration);
-					slimmer.man.applyChange(removeImport);
-				}
+	/**
+	 * Sets the document IRIs of the imported ontologies that were merged into the ontology
+	 * before it was given to this slimmer, such as those of a snapshot.
+	 *
+	 * @param documents
+	 */
+	void setImportDocumentIRIs(Collection<IRI> documents) {
+		importDocuments = new HashSet<IRI>(documents);
+	}
 
-				// 5. update descriptions and labels
-				Set<OWLClass> entities = onto.getClassesInSignature();
-				for (OWLClass clazz : entities) {
-					Stream<OWLAnnotation> annotations = EntitySearcher.getAnnotations(clazz, onto);
-					annotations.forEach(annot -> {
-						if (annot.getProperty().getIRI().toString().equals("http://purl.org/dc/elements/1.1/description") ||
-							annot.getProperty().getIRI().toString().equals("http://ncicb.nci.nih.gov/xml/owl/EVS/Thesaurus.owl#P97")) {
-							System.out.println("  description: " + annot.getValue());
-							OWLDataFactory factory = slimmer.man.getOWLDataFactory();
-							OWLAnnotationProperty newDescription =
-								factory.getOWLAnnotationProperty(IRI.create("http://purl.obolibrary.org/obo/IAO_0000115"));
-							OWLAnnotation commentAnno = factory.getOWLAnnotation(
-								newDescription,
-								annot.getValue()
-							);
-							System.out.println("  new description: " + commentAnno);
-							OWLAxiom ax = factory.getOWLAnnotationAssertionAxiom(
-								clazz.getIRI(), commentAnno
-							);
-							slimmer.man.applyChange(new AddAxiom(onto, ax));
-						}
-					});
-				}
+	OWLOntologyManager getManager() {
+		return this.man;
+	}
 
-				// 6. remove some nasty NPO properties (WORKAROUND: may be removed later)
-				entities = onto.getClassesInSignature();
-				for (OWLClass clazz : entities) {
-					Set<OWLAnnotationAssertionAxiom> annots = onto.getAnnotationAssertionAxioms(clazz.getIRI());
-					Set<OWLAnnotationAssertionAxiom> toRemove = new HashSet<OWLAnnotationAssertionAxiom>();
-					for (OWLAnnotationAssertionAxiom axiom : annots) {
-						if (axiom.getProperty().getIRI().toString().equals("http://purl.bioontology.org/ontology/npo#FULL_SYN") ||
-							axiom.getProperty().getIRI().toString().equals("http://purl.bioontology.org/ontology/npo#definition")) {
-							toRemove.add(axiom);
-						}
-					}
-					slimmer.man.removeAxioms(onto, toRemove);
-				}
+	/**
+	 * Returns a Slimmer for a deep copy of the ontology, in its own manager, that starts out
+	 * with the {@link ClassHierarchy} of this slimmer, so that ids of its dictionary can be
+	 * used with {@link #plan(BitSet, Map, Set)} on the copy.
+	 *
+	 * @param listener listener to which progress is reported
+	 * @return
+	 * @throws OWLOntologyCreationException
+	 */
+	Slimmer copy(SlimmerListener listener) throws OWLOntologyCreationException {
+		OWLOntologyManager copyMan = OWLManager.createOWLOntologyManager();
+		Slimmer copy = new Slimmer(copyMan, copyMan.copyOntology(onto, OntologyCopy.DEEP), null, listener);
+		copy.hierarchy = getHierarchy();
+		return copy;
+	}
 
-				// 7. save in OWL/XML format
-				SetOntologyID ontologyIDChange = new SetOntologyID(onto, IRI.create(slimmedURI));
-				slimmer.man.applyChange(ontologyIDChange);
-				File output = new File(slimmedFilename);
-				System.out.println("Saving to: " + output.getAbsolutePath());
-				slimmer.saveAs(output, owlURL);
-			} catch (Exception e) {
-				e.printStackTrace();
-				allSucceeded = false;
-			}
+	/**
+	 * Returns the IRIs of the imports declared by all loaded ontologies, including the
+	 * imports that could not be loaded.
+	 *
+	 * @return
+	 */
+	Set<IRI> getDeclaredImports() {
+		Set<IRI> declared = new HashSet<IRI>();
+		for (OWLOntology ontology : man.getOntologies()) {
+			for (OWLImportsDeclaration declaration : ontology.getImportsDeclarations()) declared.add(declaration.getIRI());
 		}
-		if (!allSucceeded) System.exit(-1);
+		return declared;
+	}
+
+	/**
+	 * Returns the document IRIs of the imported ontologies that were merged into the
+	 * ontology, or an empty set if no merge was done.
+	 *
+	 * @return
+	 */
+	Set<IRI> getImportDocumentIRIs() {
+		Set<IRI> documents = new HashSet<IRI>(importDocuments);
+		if (source == null) return documents;
+		for (OWLOntology ontology : man.getOntologies()) {
+			if (ontology != source && ontology != onto) documents.add(man.getOntologyDocumentIRI(ontology));
+		}
+		return documents;
 	}
 
 	public void saveAs(File output, String orinalOWL) throws OWLOntologyStorageException, FileNotFoundException {
-		saveAs(new FileOutputStream(output), orinalOWL);
+		try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(output), OutputFormat.BUFFER_SIZE)) {
+			saveAs(stream, orinalOWL);
+		} catch (FileNotFoundException exception) {
+			throw exception;
+		} catch (IOException exception) {
+			throw new OWLOntologyStorageException(exception);
+		}
 	}
 
 	/**
@@ -260,99 +532,107 @@ public class Slimmer {
 	 * @throws OWLOntologyStorageException
 	 */
 	public void saveAs(OutputStream output, String originalOWL) throws OWLOntologyStorageException {
-		// add provenance
+		ChangePlan plan = new ChangePlan(man);
+		planProvenance(plan, originalOWL);
+		apply(plan);
+		save(output);
+	}
+
+	/**
+	 * Plans the addition of the meta data about the slimming process.
+	 *
+	 * @param plan
+	 * @param originalOWL
+	 */
+	void planProvenance(ChangePlan plan, String originalOWL) {
 		OWLDataFactory dataFac = man.getOWLDataFactory();
 
 		// version info
-		OWLLiteral lit = dataFac.getOWLLiteral(
-			"This SLIM file was generated automatically by the eNanoMapper Slimmer "
-			+ "software library. For more information see "
-			+ "http://github.com/enanomapper/slimmer.");
+		OWLLiteral lit = dataFac.getOWLLiteral(VERSION_INFO);
 		OWLAnnotationProperty owlAnnotationProperty =
 			dataFac.getOWLAnnotationProperty(OWLRDFVocabulary.OWL_VERSION_INFO.getIRI());
 		OWLAnnotation anno = dataFac.getOWLAnnotation(owlAnnotationProperty, lit);
-		man.applyChange(new AddOntologyAnnotation(onto, anno));
+		plan.add("provenance", new AddOntologyAnnotation(onto, anno));
 		OWLAnnotationProperty pavImportedFrom = dataFac.getOWLAnnotationProperty(
-			IRI.create("http://purl.org/pav/importedFrom")
+			IRI.create(PAV_IMPORTED_FROM)
 		);
 		anno = dataFac.getOWLAnnotation(pavImportedFrom, dataFac.getOWLLiteral(originalOWL));
-		man.applyChange(new AddOntologyAnnotation(onto, anno));
+		plan.add("provenance", new AddOntologyAnnotation(onto, anno));
 
 		// generation tool
 		lit = dataFac.getOWLLiteral("Slimmer");
 		owlAnnotationProperty = dataFac.getOWLAnnotationProperty(
-			IRI.create("http://www.geneontology.org/formats/oboInOwl#auto-generated-by")
+			IRI.create(AUTO_GENERATED_BY)
 		);
 		anno = dataFac.getOWLAnnotation(owlAnnotationProperty, lit);
-		man.applyChange(new AddOntologyAnnotation(onto, anno));
+		plan.add("provenance", new AddOntologyAnnotation(onto, anno));
 
 		// generation date
-		SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+		SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
 		Date date = new Date();
 		lit = dataFac.getOWLLiteral(dateFormat.format(date));
 		owlAnnotationProperty = dataFac.getOWLAnnotationProperty(
-			IRI.create("http://www.geneontology.org/formats/oboInOwl#date")
+			IRI.create(GENERATION_DATE)
 		);
 		anno = dataFac.getOWLAnnotation(owlAnnotationProperty, lit);
-		man.applyChange(new AddOntologyAnnotation(onto, anno));
+		plan.add("provenance", new AddOntologyAnnotation(onto, anno));
+	}
 
-		// save to file
-		RDFXMLDocumentFormat format = new RDFXMLDocumentFormat();
-		format.setPrefix("ncicp", "http://ncicb.nci.nih.gov/xml/owl/EVS/ComplexProperties.xsd#");
-		man.saveOntology(onto, format, output);
+	/**
+	 * Writes the ontology as it is, as RDF/XML.
+	 *
+	 * @param output
+	 * @throws OWLOntologyStorageException
+	 */
+	void save(OutputStream output) throws OWLOntologyStorageException {
+		save(output, OutputFormat.RDFXML);
+	}
+
+	/**
+	 * Writes the ontology as it is, in the given format.
+	 *
+	 * @param output
+	 * @param format
+	 * @throws OWLOntologyStorageException
+	 */
+	void save(OutputStream output, OutputFormat format) throws OWLOntologyStorageException {
+		man.saveOntology(onto, format.createDocumentFormat(), output);
 	}
 
 	/**
 	 * This functions applies the <code>D</code> and <code>U</code> statements from the configuration
-	 * files by traversing the OWL hierarchy and either including all parents or all children.
+	 * files by looking up all parents or all children in the {@link ClassHierarchy} of the ontology.
 	 *
 	 * @param instructions
+	 * @return the ids of the IRIs in the dictionary of the hierarchy
+	 */
+	private BitSet explode(Set<Instruction> instructions) {
+		listener.phaseStarted("explode");
+		BitSet singleIRIs = getHierarchy().explode(instructions, listener);
+		listener.count("expanded IRIs", singleIRIs.cardinality());
+		listener.phaseFinished("explode");
+		return singleIRIs;
+	}
+
+	/**
+	 * Returns the class hierarchy index of the current ontology, building it if the ontology
+	 * was loaded or changed since the last time it was used. Its dictionary also holds the
+	 * object and data properties of the ontology.
+	 *
 	 * @return
 	 */
-	private Set<String> explode(Set<Instruction> instructions) {
-		Set<String> singleIRIs = new HashSet<String>();
-		for (Instruction instruction : instructions) {
-			String iri = instruction.getUriString();
-			if (instruction.getScope() == Instruction.Scope.UP) {
-				System.out.println("Extracting " + iri + "...");
-				Set<OWLEntity> entities = onto.getEntitiesInSignature(IRI.create(iri));
-				if (entities.size() > 0) {
-					OWLEntity entity = entities.iterator().next();
-					if (entity instanceof OWLClass) {
-						OWLClass clazz = (OWLClass)entity;
-						System.out.println("Class " + clazz);
-						Set<String> superClasses = allSuperClasses(clazz, onto);
-						for (String superClass : superClasses) {
-							System.out.println("Extracting " + superClass + "...");
-							singleIRIs.add(superClass);
-						}
-					}
-				}
-				singleIRIs.add(iri);
-			} else if (instruction.getScope() == Instruction.Scope.DOWN) {
-				System.out.println("Extracting " + iri + "...");
-				Set<OWLEntity> entities = onto.getEntitiesInSignature(IRI.create(iri));
-				if (entities.size() > 0) {
-					OWLEntity entity = entities.iterator().next();
-					if (entity instanceof OWLClass) {
-						OWLClass clazz = (OWLClass)entity;
-						System.out.println("Class " + clazz);
-						Set<String> subClasses = allSubClasses(clazz, onto);
-						for (String subClass : subClasses) {
-							System.out.println("Extracting " + subClass + "...");
-							singleIRIs.add(subClass);
-						}
-					}
-				}
-				singleIRIs.add(iri);
-			} else if (instruction.getScope() == Instruction.Scope.SINGLE) {
-				System.out.println("Extracting " + iri + "...");
-				singleIRIs.add(iri);
-			} else {
-				System.out.println("Cannot handle this instruction: " + instruction.getScope());
+	ClassHierarchy getHierarchy() {
+		if (hierarchy == null) {
+			IRIDictionary dictionary = new IRIDictionary();
+			hierarchy = new ClassHierarchy(onto, dictionary);
+			onto.objectPropertiesInSignature().forEach(prop -> dictionary.intern(prop.getIRI()));
+			onto.dataPropertiesInSignature().forEach(prop -> dictionary.intern(prop.getIRI()));
+			if (!hierarchy.isAcyclic()) {
+				listener.warning("the class hierarchy contains cycles involving "
+					+ hierarchy.getCyclicClassCount() + " classes");
 			}
 		}
-		return singleIRIs;
+		return hierarchy;
 	}
 
 	/**
@@ -363,55 +643,209 @@ public class Slimmer {
 	 * @param irisToSave which IRIs are to be kept
 	 */
 	public void removeAllExcept(Set<Instruction> irisToSave) {
-		Set<String> singleIRIs = explode(irisToSave);
-		Map<String,String> newSuperClasses = getNewSuperClasses(irisToSave);
-		System.out.println("" + singleIRIs);
+		listener.phaseStarted("keep");
+		retain(explode(irisToSave), getNewSuperClasses(irisToSave));
+		listener.phaseFinished("keep");
+	}
+
+	private void retain(BitSet singleIRIs, Map<String,String> newSuperClasses) {
+		apply(plan(singleIRIs, newSuperClasses, Collections.<Instruction>emptySet()));
+	}
+
+	/**
+	 * Plans the changes that {@link #removeAllExcept(Set)} followed by {@link #removeAll(Set)}
+	 * would make, without applying them. The classes and properties to remove after keeping
+	 * only those of the first instructions are found in the hierarchy that would be left,
+	 * derived from the current one, so that all changes can be applied at once with
+	 * {@link #apply(ChangePlan)}, or written out instead.
+	 *
+	 * @param irisToSave which IRIs are to be kept
+	 * @param irisToRemove which of those IRIs are to be removed again
+	 * @return
+	 */
+	public ChangePlan plan(Set<Instruction> irisToSave, Set<Instruction> irisToRemove) {
+		listener.phaseStarted("plan");
+		ChangePlan plan = plan(explode(irisToSave), getNewSuperClasses(irisToSave), irisToRemove);
+		listener.phaseFinished("plan");
+		return plan;
+	}
+
+	/**
+	 * Plans the changes of slimming, for when the instructions to keep have already been
+	 * expanded to ids in the dictionary of the {@link ClassHierarchy} of this slimmer.
+	 *
+	 * @param singleIRIs the ids of the IRIs to keep
+	 * @param newSuperClasses the new super class of kept classes, by class IRI
+	 * @param irisToRemove which of the kept IRIs are to be removed again
+	 * @return
+	 */
+	ChangePlan plan(BitSet singleIRIs, Map<String,String> newSuperClasses, Set<Instruction> irisToRemove) {
+		IRIDictionary dictionary = getHierarchy().getDictionary();
+		BitSet removedAgain = irisToRemove.isEmpty()
+			? new BitSet()
+			: hierarchy.derive(singleIRIs, newSuperClasses).explode(irisToRemove, listener);
+		BitSet retained = (BitSet)singleIRIs.clone();
+		retained.andNot(removedAgain);
+		boolean debug = listener.isDebugEnabled();
+		ChangePlan plan = new ChangePlan(man);
+		int kept = 0;
+		int removed = 0;
 
 		// remove classes
 		OWLEntityRemover remover = new OWLEntityRemover(Collections.singleton(onto));
 		for (OWLClass ind : onto.getClassesInSignature()) {
-			String indIRI = ind.getIRI().toString();
-			System.out.println(indIRI);
-			if (!singleIRIs.contains(indIRI)) {
-				System.out.println("Remove: " + indIRI);
+			int id = dictionary.getId(ind.getIRI());
+			if (!retained.get(id)) {
+				if (debug) listener.entityRemoved(dictionary.getIRI(id));
 				ind.accept(remover);
+				plan.entityRemoved(ind);
+				removed++;
 			} else {
+				if (debug) listener.entityKept(dictionary.getIRI(id));
+				kept++;
 				// OK, keep this one. But does it have a new super class?
-				if (newSuperClasses.containsKey(indIRI)) {
-					String newSuperClass = newSuperClasses.get(indIRI);
+				String newSuperClass = newSuperClasses.get(dictionary.getIRI(id));
+				// a new super class outside the ontology was never interned, so it cannot be removed again
+				int superId = newSuperClass == null ? -1 : dictionary.getId(newSuperClass);
+				if (newSuperClass != null && (superId < 0 || !removedAgain.get(superId))) {
 					OWLDataFactory factory = man.getOWLDataFactory();
-					System.out.println("Super class: " + newSuperClass);
 					OWLClass superClass = factory.getOWLClass(IRI.create(newSuperClass));
 					OWLAxiom axiom = factory.getOWLSubClassOfAxiom(ind, superClass);
-					System.out.println("Adding super class axiom: " + axiom);
-					AddAxiom addAxiom = new AddAxiom(onto, axiom);
-					man.applyChange(addAxiom);
+					if (debug) listener.debug("Adding super class axiom: " + axiom);
+					plan.add("superclass", new AddAxiom(onto, axiom));
 				}
 			}
 		}
+		listener.count("kept classes", kept);
+		listener.count("removed classes", removed);
 
 		// remove properties
+		removed = 0;
 		for (OWLObjectProperty axiom : onto.getObjectPropertiesInSignature()) {
-			String propIRI = axiom.getIRI().toString();
-			System.out.println(propIRI);
-			if (!singleIRIs.contains(propIRI)) {
-				System.out.println("Remove: " + propIRI);
+			int id = dictionary.getId(axiom.getIRI());
+			if (!retained.get(id)) {
+				if (debug) listener.entityRemoved(dictionary.getIRI(id));
 				axiom.accept(remover);
+				plan.entityRemoved(axiom);
+				removed++;
 			}
 		}
 		for (OWLDataProperty axiom : onto.getDataPropertiesInSignature()) {
-			String propIRI = axiom.getIRI().toString();
-			System.out.println(propIRI);
-			if (!singleIRIs.contains(propIRI)) {
-				System.out.println("Remove: " + propIRI);
+			int id = dictionary.getId(axiom.getIRI());
+			if (!retained.get(id)) {
+				if (debug) listener.entityRemoved(dictionary.getIRI(id));
 				axiom.accept(remover);
+				plan.entityRemoved(axiom);
+				removed++;
 			}
 		}
+		listener.count("removed properties", removed);
 
-		man.applyChanges(remover.getChanges());
+		plan.addAll("remove", remover.getChanges());
+		return plan;
+	}
+
+	/**
+	 * Slims like {@link #removeAllExcept(Set)} followed by {@link #removeAll(Set)}, but by
+	 * building a new ontology with only the axioms that are kept, instead of removing the
+	 * others one by one: the axioms without removed classes or properties that do not
+	 * annotate a removed entity, the new super class axioms, and the ontology annotations and
+	 * imports. The work thus scales with what is kept rather than with what is removed.
+	 *
+	 * @param irisToSave which IRIs are to be kept
+	 * @param irisToRemove which of those IRIs are to be removed again
+	 * @throws OWLOntologyCreationException
+	 */
+	public void extract(Set<Instruction> irisToSave, Set<Instruction> irisToRemove) throws OWLOntologyCreationException {
+		listener.phaseStarted("extract");
+		extract(explode(irisToSave), getNewSuperClasses(irisToSave), irisToRemove);
+		listener.phaseFinished("extract");
+	}
+
+	/**
+	 * Extracts the kept part of the ontology, for when the instructions to keep have already
+	 * been expanded to ids in the dictionary of the {@link ClassHierarchy} of this slimmer.
+	 *
+	 * @param singleIRIs the ids of the IRIs to keep
+	 * @param newSuperClasses the new super class of kept classes, by class IRI
+	 * @param irisToRemove which of the kept IRIs are to be removed again
+	 * @throws OWLOntologyCreationException
+	 */
+	void extract(BitSet singleIRIs, Map<String,String> newSuperClasses, Set<Instruction> irisToRemove) throws OWLOntologyCreationException {
+		IRIDictionary dictionary = getHierarchy().getDictionary();
+		BitSet removedAgain = irisToRemove.isEmpty()
+			? new BitSet()
+			: hierarchy.derive(singleIRIs, newSuperClasses).explode(irisToRemove, listener);
+		BitSet retained = (BitSet)singleIRIs.clone();
+		retained.andNot(removedAgain);
+		boolean debug = listener.isDebugEnabled();
+		OWLDataFactory factory = man.getOWLDataFactory();
+		List<OWLAxiom> axioms = new ArrayList<OWLAxiom>();
+		BitSet removed = new BitSet();
+		int kept = 0;
+		for (OWLClass clazz : onto.getClassesInSignature()) {
+			int id = dictionary.getId(clazz.getIRI());
+			if (!retained.get(id)) {
+				if (debug) listener.entityRemoved(dictionary.getIRI(id));
+				removed.set(id);
+			} else {
+				if (debug) listener.entityKept(dictionary.getIRI(id));
+				kept++;
+				String newSuperClass = newSuperClasses.get(dictionary.getIRI(id));
+				int superId = newSuperClass == null ? -1 : dictionary.getId(newSuperClass);
+				if (newSuperClass != null && (superId < 0 || !removedAgain.get(superId))) {
+					OWLAxiom axiom = factory.getOWLSubClassOfAxiom(clazz, factory.getOWLClass(IRI.create(newSuperClass)));
+					if (debug) listener.debug("Adding super class axiom: " + axiom);
+					axioms.add(axiom);
+				}
+			}
+		}
+		int removedClasses = removed.cardinality();
+		listener.count("kept classes", kept);
+		listener.count("removed classes", removedClasses);
+		List<OWLEntity> properties = new ArrayList<OWLEntity>(onto.getObjectPropertiesInSignature());
+		properties.addAll(onto.getDataPropertiesInSignature());
+		for (OWLEntity property : properties) {
+			int id = dictionary.getId(property.getIRI());
+			if (!retained.get(id) && !removed.get(id)) {
+				if (debug) listener.entityRemoved(dictionary.getIRI(id));
+				removed.set(id);
+			}
+		}
+		listener.count("removed properties", removed.cardinality() - removedClasses);
+
+		for (OWLAxiom axiom : onto.getAxioms()) {
+			if (isKept(axiom, dictionary, removed)) axioms.add(axiom);
+		}
+		OWLOntology slimmed = onto;
+		IRI documentIRI = man.getOntologyDocumentIRI(slimmed);
+		man.removeOntology(slimmed);
+		onto = man.createOntology(slimmed.getOntologyID());
+		man.setOntologyDocumentIRI(onto, documentIRI);
+		ChangePlan plan = new ChangePlan(man);
+		for (OWLImportsDeclaration declaration : slimmed.getImportsDeclarations()) {
+			plan.add("imports", new AddImport(onto, declaration));
+		}
+		for (OWLAnnotation annotation : slimmed.getAnnotations()) {
+			plan.add("metadata", new AddOntologyAnnotation(onto, annotation));
+		}
+		plan.apply();
+		man.addAxioms(onto, axioms);
+		hierarchy = null;
+		listener.count("extracted axioms", onto.getAxiomCount());
 	}
-	
-	private Map<String, String> getNewSuperClasses(Set<Instruction> irisToSave) {
+
+	/**
+	 * Applies all planned changes at once.
+	 *
+	 * @param plan
+	 */
+	public void apply(ChangePlan plan) {
+		plan.apply();
+		hierarchy = null;
+	}
+
+	static Map<String, String> getNewSuperClasses(Set<Instruction> irisToSave) {
 		Map<String,String> newSuperClasses = new HashMap<String, String>();
 		for (Instruction instruction : irisToSave) {
 			if (instruction.getNewSuperClass() != null) {
@@ -427,96 +861,46 @@ public class Slimmer {
 	 * @param irisToRemove
 	 */
 	public void removeAll(Set<Instruction> irisToRemove) {
-		Set<String> singleIRIs = explode(irisToRemove);
-		System.out.println("" + singleIRIs);
+		listener.phaseStarted("remove");
+		BitSet singleIRIs = explode(irisToRemove);
+		IRIDictionary dictionary = hierarchy.getDictionary();
+		boolean debug = listener.isDebugEnabled();
+		int removed = 0;
 
 		OWLEntityRemover remover = new OWLEntityRemover(Collections.singleton(onto));
 		for (OWLClass ind : onto.getClassesInSignature()) {
-			String indIRI = ind.getIRI().toString();
-			System.out.println(indIRI);
-			if (singleIRIs.contains(indIRI)) {
-				System.out.println("Remove: " + indIRI);
+			int id = dictionary.getId(ind.getIRI());
+			if (singleIRIs.get(id)) {
+				if (debug) listener.entityRemoved(dictionary.getIRI(id));
 				ind.accept(remover);
+				removed++;
 			}
 		}
+		listener.count("removed classes", removed);
 
 		// remove properties
+		removed = 0;
 		for (OWLObjectProperty axiom : onto.getObjectPropertiesInSignature()) {
-			String propIRI = axiom.getIRI().toString();
-			System.out.println(propIRI);
-			if (singleIRIs.contains(propIRI)) {
-				System.out.println("Remove: " + propIRI);
+			int id = dictionary.getId(axiom.getIRI());
+			if (singleIRIs.get(id)) {
+				if (debug) listener.entityRemoved(dictionary.getIRI(id));
 				axiom.accept(remover);
+				removed++;
 			}
 		}
 		for (OWLDataProperty axiom : onto.getDataPropertiesInSignature()) {
-			String propIRI = axiom.getIRI().toString();
-			System.out.println(propIRI);
-			if (singleIRIs.contains(propIRI)) {
-				System.out.println("Remove: " + propIRI);
+			int id = dictionary.getId(axiom.getIRI());
+			if (singleIRIs.get(id)) {
+				if (debug) listener.entityRemoved(dictionary.getIRI(id));
 				axiom.accept(remover);
+				removed++;
 			}
 		}
+		listener.count("removed properties", removed);
 
 		man.applyChanges(remover.getChanges());
-	}
-
-	private Set<String> allSuperClasses(OWLClass clazz,
-			OWLOntology onto) {
-		Set<String> allSuperClasses = new HashSet<String>();
-		Stream<OWLClassExpression> superClasses = Searcher.sup(onto.subClassAxiomsForSubClass(clazz));
-		superClasses.forEach(superClass -> {
-			if (superClass.isOWLClass()) {
-				OWLClass superOwlClass = superClass.asOWLClass();
-				String superIri = superOwlClass.getIRI().toString();
-				allSuperClasses.add(superIri);
-				// recurse
-				allSuperClasses.addAll(allSuperClasses(superOwlClass, onto));
-			}
-		});
-		return allSuperClasses;
-	}
-
-	/**
-	 * Helper method that returns a collection sub classes of the given class.
-	 *
-	 * @param clazz
-	 * @param onto
-	 * @return
-	 */
-	private Set<String> allSubClasses(OWLClass clazz,
-			OWLOntology onto) {
-		Set<String> allSubClasses = new HashSet<String>();
-		System.out.println("clazz: " + clazz);
-		Stream<OWLClassExpression> subClasses = Searcher.sub(onto.subClassAxiomsForSuperClass(clazz));
-		subClasses.forEach(subClass -> {
-		  // skip itself
-		  OWLClass subOwlClass = subClass.asOWLClass();
-		  System.out.println("subclass: " + subOwlClass);
-		  String subIri = subOwlClass.getIRI().toString();
-		  allSubClasses.add(subIri);
-		  // recurse
-		  allSubClasses.addAll(allSubClasses(subOwlClass, onto));
-		});
-		System.out.println("subclass count: " + allSubClasses.size());
-		return allSubClasses;
-	}
-
-	@SuppressWarnings("serial")
-	Map<String,String> mappings = new HashMap<String,String>() {{
-		// put("http://purl.obolibrary.org/obo/oae/RO_dev_import", "RO_dev_import.owl");
-		// put("https://raw.githubusercontent.com/obophenotype/human-phenotype-ontology/master/hp.owl", "hp.owl");
-	}};
-
-	private void addMappings(OWLOntologyManager m, String root) {
-		if (!root.endsWith("/")) root = (root + "/").replace(" ", "%20");
-		for (String ontoIRI : mappings.keySet()) {
-			String localPart = mappings.get(ontoIRI);
-			m.addIRIMapper(new SimpleIRIMapper(
-				IRI.create(ontoIRI), IRI.create("file://" + root + localPart)
-		    ));
-			System.out.println("  added: " + IRI.create("file://" + root + localPart));
-		}
+		hierarchy = null;
+		listener.phaseFinished("remove");
 	}
 
 }
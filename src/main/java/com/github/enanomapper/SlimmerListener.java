@@ -0,0 +1,105 @@
+package com.github.enanomapper;
+
+/**
+ * Receives the progress of slimming an ontology. Phases, counts, and warnings are reported
+ * once per step; the per-entity events are only sent when {@link #isDebugEnabled()} is true,
+ * so that the loops over all classes and properties do not have to build log messages.
+ *
+ * <p>All methods do nothing by default. Listeners may be called from several jobs at the
+ * same time, unless each job has its own listener.
+ */
+public interface SlimmerListener {
+
+	/**
+	 * Listener that ignores all events.
+	 */
+	SlimmerListener NONE = new SlimmerListener() {};
+
+	/**
+	 * A step of the slimming process started, like loading or saving the ontology.
+	 *
+	 * @param phase
+	 */
+	default void phaseStarted(String phase) {}
+
+	/**
+	 * A step of the slimming process finished.
+	 *
+	 * @param phase
+	 */
+	default void phaseFinished(String phase) {}
+
+	/**
+	 * Reports a number, like the number of kept or removed classes.
+	 *
+	 * @param name
+	 * @param value
+	 */
+	default void count(String name, long value) {}
+
+	/**
+	 * Expanding an instruction into the classes it applies to started. Wildcard instructions
+	 * are expanded together, in one pass, and not reported one by one.
+	 *
+	 * @param instruction
+	 */
+	default void instructionStarted(Instruction instruction) {}
+
+	/**
+	 * Expanding an instruction finished.
+	 *
+	 * @param instruction
+	 * @param closureSize the number of super or sub classes the instruction applies to, besides the class itself
+	 */
+	default void instructionExpanded(Instruction instruction, int closureSize) {}
+
+	default void info(String message) {}
+
+	default void warning(String message) {}
+
+	default void error(String message, Throwable exception) {}
+
+	/**
+	 * Returns true if this listener wants to receive per-entity and other detailed events.
+	 *
+	 * @return
+	 */
+	default boolean isDebugEnabled() {
+		return false;
+	}
+
+	default void debug(String message) {}
+
+	/**
+	 * An entity was removed from the ontology. Only called if debugging is enabled.
+	 *
+	 * @param iri
+	 */
+	default void entityRemoved(String iri) {}
+
+	/**
+	 * An entity was kept in the ontology. Only called if debugging is enabled.
+	 *
+	 * @param iri
+	 */
+	default void entityKept(String iri) {}
+
+	/**
+	 * Returns a listener that also records the phases, counts and expanded instructions as
+	 * JDK Flight Recorder events (see {@link FlightRecorderListener}), or the given listener
+	 * itself when the Java runtime has no Flight Recorder.
+	 *
+	 * @param listener
+	 * @return
+	 */
+	static SlimmerListener withFlightRecorder(SlimmerListener listener) {
+		try {
+			Class.forName("jdk.jfr.Event");
+			// loaded by name, so that runtimes without jdk.jfr never load its event classes
+			return (SlimmerListener)Class.forName("com.github.enanomapper.FlightRecorderListener")
+				.getConstructor(SlimmerListener.class).newInstance(listener);
+		} catch (ReflectiveOperationException | LinkageError exception) {
+			return listener;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package com.github.enanomapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps slimming the ontologies of a set of <code>.props</code> files while their
+ * configuration is being edited. Each source ontology is loaded and merged only once and
+ * kept, with its class hierarchy, in an {@link IncrementalSlimmer}. The root folder is then
+ * watched, and when an <code>.iris</code> file changes only the slims configured by that
+ * file are made again, expanding only the instructions that changed.
+ *
+ * <p>A changed, new, or deleted <code>.props</code> file adds, reloads, or drops its job, and
+ * a source ontology is loaded again when its file has changed since it was loaded.
+ * Ontologies with <code>engine=streaming</code> are not kept in memory and are slimmed
+ * from their source file every time.
+ */
+public class SlimmingDaemon {
+
+	private final String rootFolder;
+	private final SlimmerListener listener;
+	private SnapshotStore snapshots;
+	private ImportLoader imports;
+	private long quietPeriod = 200;
+	private final Map<File,WatchedJob> jobs = new LinkedHashMap<File,WatchedJob>();
+
+	private static class WatchedJob {
+		SlimmingJob job;
+		IncrementalSlimmer slimmer;
+		long sourceModified;
+		long sourceLength;
+	}
+
+	/**
+	 * @param rootFolder folder in which the <code>.props</code> and <code>.iris</code> files are found
+	 * @param listener listener to which progress is reported
+	 */
+	public SlimmingDaemon(String rootFolder, SlimmerListener listener) {
+		this.rootFolder = rootFolder;
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets the store from which merged source ontologies are loaded, when possible.
+	 *
+	 * @param snapshots
+	 */
+	public void setSnapshotStore(SnapshotStore snapshots) {
+		this.snapshots = snapshots;
+	}
+
+	/**
+	 * Sets the loader of the imports of the source ontologies.
+	 *
+	 * @param imports
+	 */
+	public void setImportLoader(ImportLoader imports) {
+		this.imports = imports;
+	}
+
+	/**
+	 * Sets how long to wait for more changes after a change, so that a file saved in several
+	 * writes is slimmed only once.
+	 *
+	 * @param milliseconds
+	 */
+	public void setQuietPeriod(long milliseconds) {
+		this.quietPeriod = milliseconds;
+	}
+
+	/**
+	 * Loads the source ontologies of the given <code>.props</code> files and slims each of them.
+	 *
+	 * @param files the <code>.props</code> files
+	 * @return true if all slims were saved
+	 */
+	public boolean start(File[] files) {
+		boolean allSucceeded = true;
+		for (File file : files) {
+			if (!add(file)) allSucceeded = false;
+		}
+		return allSucceeded;
+	}
+
+	/**
+	 * Slims again what is affected by a change of the given file in the root folder.
+	 *
+	 * @param file a created, changed, or deleted file
+	 * @return true if all affected slims were saved
+	 */
+	public boolean changed(File file) {
+		File key = canonical(file);
+		if (file.getName().toLowerCase().endsWith(".props")) {
+			if (jobs.remove(key) != null) listener.info("Dropped " + file.getName());
+			return file.exists() ? add(file) : true;
+		}
+		boolean allSucceeded = true;
+		for (WatchedJob watched : jobs.values()) {
+			try {
+				if (!key.equals(canonical(watched.job.getConfigurationFile()))
+					&& !key.equals(canonical(watched.job.getSourceFile()))) continue;
+			} catch (IOException exception) {
+				continue;
+			}
+			if (!slim(watched)) allSucceeded = false;
+		}
+		return allSucceeded;
+	}
+
+	/**
+	 * Watches the root folder and slims again after every change, until the thread is
+	 * interrupted or the folder can no longer be watched.
+	 *
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public void watch() throws IOException, InterruptedException {
+		Path folder = new File(rootFolder).toPath();
+		try (WatchService service = FileSystems.getDefault().newWatchService()) {
+			folder.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+			listener.info("Watching " + folder.toAbsolutePath() + " for changes");
+			while (true) {
+				WatchKey key = service.take();
+				Set<File> changed = new LinkedHashSet<File>();
+				boolean overflow = false;
+				while (key != null) {
+					for (WatchEvent<?> event : key.pollEvents()) {
+						if (event.kind() == StandardWatchEventKinds.OVERFLOW) overflow = true;
+						else changed.add(folder.resolve((Path)event.context()).toFile());
+					}
+					if (!key.reset()) {
+						listener.warning("Cannot watch " + folder + " anymore");
+						return;
+					}
+					key = service.poll(quietPeriod, TimeUnit.MILLISECONDS);
+				}
+				if (overflow) {
+					// events were lost, so slim everything again
+					for (WatchedJob watched : jobs.values()) slim(watched);
+				} else {
+					for (File file : changed) changed(file);
+				}
+			}
+		}
+	}
+
+	private boolean add(File file) {
+		WatchedJob watched = new WatchedJob();
+		watched.job = new SlimmingJob(rootFolder, file, listener);
+		watched.job.setSnapshotStore(snapshots);
+		watched.job.setImportLoader(imports);
+		jobs.put(canonical(file), watched);
+		return slim(watched);
+	}
+
+	private boolean slim(WatchedJob watched) {
+		SlimmingJob job = watched.job;
+		try {
+			if (job.isStreaming()) return job.call();
+			listener.info("Slimming for " + job.getFile().getName());
+			File owlFile = job.getSourceFile();
+			if (watched.slimmer == null || owlFile.lastModified() != watched.sourceModified
+					|| owlFile.length() != watched.sourceLength) {
+				watched.sourceModified = owlFile.lastModified();
+				watched.sourceLength = owlFile.length();
+				watched.slimmer = new IncrementalSlimmer(job.loadSource());
+			}
+			Configuration config = job.readConfiguration();
+			if (config == null) return false;
+			job.save(watched.slimmer.slim(config, listener));
+			return true;
+		} catch (Exception e) {
+			listener.error("Slimming " + job.getFile().getName() + " failed", e);
+			return false;
+		}
+	}
+
+	private static File canonical(File file) {
+		try {
+			return file.getCanonicalFile();
+		} catch (IOException exception) {
+			return file.getAbsoluteFile();
+		}
+	}
+}
@@ -0,0 +1,582 @@
+package com.github.enanomapper;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLImportsDeclaration;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.OWLOntologyStorageException;
+import org.semanticweb.owlapi.model.RemoveImport;
+import org.semanticweb.owlapi.model.SetOntologyID;
+
+/**
+ * Slims one ontology as described by a <code>.props</code> file. The full slimming
+ * process consists of a number of steps:
+ * <ol>
+ *   <li>read the instructions that specify which ontology to slim</li>
+ *   <li>read the instructions that specify how the ontology is to be slimmed</li>
+ *   <li>read the ontology to slim (including imports)</li>
+ *   <li>remove everything from the ontology except what is to be kept, but after that still
+ *       delete things explicitly marked to be removed</li>
+ *   <li>remove owl:import statements from the OWL file</li>
+ *   <li>rewrite the annotations of the classes, as given by the {@link AnnotationRules}</li>
+ *   <li>save in each of the {@link OutputFormat}s (which includes updating the ontology metadata)</li>
+ * </ol>
+ *
+ * <p>Each job uses its own {@link Slimmer}, and thus its own <code>OWLOntologyManager</code>,
+ * so that jobs can run in parallel. With a {@link ResultCache}, a job whose inputs have not
+ * changed since an earlier run copies the slim from there as soon as it has read the
+ * <code>.iris</code> instructions, which are part of the key of the result, and before the
+ * ontology is read. It then skips all remaining steps.
+ */
+public class SlimmingJob implements Callable<Boolean> {
+
+	private String rootFolder;
+	private File file;
+	private SlimmerListener listener;
+	private OntologyCache cache;
+	private boolean released;
+	private SnapshotStore snapshots;
+	private ImportLoader imports;
+	private ResultCache results;
+	private Properties props;
+	private boolean dryRun;
+
+	/**
+	 * Creates a job for the given <code>.props</code> file.
+	 *
+	 * @param rootFolder folder in which the <code>.iris</code> files are found
+	 * @param file the <code>.props</code> file
+	 * @param listener listener to which progress is reported
+	 */
+	public SlimmingJob(String rootFolder, File file, SlimmerListener listener) {
+		this.rootFolder = rootFolder;
+		this.file = file;
+		this.listener = listener;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Sets the cache from which the source ontology is copied, instead of parsing it.
+	 *
+	 * @param cache
+	 */
+	public void setCache(OntologyCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Sets the store of merged source ontologies, which are then loaded from a snapshot
+	 * when possible.
+	 *
+	 * @param snapshots
+	 */
+	public void setSnapshotStore(SnapshotStore snapshots) {
+		this.snapshots = snapshots;
+	}
+
+	/**
+	 * Sets the loader of the imports of the source ontology, when it is not taken from the
+	 * cache or a snapshot.
+	 *
+	 * @param imports
+	 */
+	public void setImportLoader(ImportLoader imports) {
+		this.imports = imports;
+	}
+
+	/**
+	 * Sets the store of earlier results, from which the slim is copied when the source, its
+	 * imports, the <code>.props</code> file and the instructions have not changed.
+	 *
+	 * @param results
+	 */
+	public void setResultCache(ResultCache results) {
+		this.results = results;
+	}
+
+	/**
+	 * Sets whether the job only writes the changes it would make to the source ontology to a
+	 * <code>.plan</code> file next to the slim, instead of making and saving the slim.
+	 *
+	 * @param dryRun
+	 */
+	public void setDryRun(boolean dryRun) {
+		this.dryRun = dryRun;
+	}
+
+	/**
+	 * Returns the content of the <code>.props</code> file, which is read only once.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public Properties getProperties() throws IOException {
+		if (props == null) {
+			Properties props = new Properties();
+			try (FileReader reader = new FileReader(file)) {
+				props.load(reader);
+			}
+			this.props = props;
+		}
+		return props;
+	}
+
+	/**
+	 * Returns true if the <code>.props</code> file selects the {@link StreamingSlimmer},
+	 * with <code>engine=streaming</code>, instead of the OWLAPI based {@link Slimmer}.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean isStreaming() throws IOException {
+		return "streaming".equals(getProperties().getProperty("engine"));
+	}
+
+	/**
+	 * Returns true if the <code>.props</code> file selects, with <code>engine=extract</code>,
+	 * to build the slim by copying what is kept (see {@link Slimmer#extract(Set, Set)}),
+	 * instead of removing everything else from the source.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean isExtracting() throws IOException {
+		return "extract".equals(getProperties().getProperty("engine"));
+	}
+
+	/**
+	 * Returns true if the <code>.props</code> file selects, with <code>merge=filtered</code>,
+	 * to merge only those axioms of the source and its imports that the slim keeps.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean isFilteredMerge() throws IOException {
+		return "filtered".equals(getProperties().getProperty("merge"));
+	}
+
+	/**
+	 * Returns the rules for rewriting the annotations, given by the <code>annotations.*</code>
+	 * keys of the <code>.props</code> file (see {@link AnnotationRules}).
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public AnnotationRules getAnnotationRules() throws IOException {
+		return AnnotationRules.read(getProperties());
+	}
+
+	/**
+	 * Returns the formats in which the slim is saved, given by the <code>formats</code> key of
+	 * the <code>.props</code> file (see {@link OutputFormat}).
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public List<OutputFormat> getOutputFormats() throws IOException {
+		return OutputFormat.read(getProperties());
+	}
+
+	/**
+	 * Returns true if the saved files are compressed, with <code>gzip=true</code>.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean isGzipped() throws IOException {
+		return Boolean.parseBoolean(getProperties().getProperty("gzip"));
+	}
+
+	/**
+	 * Returns the local file of the ontology to slim. It is looked up in the working directory
+	 * and, if it is not found there, in the root folder. If the file itself is not found, a
+	 * compressed copy with a <code>.gz</code>, <code>.xz</code> or <code>.zip</code> extension is
+	 * used instead.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public File getSourceFile() throws IOException {
+		String owlFilename = getProperties().getProperty("owl");
+		if (owlFilename.contains("/")) {
+			owlFilename = owlFilename.substring(owlFilename.lastIndexOf('/')+1);
+		}
+		File owlFile = SourceInput.find(new File(owlFilename));
+		if (!owlFile.exists()) {
+			File inRootFolder = SourceInput.find(new File(rootFolder, owlFilename));
+			if (inRootFolder.exists()) owlFile = inRootFolder;
+		}
+		return owlFile;
+	}
+
+	/**
+	 * Returns the file name of the slimmed ontology, which is the last part of its IRI.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public String getSlimmedFilename() throws IOException {
+		String slimmedFilename = getProperties().getProperty("slimmed");
+		if (slimmedFilename.contains("/")) {
+			slimmedFilename = slimmedFilename.substring(slimmedFilename.lastIndexOf('/')+1);
+		}
+		return slimmedFilename;
+	}
+
+	/**
+	 * Returns the <code>.iris</code> file with the instructions of how to slim the ontology.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public File getConfigurationFile() throws IOException {
+		return new File(rootFolder, getProperties().getProperty("iris"));
+	}
+
+	/**
+	 * Runs the job.
+	 *
+	 * @return true if the slimmed ontology was saved
+	 */
+	public Boolean call() {
+		try {
+			listener.info("Slimming for " + file.getName());
+			if (isStreaming()) return callStreaming();
+
+			// 1. read the configuration of what to keep/remove
+			Configuration config = readConfiguration();
+			if (config == null) return false;
+			String key = getResultKey(config);
+			if (key != null && results.restore(key, new File("").getAbsoluteFile(), listener)) return true;
+
+			// 2. read the original ontology
+			Slimmer slimmer = loadSource(config);
+
+			// 3. remove everything except for what is defined by the instructions, but only plan the changes,
+			//    or copy only what is kept right away with the extraction engine
+			ChangePlan plan;
+			if (isExtracting() && !dryRun) {
+				slimmer.extract(config.getTreePartsToSave(), config.getTreePartsToRemove());
+				plan = new ChangePlan(slimmer.getManager());
+			} else {
+				plan = slimmer.plan(config.getTreePartsToSave(), config.getTreePartsToRemove());
+			}
+
+			if (dryRun) {
+				planPostProcessing(slimmer, plan);
+				writePlan(plan);
+				return true;
+			}
+
+			// 4. - 7.
+			List<File> outputs = save(slimmer, plan);
+			if (key != null) results.store(key, getSourceFile(), slimmer.getImportDocumentIRIs(), outputs, listener);
+			return true;
+		} catch (Exception e) {
+			listener.error("Slimming " + file.getName() + " failed", e);
+			return false;
+		} finally {
+			// also when the source came from elsewhere, or the job ended before loading it
+			releaseSource();
+		}
+	}
+
+	/**
+	 * Tells the cache, once, that this job does not need its copy of the source anymore, so
+	 * that the cache can drop the source after the last job that expects it.
+	 */
+	private void releaseSource() {
+		if (cache == null || released) return;
+		released = true;
+		try {
+			cache.release(getSourceFile());
+		} catch (IOException exception) {
+			// the cache was never told to expect this job then
+		}
+	}
+
+	/**
+	 * Returns the key of the slim in the result cache, or null if no result cache is used.
+	 *
+	 * @param config
+	 * @return
+	 * @throws IOException
+	 */
+	String getResultKey(Configuration config) throws IOException {
+		if (results == null || dryRun) return null;
+		String key = ResultCache.key(getSourceFile(), getProperties(), config);
+		if (key == null) listener.warning("Not using the result cache, because the version of the Slimmer is unknown");
+		return key;
+	}
+
+	/**
+	 * Loads the source ontology, merged with its imports, for the given configuration (step 2).
+	 * With <code>merge=filtered</code> in the <code>.props</code> file, only what the
+	 * configuration keeps is merged (see {@link Slimmer#merge(String, Set)}), unless the
+	 * source is loaded from a snapshot, which holds the full merge.
+	 *
+	 * @param config
+	 * @return a slimmer for the merged source ontology
+	 * @throws OWLOntologyCreationException
+	 * @throws OWLOntologyStorageException
+	 * @throws IOException
+	 */
+	Slimmer loadSource(Configuration config) throws OWLOntologyCreationException, OWLOntologyStorageException, IOException {
+		if (!isFilteredMerge() || snapshots != null) return loadSource();
+		listener.phaseStarted("source");
+		File owlFile = getSourceFile();
+		Slimmer slimmer = cache != null
+			? cache.createSlimmer(owlFile, null, listener)
+			: new Slimmer(owlFile, null, imports, listener);
+		releaseSource();
+		slimmer.merge(getSlimmedFilename(), config.getTreePartsToSave());
+		listener.count("loaded axioms", slimmer.getOntology().getAxiomCount());
+		listener.phaseFinished("source");
+		return slimmer;
+	}
+
+	/**
+	 * Loads the source ontology, merged with its imports, from the snapshot store, the cache,
+	 * or the source file itself.
+	 *
+	 * @return a slimmer for the merged source ontology
+	 * @throws OWLOntologyCreationException
+	 * @throws OWLOntologyStorageException
+	 * @throws IOException
+	 */
+	Slimmer loadSource() throws OWLOntologyCreationException, OWLOntologyStorageException, IOException {
+		listener.phaseStarted("source");
+		File owlFile = getSourceFile();
+		String slimmedFilename = getSlimmedFilename();
+		Slimmer slimmer = snapshots != null ? snapshots.load(owlFile, slimmedFilename, imports, listener) : null;
+		if (slimmer == null) {
+			slimmer = cache != null
+				? cache.createSlimmer(owlFile, slimmedFilename, listener)
+				: new Slimmer(owlFile, slimmedFilename, imports, listener);
+			if (snapshots != null) snapshots.save(owlFile, slimmer, imports, listener);
+		}
+		releaseSource();
+		listener.count("loaded axioms", slimmer.getOntology().getAxiomCount());
+		listener.phaseFinished("source");
+		return slimmer;
+	}
+
+	/**
+	 * Reads the instructions of the <code>.iris</code> file (step 1).
+	 *
+	 * @return the configuration, or null if it could not be read
+	 * @throws IOException
+	 */
+	Configuration readConfiguration() throws IOException {
+		File configFile = getConfigurationFile();
+		Configuration config = new Configuration();
+		try {
+			listener.info("Reading config file: " + configFile);
+			config.read(configFile, listener);
+		} catch (Exception exception) {
+			listener.error("Error while reading the config file: " + exception.getMessage(), null);
+			return null;
+		}
+		return config;
+	}
+
+	/**
+	 * Removes the imports, updates the annotations, and saves the slimmed ontology (steps 4 to 7).
+	 *
+	 * @param slimmer the slimmer, after the instructions have been applied
+	 * @throws IOException
+	 * @throws OWLOntologyStorageException
+	 */
+	void save(Slimmer slimmer) throws IOException, OWLOntologyStorageException {
+		save(slimmer, new ChangePlan(slimmer.getManager()));
+	}
+
+	/**
+	 * Applies the planned changes together with those of steps 4 to 7, and saves the slimmed
+	 * ontology in each of the output formats. The changes are applied once, and the ontology
+	 * is written once per format.
+	 *
+	 * @param slimmer
+	 * @param plan changes that are not applied yet
+	 * @return the saved files
+	 * @throws IOException
+	 * @throws OWLOntologyStorageException
+	 */
+	List<File> save(Slimmer slimmer, ChangePlan plan) throws IOException, OWLOntologyStorageException {
+		List<OutputFormat> formats = getOutputFormats();
+		List<File> outputs = new ArrayList<File>();
+		boolean gzip = isGzipped();
+		planPostProcessing(slimmer, plan);
+		apply(slimmer, plan);
+		listener.phaseStarted("save");
+		for (OutputFormat format : formats) {
+			File output = new File(format.getFilename(getSlimmedFilename(), gzip));
+			listener.info("Saving to: " + output.getAbsolutePath());
+			try (OutputStream stream = OutputFormat.open(output, gzip)) {
+				slimmer.save(stream, format);
+			}
+			outputs.add(output);
+		}
+		listener.count("saved axioms", slimmer.getOntology().getAxiomCount());
+		listener.count("saved classes", slimmer.getOntology().getClassesInSignature().size());
+		listener.phaseFinished("save");
+		return outputs;
+	}
+
+	/**
+	 * Applies the planned changes in a phase of its own, before saving, and reports the number
+	 * of axioms and classes before and after them.
+	 */
+	private void apply(Slimmer slimmer, ChangePlan plan) {
+		listener.phaseStarted("apply");
+		listener.count("axioms before apply", slimmer.getOntology().getAxiomCount());
+		listener.count("classes before apply", slimmer.getOntology().getClassesInSignature().size());
+		slimmer.apply(plan);
+		listener.count("applied axioms", slimmer.getOntology().getAxiomCount());
+		listener.count("applied classes", slimmer.getOntology().getClassesInSignature().size());
+		listener.phaseFinished("apply");
+	}
+
+	/**
+	 * Removes the imports, updates the annotations, and writes the slimmed ontology to the
+	 * given stream (steps 4 to 7).
+	 *
+	 * @param slimmer the slimmer, after the instructions have been applied
+	 * @param output
+	 * @throws IOException
+	 * @throws OWLOntologyStorageException
+	 */
+	void save(Slimmer slimmer, OutputStream output) throws IOException, OWLOntologyStorageException {
+		save(slimmer, output, OutputFormat.RDFXML);
+	}
+
+	/**
+	 * Removes the imports, updates the annotations, and writes the slimmed ontology to the
+	 * given stream in the given format (steps 4 to 7).
+	 *
+	 * @param slimmer the slimmer, after the instructions have been applied
+	 * @param output
+	 * @param format
+	 * @throws IOException
+	 * @throws OWLOntologyStorageException
+	 */
+	void save(Slimmer slimmer, OutputStream output, OutputFormat format) throws IOException, OWLOntologyStorageException {
+		ChangePlan plan = new ChangePlan(slimmer.getManager());
+		planPostProcessing(slimmer, plan);
+		apply(slimmer, plan);
+		listener.phaseStarted("save");
+		slimmer.save(output, format);
+		listener.count("saved axioms", slimmer.getOntology().getAxiomCount());
+		listener.count("saved classes", slimmer.getOntology().getClassesInSignature().size());
+		listener.phaseFinished("save");
+	}
+
+	/**
+	 * Plans the changes of steps 4 to 7 after those already in the plan: removing the imports,
+	 * updating the annotations of the classes that are not removed, and setting the ontology
+	 * IRI and the meta data about the slimming process.
+	 *
+	 * @param slimmer
+	 * @param plan
+	 * @throws IOException
+	 */
+	void planPostProcessing(Slimmer slimmer, ChangePlan plan) throws IOException {
+		OWLOntologyManager man = slimmer.getManager();
+		OWLOntology onto = slimmer.getOntology();
+
+		// 4. remove owl:imports
+		listener.phaseStarted("annotations");
+		Set<OWLImportsDeclaration> importDeclarations = onto.getImportsDeclarations();
+		for (OWLImportsDeclaration declaration : importDeclarations) {
+			listener.debug("Removing imports: " + declaration.getIRI());
+			plan.add("imports", new RemoveImport(onto, declaration));
+		}
+
+		// 5. and 6. rewrite the annotations: copy descriptions to definitions, drop some NPO properties, etc.
+		getAnnotationRules().plan(onto, plan);
+
+		listener.phaseFinished("annotations");
+
+		// 7. set the ontology IRI and add the meta data
+		plan.add("metadata", new SetOntologyID(onto, IRI.create(getProperties().getProperty("slimmed"))));
+		slimmer.planProvenance(plan, getProperties().getProperty("owl"));
+	}
+
+	/**
+	 * Writes the planned changes to a <code>.plan</code> file next to where the slim would be
+	 * saved, and reports the number of changes per step.
+	 */
+	private void writePlan(ChangePlan plan) throws IOException {
+		File output = new File(getSlimmedFilename() + ".plan");
+		listener.info("Writing the planned changes to: " + output.getAbsolutePath());
+		for (Map.Entry<String,Integer> count : plan.getCounts().entrySet()) {
+			listener.count("planned " + count.getKey(), count.getValue());
+		}
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8)) {
+			plan.write(new BufferedWriter(writer));
+		}
+	}
+
+	/**
+	 * Runs the job with the {@link StreamingSlimmer}, which does all steps in two passes
+	 * over the source file, except that the imports are not merged.
+	 */
+	private boolean callStreaming() throws IOException {
+		if (dryRun) {
+			listener.warning("a dry run is not possible with the streaming engine, skipping " + file.getName());
+			return true;
+		}
+		Configuration config = readConfiguration();
+		if (config == null) return false;
+		String key = getResultKey(config);
+		if (key != null && results.restore(key, new File("").getAbsoluteFile(), listener)) return true;
+
+		Properties props = getProperties();
+		boolean gzip = isGzipped();
+		Map<OutputFormat,OutputStream> outputs = new LinkedHashMap<OutputFormat,OutputStream>();
+		List<File> files = new ArrayList<File>();
+		try {
+			for (OutputFormat format : getOutputFormats()) {
+				if (format.getRioFormat() == null) {
+					listener.warning("the streaming engine cannot write " + format.getName() + ", skipping it for " + file.getName());
+					continue;
+				}
+				File output = new File(format.getFilename(getSlimmedFilename(), gzip));
+				listener.info("Saving to: " + output.getAbsolutePath());
+				outputs.put(format, OutputFormat.open(output, gzip));
+				files.add(output);
+			}
+			if (outputs.isEmpty()) return false;
+			StreamingSlimmer slimmer = new StreamingSlimmer(getSourceFile(), listener);
+			slimmer.setAnnotationRules(getAnnotationRules());
+			slimmer.slim(config, outputs, props.getProperty("slimmed"), props.getProperty("owl"));
+		} finally {
+			for (OutputStream stream : outputs.values()) stream.close();
+		}
+		// the streaming engine does not merge the imports
+		if (key != null) results.store(key, getSourceFile(), Collections.<IRI>emptySet(), files, listener);
+		return true;
+	}
+}
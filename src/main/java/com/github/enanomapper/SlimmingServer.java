@@ -0,0 +1,329 @@
+package com.github.enanomapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.parameters.OntologyCopy;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP service that slims the source ontologies of the <code>.props</code> files in a
+ * folder on request, so that tools that each want their own slims of the same ontologies do
+ * not have to start a JVM and parse the sources every time. It has two endpoints:
+ * <ul>
+ *   <li><code>POST /slim/{id}</code>, with the instructions of an <code>.iris</code> file as
+ *       UTF-8 body, returns the slim as RDF/XML, where <code>{id}</code> is the name of the
+ *       <code>.props</code> file without extension; another {@link OutputFormat} can be asked
+ *       for with <code>?format=turtle</code>, for example</li>
+ *   <li><code>GET /sources</code> lists the ids, marking the sources that are loaded</li>
+ * </ul>
+ *
+ * <p>A source is loaded and merged with its imports on the first request for it, and then
+ * stays resident, with its {@link ClassHierarchy}, until it is evicted. When the estimated heap
+ * used by the resident sources exceeds the budget, the least recently used ones are evicted.
+ * Requests only read the resident source and its hierarchy and slim their own copy, so that
+ * they can be served in parallel. Sources are always slimmed in memory, also when their
+ * <code>.props</code> file selects the streaming engine.
+ *
+ * <p>The service only listens on the loopback address.
+ */
+public class SlimmingServer {
+
+	/** rough estimate of the heap used per axiom by a resident ontology, its indexes, and its class hierarchy */
+	static final long BYTES_PER_AXIOM = 2048;
+
+	private final String rootFolder;
+	private final long heapBudget;
+	private final SlimmerListener listener;
+	private SnapshotStore snapshots;
+	private ImportLoader imports;
+	private HttpServer server;
+	private ExecutorService executor;
+
+	private final LinkedHashMap<String,FutureTask<Resident>> residents =
+		new LinkedHashMap<String,FutureTask<Resident>>(16, 0.75f, true); // in access order
+	private long residentWeight;
+
+	private static class Resident {
+		Slimmer source;
+		long weight;
+	}
+
+	/**
+	 * @param rootFolder folder in which the <code>.props</code> files are found
+	 * @param heapBudget estimated number of bytes that the resident sources may use
+	 * @param listener listener to which loading and the served requests are reported
+	 */
+	public SlimmingServer(String rootFolder, long heapBudget, SlimmerListener listener) {
+		this.rootFolder = rootFolder;
+		this.heapBudget = heapBudget;
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets the store from which merged source ontologies are loaded, when possible.
+	 *
+	 * @param snapshots
+	 */
+	public void setSnapshotStore(SnapshotStore snapshots) {
+		this.snapshots = snapshots;
+	}
+
+	/**
+	 * Sets the loader of the imports of the source ontologies.
+	 *
+	 * @param imports
+	 */
+	public void setImportLoader(ImportLoader imports) {
+		this.imports = imports;
+	}
+
+	/**
+	 * Starts serving requests on the loopback address.
+	 *
+	 * @param port the port, or 0 for any free port
+	 * @param threads the number of requests that are served at the same time
+	 * @throws IOException
+	 */
+	public void start(int port, int threads) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/slim/", this::handleSlim);
+		server.createContext("/sources", this::handleSources);
+		executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		server.setExecutor(executor);
+		server.start();
+		listener.info("Serving slims of " + rootFolder + " on http://localhost:" + getPort() + "/");
+	}
+
+	/**
+	 * Returns the port on which requests are served.
+	 *
+	 * @return
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Stops serving requests.
+	 */
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void handleSlim(HttpExchange exchange) throws IOException {
+		String id = exchange.getRequestURI().getPath().substring("/slim/".length());
+		try {
+			if (!"POST".equals(exchange.getRequestMethod())) {
+				send(exchange, 405, "Use POST with the instructions of an .iris file as body");
+				return;
+			}
+			File props = getPropsFile(id);
+			if (props == null) {
+				send(exchange, 404, "Unknown source: " + id);
+				return;
+			}
+			OutputFormat format;
+			try {
+				format = getFormat(exchange);
+			} catch (IllegalArgumentException exception) {
+				send(exchange, 400, exception.getMessage());
+				return;
+			}
+			Configuration config = new Configuration();
+			try {
+				config.read(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8), listener);
+			} catch (Exception exception) {
+				send(exchange, 400, exception.getMessage());
+				return;
+			}
+
+			long start = System.nanoTime();
+			Slimmer slimmer = slim(getResident(id, props), config);
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			new SlimmingJob(rootFolder, props, SlimmerListener.NONE).save(slimmer, output, format);
+			exchange.getResponseHeaders().set("Content-Type", format.getMediaType());
+			exchange.sendResponseHeaders(200, output.size());
+			try (OutputStream body = exchange.getResponseBody()) {
+				output.writeTo(body);
+			}
+			listener.info("Slimmed " + id + " in " + (System.nanoTime() - start) / 1000000 + " ms");
+		} catch (Exception exception) {
+			listener.error("Slimming " + id + " failed", exception);
+			if (exchange.getResponseCode() == -1) send(exchange, 500, "Slimming failed: " + exception.getMessage());
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void handleSources(HttpExchange exchange) throws IOException {
+		try {
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				send(exchange, 405, "Use GET");
+				return;
+			}
+			File[] files = new File(rootFolder).listFiles((dir, name) -> name.toLowerCase().endsWith(".props"));
+			if (files == null) files = new File[0];
+			Arrays.sort(files);
+			StringBuilder list = new StringBuilder();
+			for (File file : files) {
+				String id = file.getName().substring(0, file.getName().length() - ".props".length());
+				list.append(id);
+				if (isResident(id)) list.append(" (loaded)");
+				list.append('\n');
+			}
+			send(exchange, 200, list.toString());
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private static void send(HttpExchange exchange, int status, String message) throws IOException {
+		byte[] bytes = (message == null ? "" : message).getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream body = exchange.getResponseBody()) {
+			body.write(bytes);
+		}
+	}
+
+	/**
+	 * Returns the format given by the <code>format</code> query parameter, or RDF/XML.
+	 */
+	private static OutputFormat getFormat(HttpExchange exchange) {
+		String query = exchange.getRequestURI().getQuery();
+		if (query == null) return OutputFormat.RDFXML;
+		for (String parameter : query.split("&")) {
+			if (parameter.startsWith("format=")) return OutputFormat.forName(parameter.substring("format=".length()));
+		}
+		return OutputFormat.RDFXML;
+	}
+
+	/**
+	 * Returns the <code>.props</code> file for the given id, or null if there is none. Only
+	 * plain file names are accepted, so that requests cannot reach outside the root folder.
+	 */
+	private File getPropsFile(String id) {
+		if (!id.matches("[A-Za-z0-9._-]+")) return null;
+		File props = new File(rootFolder, id + ".props");
+		return props.isFile() ? props : null;
+	}
+
+	/**
+	 * Slims a private copy of the resident source. The resident source and its hierarchy are
+	 * only read.
+	 */
+	private Slimmer slim(Resident resident, Configuration config) throws OWLOntologyCreationException {
+		Set<Instruction> irisToSave = config.getTreePartsToSave();
+		BitSet singleIRIs = resident.source.getHierarchy().explode(irisToSave, SlimmerListener.NONE);
+		Slimmer slimmer = resident.source.copy(SlimmerListener.NONE);
+		slimmer.apply(slimmer.plan(singleIRIs, Slimmer.getNewSuperClasses(irisToSave), config.getTreePartsToRemove()));
+		return slimmer;
+	}
+
+	/**
+	 * Returns true if the source with the given id is loaded and not evicted.
+	 *
+	 * @param id
+	 * @return
+	 */
+	boolean isResident(String id) {
+		synchronized (residents) {
+			FutureTask<Resident> task = residents.get(id);
+			return task != null && task.isDone() && getLoaded(task) != null;
+		}
+	}
+
+	private Resident getResident(String id, File props) throws Exception {
+		FutureTask<Resident> task;
+		synchronized (residents) {
+			task = residents.get(id);
+			if (task == null) {
+				task = new FutureTask<Resident>(() -> load(id, props));
+				residents.put(id, task);
+			}
+		}
+		task.run(); // only the first caller actually loads
+		try {
+			return task.get();
+		} catch (ExecutionException exception) {
+			synchronized (residents) {
+				residents.remove(id, task);
+			}
+			Throwable cause = exception.getCause();
+			if (cause instanceof Exception) throw (Exception)cause;
+			throw exception;
+		}
+	}
+
+	private Resident load(String id, File props) throws Exception {
+		SlimmingJob job = new SlimmingJob(rootFolder, props, listener);
+		job.setSnapshotStore(snapshots);
+		job.setImportLoader(imports);
+		Slimmer loaded = job.loadSource();
+
+		// a concurrent manager, so that the requests can read the source at the same time
+		OWLOntologyManager man = OWLManager.createConcurrentOWLOntologyManager();
+		Resident resident = new Resident();
+		resident.source = new Slimmer(man, man.copyOntology(loaded.getOntology(), OntologyCopy.DEEP), null, listener);
+		resident.source.getHierarchy(); // built now, so that requests only read it
+		resident.weight = resident.source.getOntology().getAxiomCount() * BYTES_PER_AXIOM;
+		listener.info("Loaded " + id + " (about " + resident.weight / (1024 * 1024) + " MB)");
+		synchronized (residents) {
+			residentWeight += resident.weight;
+			evict(id);
+		}
+		return resident;
+	}
+
+	/**
+	 * Evicts the least recently used sources, except the given one, until the resident
+	 * sources fit in the heap budget. Sources that are still loading are not evicted.
+	 */
+	private void evict(String loaded) {
+		Iterator<Map.Entry<String,FutureTask<Resident>>> entries = residents.entrySet().iterator();
+		while (residentWeight > heapBudget && entries.hasNext()) {
+			Map.Entry<String,FutureTask<Resident>> entry = entries.next();
+			if (entry.getKey().equals(loaded) || !entry.getValue().isDone()) continue;
+			Resident resident = getLoaded(entry.getValue());
+			entries.remove();
+			if (resident != null) {
+				residentWeight -= resident.weight;
+				listener.info("Evicted " + entry.getKey());
+			}
+		}
+	}
+
+	private static Resident getLoaded(FutureTask<Resident> task) {
+		try {
+			return task.get();
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException exception) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package com.github.enanomapper;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.formats.BinaryRDFDocumentFormat;
+import org.semanticweb.owlapi.io.FileDocumentSource;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLImportsDeclaration;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyID;
+import org.semanticweb.owlapi.model.OWLOntologyLoaderConfiguration;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.OWLOntologyStorageException;
+import org.semanticweb.owlapi.model.SetOntologyID;
+
+/**
+ * On-disk store of merged source ontologies. After a source ontology has been loaded and
+ * merged with its imports, the result is saved in the binary RDF format, which loads much
+ * faster than RDF/XML. Later runs load this snapshot and skip the RDF/XML parsing, the
+ * import resolution, and the merging.
+ *
+ * <p>Snapshots are named after the SHA-256 hash of the source file. A manifest next to each
+ * snapshot holds the {@link SourceFingerprint} of the source and its imports, and how every
+ * import declared in the import closure was resolved with the {@link ImportLoader}: the
+ * document it was read from, or that it was skipped, and the hash of that document. A
+ * snapshot is ignored, and later overwritten, as soon as the source or any local import file
+ * changes, an import that was missing can now be read, or an import is mapped to another
+ * document, for example by another mirror folder or catalog.
+ */
+public class SnapshotStore {
+
+	private File folder;
+
+	/**
+	 * @param folder the folder in which the snapshots are stored
+	 */
+	public SnapshotStore(File folder) {
+		this.folder = folder;
+		folder.mkdirs();
+	}
+
+	/**
+	 * Creates a {@link Slimmer} from the snapshot of the given source, if there is a
+	 * snapshot that is still current, for when the OWLAPI loads the imports itself.
+	 *
+	 * @param owlFile the source ontology
+	 * @param mergedOntologyIRI the IRI of the merged ontology
+	 * @param listener listener to which progress is reported
+	 * @return the Slimmer, or null if there is no current snapshot
+	 * @throws IOException
+	 * @throws OWLOntologyCreationException
+	 */
+	public Slimmer load(File owlFile, String mergedOntologyIRI, SlimmerListener listener) throws IOException, OWLOntologyCreationException {
+		return load(owlFile, mergedOntologyIRI, null, listener);
+	}
+
+	/**
+	 * Creates a {@link Slimmer} from the snapshot of the given source, if there is a
+	 * snapshot that is still current, and its imports are still resolved the same way.
+	 *
+	 * @param owlFile the source ontology
+	 * @param mergedOntologyIRI the IRI of the merged ontology
+	 * @param imports the loader that would load the imports, or null for the OWLAPI
+	 * @param listener listener to which progress is reported
+	 * @return the Slimmer, or null if there is no current snapshot
+	 * @throws IOException
+	 * @throws OWLOntologyCreationException
+	 */
+	public Slimmer load(File owlFile, String mergedOntologyIRI, ImportLoader imports, SlimmerListener listener) throws IOException, OWLOntologyCreationException {
+		String hash = SourceFingerprint.sha256(owlFile);
+		File snapshot = new File(folder, hash + ".brf");
+		File manifest = new File(folder, hash + ".properties");
+		if (!snapshot.exists() || !manifest.exists()) return null;
+
+		Properties props = new Properties();
+		try (InputStream stream = new FileInputStream(manifest)) {
+			props.load(stream);
+		}
+		SourceFingerprint fingerprint = SourceFingerprint.load(props);
+		if (fingerprint == null || !fingerprint.importsAreCurrent()) {
+			listener.info("Ignoring outdated snapshot: " + snapshot);
+			return null;
+		}
+		if (!resolutionIsCurrent(props, imports)) {
+			listener.info("Ignoring snapshot with differently resolved imports: " + snapshot);
+			return null;
+		}
+
+		listener.info("Loading snapshot: " + snapshot);
+		OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+		OWLOntologyLoaderConfiguration config = man.getOntologyLoaderConfiguration();
+		int count = Integer.parseInt(props.getProperty("declaredImports", "0"));
+		for (int i=0; i<count; i++) {
+			// the imports are part of the snapshot already
+			config = config.addIgnoredImport(IRI.create(props.getProperty("declaredImport." + i)));
+		}
+		OWLOntology onto = man.loadOntologyFromOntologyDocument(
+			new FileDocumentSource(snapshot, new BinaryRDFDocumentFormat()), config
+		);
+		if (mergedOntologyIRI != null) man.applyChange(new SetOntologyID(onto, IRI.create(mergedOntologyIRI)));
+		Slimmer slimmer = new Slimmer(man, onto, null, listener);
+		slimmer.setImportDocumentIRIs(fingerprint.getImportDocuments());
+		return slimmer;
+	}
+
+	/**
+	 * Stores a snapshot of the merged ontology of the given Slimmer, which must not have
+	 * been slimmed yet, for when the OWLAPI loaded the imports itself.
+	 *
+	 * @param owlFile the source ontology
+	 * @param slimmer
+	 * @param listener listener to which progress is reported
+	 * @throws IOException
+	 * @throws OWLOntologyStorageException
+	 */
+	public void save(File owlFile, Slimmer slimmer, SlimmerListener listener) throws IOException, OWLOntologyStorageException {
+		save(owlFile, slimmer, null, listener);
+	}
+
+	/**
+	 * Stores a snapshot of the merged ontology of the given Slimmer, which must not have
+	 * been slimmed yet.
+	 *
+	 * @param owlFile the source ontology
+	 * @param slimmer
+	 * @param imports the loader that loaded the imports, or null for the OWLAPI
+	 * @param listener listener to which progress is reported
+	 * @throws IOException
+	 * @throws OWLOntologyStorageException
+	 */
+	public void save(File owlFile, Slimmer slimmer, ImportLoader imports, SlimmerListener listener) throws IOException, OWLOntologyStorageException {
+		SourceFingerprint fingerprint = SourceFingerprint.of(owlFile, slimmer.getImportDocumentIRIs());
+		String hash = fingerprint.getSourceHash();
+		File snapshot = new File(folder, hash + ".brf");
+		File manifest = new File(folder, hash + ".properties");
+
+		// write to temporary files first, so that parallel jobs never see half a snapshot
+		File tmpSnapshot = File.createTempFile(hash, ".brf.tmp", folder);
+		File tmpManifest = File.createTempFile(hash, ".properties.tmp", folder);
+		try {
+			OWLOntology onto = slimmer.getOntology();
+			OWLOntologyManager man = slimmer.getManager();
+			OWLOntologyID id = onto.getOntologyID();
+			// the ontology annotations of an ontology with a relative IRI, such as the file name
+			// of the slim, do not survive the binary RDF format, so save it under an absolute one
+			boolean relative = id.getOntologyIRI().map(iri -> !iri.isAbsolute()).orElse(false);
+			if (relative) man.applyChange(new SetOntologyID(onto, IRI.create("urn:slimmer:snapshot:" + hash)));
+			try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(tmpSnapshot))) {
+				man.saveOntology(onto, new BinaryRDFDocumentFormat(), stream);
+			} finally {
+				if (relative) man.applyChange(new SetOntologyID(onto, id));
+			}
+			Properties props = new Properties();
+			fingerprint.store(props);
+			int i = 0;
+			for (OWLImportsDeclaration declaration : onto.getImportsDeclarations()) {
+				props.setProperty("declaredImport." + (i++), declaration.getIRI().toString());
+			}
+			props.setProperty("declaredImports", "" + i);
+			i = 0;
+			for (Map.Entry<String,String> resolved : resolve(slimmer.getDeclaredImports(), imports).entrySet()) {
+				props.setProperty("resolvedImport." + i, resolved.getKey());
+				props.setProperty("resolvedImport." + (i++) + ".document", resolved.getValue());
+			}
+			props.setProperty("resolvedImports", "" + i);
+			try (OutputStream stream = new FileOutputStream(tmpManifest)) {
+				props.store(stream, "Slimmer snapshot of " + owlFile.getName());
+			}
+			Files.move(tmpSnapshot.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			Files.move(tmpManifest.toPath(), manifest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			listener.info("Saved snapshot: " + snapshot);
+		} finally {
+			tmpSnapshot.delete();
+			tmpManifest.delete();
+		}
+	}
+
+	/**
+	 * Returns how each of the given imports is resolved with the given loader, by import IRI:
+	 * the document it is read from, or "skipped" if it is not in the mirror folder, followed
+	 * by the hash of that document (see {@link SourceFingerprint}).
+	 */
+	private static Map<String,String> resolve(Collection<IRI> declaredImports, ImportLoader imports) throws IOException {
+		Map<String,String> resolved = new TreeMap<String,String>();
+		for (IRI iri : declaredImports) {
+			IRI document = imports != null ? imports.getDocumentIRI(iri) : iri;
+			resolved.put(iri.toString(), document == null
+				? "skipped"
+				: document + " " + SourceFingerprint.hashDocument(document.toString()));
+		}
+		return resolved;
+	}
+
+	/**
+	 * Checks whether the imports recorded in the given manifest are still resolved to the
+	 * same documents, with the same content.
+	 */
+	private static boolean resolutionIsCurrent(Properties props, ImportLoader imports) throws IOException {
+		if (props.getProperty("resolvedImports") == null) return false; // written before imports were recorded
+		Map<String,String> recorded = new TreeMap<String,String>();
+		List<IRI> declaredImports = new ArrayList<IRI>();
+		int count = Integer.parseInt(props.getProperty("resolvedImports"));
+		for (int i=0; i<count; i++) {
+			String iri = props.getProperty("resolvedImport." + i);
+			recorded.put(iri, props.getProperty("resolvedImport." + i + ".document"));
+			declaredImports.add(IRI.create(iri));
+		}
+		return recorded.equals(resolve(declaredImports, imports));
+	}
+}
@@ -0,0 +1,187 @@
+package com.github.enanomapper;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.semanticweb.owlapi.model.IRI;
+
+/**
+ * Fingerprint of a source ontology file and the documents of its imports. Local files are
+ * fingerprinted by the SHA-256 hash of their content; imports that are not local files
+ * only by their document IRI, because their content cannot be checked without fetching
+ * them. The fingerprint can be stored as properties next to cached results and later
+ * be checked against the current files.
+ */
+public class SourceFingerprint {
+
+	private String sourceHash;
+	private List<String> importDocuments = new ArrayList<String>();
+	private List<String> importHashes = new ArrayList<String>();
+
+	private SourceFingerprint() {}
+
+	/**
+	 * Computes the fingerprint of the given source file and import documents.
+	 *
+	 * @param source
+	 * @param importDocuments
+	 * @return
+	 * @throws IOException
+	 */
+	public static SourceFingerprint of(File source, Collection<IRI> importDocuments) throws IOException {
+		SourceFingerprint fingerprint = new SourceFingerprint();
+		fingerprint.sourceHash = sha256(source);
+		List<String> documents = new ArrayList<String>();
+		for (IRI document : importDocuments) documents.add(document.toString());
+		Collections.sort(documents);
+		for (String document : documents) {
+			fingerprint.importDocuments.add(document);
+			fingerprint.importHashes.add(hashDocument(document));
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * Reads a fingerprint stored earlier with {@link #store(Properties)}.
+	 *
+	 * @param props
+	 * @return the fingerprint, or null if the properties do not hold one
+	 */
+	public static SourceFingerprint load(Properties props) {
+		if (props.getProperty("source.hash") == null) return null;
+		SourceFingerprint fingerprint = new SourceFingerprint();
+		fingerprint.sourceHash = props.getProperty("source.hash");
+		int count = Integer.parseInt(props.getProperty("imports", "0"));
+		for (int i=0; i<count; i++) {
+			fingerprint.importDocuments.add(props.getProperty("import." + i + ".document"));
+			fingerprint.importHashes.add(props.getProperty("import." + i + ".hash"));
+		}
+		return fingerprint;
+	}
+
+	public void store(Properties props) {
+		props.setProperty("source.hash", sourceHash);
+		props.setProperty("imports", "" + importDocuments.size());
+		for (int i=0; i<importDocuments.size(); i++) {
+			props.setProperty("import." + i + ".document", importDocuments.get(i));
+			props.setProperty("import." + i + ".hash", importHashes.get(i));
+		}
+	}
+
+	public String getSourceHash() {
+		return sourceHash;
+	}
+
+	public List<IRI> getImportDocuments() {
+		List<IRI> documents = new ArrayList<IRI>();
+		for (String document : importDocuments) documents.add(IRI.create(document));
+		return documents;
+	}
+
+	/**
+	 * Checks whether the given source file and the import documents recorded in this
+	 * fingerprint still have the same content.
+	 *
+	 * @param source
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean isCurrent(File source) throws IOException {
+		return sourceHash.equals(sha256(source)) && importsAreCurrent();
+	}
+
+	/**
+	 * Checks whether the import documents recorded in this fingerprint still have the
+	 * same content.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean importsAreCurrent() throws IOException {
+		for (int i=0; i<importDocuments.size(); i++) {
+			if (!importHashes.get(i).equals(hashDocument(importDocuments.get(i)))) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a single hash over the source and all import documents.
+	 *
+	 * @return
+	 */
+	public String digest() {
+		StringBuilder content = new StringBuilder(sourceHash);
+		for (int i=0; i<importDocuments.size(); i++) {
+			content.append('\n').append(importDocuments.get(i)).append(' ').append(importHashes.get(i));
+		}
+		return sha256(content.toString());
+	}
+
+	/**
+	 * Returns the SHA-256 hash of the given document if it is a local file, "missing" if that
+	 * file does not exist, or else the hash of the document IRI itself.
+	 *
+	 * @param document
+	 * @return
+	 * @throws IOException
+	 */
+	static String hashDocument(String document) throws IOException {
+		if (document.startsWith("file:")) {
+			File file = new File(IRI.create(document).toURI());
+			if (!file.exists()) return "missing";
+			return sha256(file);
+		}
+		return "iri:" + sha256(document);
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException exception) {
+			throw new IllegalStateException(exception); // SHA-256 is always supported
+		}
+	}
+
+	/**
+	 * Returns the hexadecimal SHA-256 hash of the content of the given file.
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static String sha256(File file) throws IOException {
+		MessageDigest digest = sha256();
+		byte[] buffer = new byte[65536];
+		try (InputStream stream = new FileInputStream(file)) {
+			int read;
+			while ((read = stream.read(buffer)) != -1) digest.update(buffer, 0, read);
+		}
+		return hex(digest.digest());
+	}
+
+	/**
+	 * Returns the hexadecimal SHA-256 hash of the UTF-8 bytes of the given string.
+	 *
+	 * @param content
+	 * @return
+	 */
+	public static String sha256(String content) {
+		return hex(sha256().digest(content.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static String hex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) hex.append(String.format("%02x", b));
+		return hex.toString();
+	}
+}
@@ -0,0 +1,191 @@
+package com.github.enanomapper;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.tukaani.xz.XZInputStream;
+
+/**
+ * Opens source ontology files, which may be compressed with gzip or xz, or be the single
+ * ontology in a zip archive. The compression is recognized by the first bytes of the file,
+ * not by its extension. Large uncompressed files are memory-mapped instead of read through a
+ * buffer, so that the parser reads straight from the page cache.
+ */
+public class SourceInput {
+
+	/** the extensions under which a compressed copy of a source file is looked for */
+	static final String[] COMPRESSED_EXTENSIONS = {".gz", ".xz", ".zip"};
+
+	/** files at least this large are memory-mapped, when not compressed */
+	static final long MAP_THRESHOLD = 64L * 1024 * 1024;
+
+	/** the size of the regions of a file that are mapped at a time */
+	static final int MAP_REGION = 1 << 30;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final byte[] GZIP_MAGIC = {0x1f, (byte)0x8b};
+	private static final byte[] XZ_MAGIC = {(byte)0xfd, '7', 'z', 'X', 'Z', 0};
+	private static final byte[] ZIP_MAGIC = {'P', 'K', 3, 4};
+	private static final String[] ONTOLOGY_EXTENSIONS = {".owl", ".rdf", ".xml", ".ttl", ".nt", ".ofn", ".owx", ".obo"};
+
+	private SourceInput() {}
+
+	/**
+	 * Returns the given file if it exists, or else a compressed copy of it, with one of the
+	 * {@link #COMPRESSED_EXTENSIONS} appended to its name, if there is one.
+	 *
+	 * @param file
+	 * @return
+	 */
+	public static File find(File file) {
+		if (file.exists()) return file;
+		for (String extension : COMPRESSED_EXTENSIONS) {
+			File compressed = new File(file.getPath() + extension);
+			if (compressed.exists()) return compressed;
+		}
+		return file;
+	}
+
+	/**
+	 * Opens the given file for reading, decompressing it if needed.
+	 *
+	 * @param file
+	 * @return a stream with the uncompressed ontology
+	 * @throws IOException
+	 */
+	public static InputStream open(File file) throws IOException {
+		byte[] magic = new byte[6];
+		int length;
+		try (InputStream stream = Files.newInputStream(file.toPath())) {
+			length = stream.read(magic);
+		}
+		if (startsWith(magic, length, GZIP_MAGIC)) {
+			return new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE), BUFFER_SIZE);
+		}
+		if (startsWith(magic, length, XZ_MAGIC)) {
+			return new BufferedInputStream(new XZInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE)), BUFFER_SIZE);
+		}
+		if (startsWith(magic, length, ZIP_MAGIC)) {
+			return openEntry(file);
+		}
+		if (file.length() >= MAP_THRESHOLD) {
+			return new MappedInputStream(file);
+		}
+		return new BufferedInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE);
+	}
+
+	private static boolean startsWith(byte[] bytes, int length, byte[] prefix) {
+		if (length < prefix.length) return false;
+		for (int i=0; i<prefix.length; i++) {
+			if (bytes[i] != prefix[i]) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Opens the ontology in a zip archive: the first entry with the extension of an ontology
+	 * file, or else the first entry that is not a folder.
+	 */
+	private static InputStream openEntry(File file) throws IOException {
+		String name = null;
+		try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE))) {
+			for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+				if (entry.isDirectory()) continue;
+				if (name == null) name = entry.getName();
+				if (isOntology(entry.getName())) {
+					name = entry.getName();
+					break;
+				}
+			}
+		}
+		if (name == null) throw new IOException("No ontology found in " + file);
+		ZipInputStream zip = new ZipInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE));
+		for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+			if (entry.getName().equals(name)) return new BufferedInputStream(zip, BUFFER_SIZE);
+		}
+		zip.close();
+		throw new IOException("No ontology found in " + file);
+	}
+
+	private static boolean isOntology(String name) {
+		String lowerCase = name.toLowerCase();
+		for (String extension : ONTOLOGY_EXTENSIONS) {
+			if (lowerCase.endsWith(extension)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Reads a file through memory-mapped regions of at most {@link SourceInput#MAP_REGION} bytes,
+	 * so that files larger than 2 GB can be read too.
+	 */
+	static class MappedInputStream extends InputStream {
+
+		private final FileChannel channel;
+		private final long size;
+		private long position;
+		private ByteBuffer region;
+
+		MappedInputStream(File file) throws IOException {
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			size = channel.size();
+			region = ByteBuffer.allocate(0);
+		}
+
+		private boolean next() throws IOException {
+			if (region.hasRemaining()) return true;
+			if (position >= size) return false;
+			long length = Math.min(MAP_REGION, size - position);
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+			position += length;
+			region = mapped;
+			return true;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!next()) return -1;
+			return region.get() & 0xff;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			if (length == 0) return 0;
+			if (!next()) return -1;
+			int count = Math.min(length, region.remaining());
+			region.get(bytes, offset, count);
+			return count;
+		}
+
+		@Override
+		public long skip(long count) throws IOException {
+			long skipped = 0;
+			while (skipped < count && next()) {
+				int step = (int)Math.min(count - skipped, region.remaining());
+				region.position(region.position() + step);
+				skipped += step;
+			}
+			return skipped;
+		}
+
+		@Override
+		public int available() {
+			return region.remaining();
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,449 @@
+package com.github.enanomapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.OWL;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandler;
+import org.eclipse.rdf4j.rio.RDFParser;
+import org.eclipse.rdf4j.rio.Rio;
+import org.eclipse.rdf4j.rio.helpers.AbstractRDFHandler;
+import org.eclipse.rdf4j.rio.helpers.BasicParserSettings;
+import org.eclipse.rdf4j.rio.helpers.RDFHandlerWrapper;
+
+/**
+ * Slimming engine for source ontologies that are too large to be loaded in the OWLAPI
+ * model. It reads the RDF/XML source, which may be compressed (see {@link SourceInput}),
+ * twice and never holds more than the class hierarchy, the property lists and the links
+ * between blank nodes in memory:
+ * <ol>
+ *   <li>the first pass collects the classes, properties, and <code>rdfs:subClassOf</code>
+ *       links between named classes, and how blank nodes refer to each other and to
+ *       named entities</li>
+ *   <li>from these, the {@link Configuration} instructions are turned into the set of
+ *       entities to keep, in the same way as {@link Slimmer#removeAllExcept(Set)} and
+ *       {@link Slimmer#removeAll(Set)} do</li>
+ *   <li>the second pass writes only those triples that do not refer to removed classes
+ *       or properties, and drops the blank node structures, like class expressions and
+ *       axiom annotations, that refer to them</li>
+ * </ol>
+ *
+ * <p>Like the {@link SlimmingJob}, it also removes the <code>owl:imports</code>, applies
+ * the {@link AnnotationRules} to the annotations of classes, sets the ontology IRI, and adds the
+ * provenance annotations. Unlike the OWLAPI route, imports are not loaded and merged: only
+ * the content of the source file itself is slimmed.
+ */
+public class StreamingSlimmer {
+
+	private static final String[] BUILTIN_ANNOTATION_PROPERTIES = {
+		RDFS.LABEL.stringValue(), RDFS.COMMENT.stringValue(), RDFS.SEEALSO.stringValue(),
+		RDFS.ISDEFINEDBY.stringValue(), OWL.VERSIONINFO.stringValue(), OWL.DEPRECATED.stringValue(),
+		OWL.PRIORVERSION.stringValue(), OWL.BACKWARDCOMPATIBLEWITH.stringValue(),
+		OWL.INCOMPATIBLEWITH.stringValue()
+	};
+
+	private static final String[] OBJECT_PROPERTY_TYPES = {
+		OWL.OBJECTPROPERTY.stringValue(), OWL.TRANSITIVEPROPERTY.stringValue(),
+		OWL.SYMMETRICPROPERTY.stringValue(), OWL.ASYMMETRICPROPERTY.stringValue(),
+		OWL.REFLEXIVEPROPERTY.stringValue(), OWL.IRREFLEXIVEPROPERTY.stringValue(),
+		OWL.INVERSEFUNCTIONALPROPERTY.stringValue()
+	};
+
+	private File owlFile;
+	private SlimmerListener listener;
+	private AnnotationRules annotationRules = AnnotationRules.defaults();
+
+	// collected in the first pass, with all IRIs in the dictionary of the hierarchy
+	private ClassHierarchy hierarchy;
+	private IRIDictionary dictionary;
+	private BitSet objectProperties = new BitSet();
+	private BitSet dataProperties = new BitSet();
+	private BitSet annotationProperties = new BitSet();
+	private String ontologyIRI;
+
+	// the blank node graph: for every blank node, the terms of its own triples (predicate
+	// and IRI object pairs), its blank node parents and children, and the triples with an
+	// IRI subject that point to it (subject and predicate pairs)
+	private Map<String,Integer> bnodeIds = new HashMap<String,Integer>();
+	private List<IntList> bnodeTerms = new ArrayList<IntList>();
+	private List<IntList> bnodeParents = new ArrayList<IntList>();
+	private List<IntList> bnodeChildren = new ArrayList<IntList>();
+	private List<IntList> bnodeOwners = new ArrayList<IntList>();
+
+	// computed between the passes
+	private BitSet kept;
+	private BitSet removedNewSuperClasses;
+	private Map<String,String> newSuperClasses;
+	private boolean[] droppedBNodes;
+
+	/**
+	 * @param owlFile the RDF/XML source ontology
+	 * @param listener listener to which progress is reported
+	 */
+	public StreamingSlimmer(File owlFile, SlimmerListener listener) {
+		this.owlFile = owlFile;
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets the rules for rewriting the annotations of the classes, instead of the default ones.
+	 *
+	 * @param annotationRules
+	 */
+	public void setAnnotationRules(AnnotationRules annotationRules) {
+		this.annotationRules = annotationRules;
+	}
+
+	/**
+	 * Slims the source ontology according to the given configuration and writes the
+	 * result as RDF/XML.
+	 *
+	 * @param config what to keep and remove
+	 * @param output stream to which the slimmed ontology is written
+	 * @param slimmedIRI the IRI of the slimmed ontology
+	 * @param originalOWL the IRI of the source ontology, for the provenance
+	 * @throws IOException
+	 */
+	public void slim(Configuration config, OutputStream output, String slimmedIRI, String originalOWL) throws IOException {
+		slim(config, Collections.singletonMap(OutputFormat.RDFXML, output), slimmedIRI, originalOWL);
+	}
+
+	/**
+	 * Slims the source ontology according to the given configuration and writes the
+	 * result in several formats at once, during the same second pass.
+	 *
+	 * @param config what to keep and remove
+	 * @param outputs streams to which the slimmed ontology is written, per format
+	 * @param slimmedIRI the IRI of the slimmed ontology
+	 * @param originalOWL the IRI of the source ontology, for the provenance
+	 * @throws IOException
+	 * @throws IllegalArgumentException if one of the formats cannot be written as triples
+	 */
+	public void slim(Configuration config, Map<OutputFormat,OutputStream> outputs, String slimmedIRI, String originalOWL) throws IOException {
+		List<RDFHandler> writers = new ArrayList<RDFHandler>(outputs.size());
+		for (Map.Entry<OutputFormat,OutputStream> output : outputs.entrySet()) {
+			if (output.getKey().getRioFormat() == null) {
+				throw new IllegalArgumentException("The streaming engine cannot write " + output.getKey().getName());
+			}
+			writers.add(Rio.createWriter(output.getKey().getRioFormat(), output.getValue()));
+		}
+
+		listener.phaseStarted("pass 1");
+		listener.info("Streaming pass 1: " + owlFile.getName());
+		hierarchy = new ClassHierarchy();
+		dictionary = hierarchy.getDictionary();
+		for (String property : BUILTIN_ANNOTATION_PROPERTIES) annotationProperties.set(dictionary.intern(property));
+		parse(new FirstPass());
+		hierarchy.build();
+		listener.count("classes", hierarchy.size());
+		listener.count("object properties", objectProperties.cardinality());
+		listener.count("data properties", dataProperties.cardinality());
+		listener.count("blank nodes", bnodeIds.size());
+		listener.phaseFinished("pass 1");
+
+		// compute the keep set like removeAllExcept() and removeAll() do
+		newSuperClasses = new HashMap<String,String>();
+		for (Instruction instruction : config.getTreePartsToSave()) {
+			if (instruction.getNewSuperClass() != null) {
+				newSuperClasses.put(instruction.getUriString(), instruction.getNewSuperClass());
+			}
+		}
+		kept = hierarchy.explode(config.getTreePartsToSave(), listener);
+		ClassHierarchy slimmed = hierarchy.derive(kept, newSuperClasses);
+		BitSet removed = slimmed.explode(config.getTreePartsToRemove(), listener);
+		kept.andNot(removed);
+		// new super classes that are not in the source can be removed too
+		removedNewSuperClasses = new BitSet();
+		for (String superClass : newSuperClasses.values()) {
+			int id = dictionary.getId(superClass);
+			if (id >= 0 && removed.get(id)) removedNewSuperClasses.set(id);
+		}
+		dropBNodes();
+
+		int keptClasses = 0;
+		for (int id = kept.nextSetBit(0); id >= 0; id = kept.nextSetBit(id + 1)) {
+			if (hierarchy.contains(id)) keptClasses++;
+		}
+		listener.count("kept classes", keptClasses);
+		listener.phaseStarted("pass 2");
+		listener.info("Streaming pass 2: " + owlFile.getName());
+		RDFHandler writer = writers.size() == 1 ? writers.get(0) : new RDFHandlerWrapper(writers.toArray(new RDFHandler[0]));
+		SecondPass secondPass = new SecondPass(writer, slimmedIRI, originalOWL);
+		parse(secondPass);
+		listener.count("kept triples", secondPass.written);
+		listener.count("dropped triples", secondPass.dropped);
+		listener.phaseFinished("pass 2");
+	}
+
+	private void parse(RDFHandler handler) throws IOException {
+		RDFParser parser = Rio.createParser(RDFFormat.RDFXML, new CountingValueFactory());
+		parser.getParserConfig().set(BasicParserSettings.PRESERVE_BNODE_IDS, true);
+		parser.setRDFHandler(handler);
+		try (InputStream stream = SourceInput.open(owlFile)) {
+			parser.parse(stream, owlFile.toURI().toString());
+		}
+	}
+
+	private boolean isEntity(int id) {
+		return hierarchy.contains(id) || objectProperties.get(id) || dataProperties.get(id);
+	}
+
+	private boolean isRemoved(int id) {
+		if (isEntity(id)) return !kept.get(id);
+		return removedNewSuperClasses.get(id);
+	}
+
+	private boolean isAnnotationProperty(String iri) {
+		int id = dictionary.getId(iri);
+		return id >= 0 && annotationProperties.get(id);
+	}
+
+	private boolean isRemoved(String iri) {
+		int id = dictionary.getId(iri);
+		return id >= 0 && isRemoved(id);
+	}
+
+	/**
+	 * A blank node is tainted when one of its triples refers to a removed entity, or to a
+	 * tainted blank node: the class expression or axiom it is part of is removed. The blank
+	 * nodes below a removed triple are dropped too.
+	 */
+	private void dropBNodes() {
+		int count = bnodeIds.size();
+		droppedBNodes = new boolean[count];
+		BitSet removedTerms = new BitSet(dictionary.size());
+		for (int i=0; i<dictionary.size(); i++) {
+			if (isRemoved(i)) removedTerms.set(i);
+		}
+		Deque<Integer> queue = new ArrayDeque<Integer>();
+		for (int b=0; b<count; b++) {
+			IntList refs = bnodeTerms.get(b);
+			for (int i=0; i<refs.size; i+=2) {
+				int predicate = refs.data[i];
+				int object = refs.data[i+1];
+				if (removedTerms.get(predicate) || (object != -1 && removedTerms.get(object) && !annotationProperties.get(predicate))) {
+					droppedBNodes[b] = true;
+					queue.add(b);
+					break;
+				}
+			}
+		}
+		// taint propagates up to the enclosing blank nodes
+		while (!queue.isEmpty()) {
+			int b = queue.poll();
+			IntList parents = bnodeParents.get(b);
+			for (int i=0; i<parents.size; i++) {
+				if (!droppedBNodes[parents.data[i]]) {
+					droppedBNodes[parents.data[i]] = true;
+					queue.add(parents.data[i]);
+				}
+			}
+		}
+		// removal propagates down to the blank nodes below removed triples
+		for (int b=0; b<count; b++) {
+			IntList owners = bnodeOwners.get(b);
+			for (int i=0; i<owners.size && !droppedBNodes[b]; i+=2) {
+				if (removedTerms.get(owners.data[i]) || removedTerms.get(owners.data[i+1])) droppedBNodes[b] = true;
+			}
+			if (droppedBNodes[b]) queue.add(b);
+		}
+		while (!queue.isEmpty()) {
+			int b = queue.poll();
+			IntList children = bnodeChildren.get(b);
+			for (int i=0; i<children.size; i++) {
+				if (!droppedBNodes[children.data[i]]) {
+					droppedBNodes[children.data[i]] = true;
+					queue.add(children.data[i]);
+				}
+			}
+		}
+	}
+
+	private int bnode(BNode node) {
+		Integer id = bnodeIds.get(node.getID());
+		if (id == null) {
+			id = bnodeIds.size();
+			bnodeIds.put(node.getID(), id);
+			bnodeTerms.add(new IntList());
+			bnodeParents.add(new IntList());
+			bnodeChildren.add(new IntList());
+			bnodeOwners.add(new IntList());
+		}
+		return id;
+	}
+
+	private class FirstPass extends AbstractRDFHandler {
+		@Override
+		public void handleStatement(Statement statement) {
+			Resource subject = statement.getSubject();
+			String predicate = statement.getPredicate().stringValue();
+			Value object = statement.getObject();
+			if (subject instanceof IRI) {
+				String subjectIRI = subject.stringValue();
+				if (predicate.equals(RDF.TYPE.stringValue()) && object instanceof IRI) {
+					String type = object.stringValue();
+					if (type.equals(OWL.CLASS.stringValue())) hierarchy.addClass(subjectIRI);
+					else if (Arrays.asList(OBJECT_PROPERTY_TYPES).contains(type)) objectProperties.set(dictionary.intern(subjectIRI));
+					else if (type.equals(OWL.DATATYPEPROPERTY.stringValue())) dataProperties.set(dictionary.intern(subjectIRI));
+					else if (type.equals(OWL.ANNOTATIONPROPERTY.stringValue())) annotationProperties.set(dictionary.intern(subjectIRI));
+					else if (type.equals(OWL.ONTOLOGY.stringValue()) && ontologyIRI == null) ontologyIRI = subjectIRI;
+				} else if (predicate.equals(RDFS.SUBCLASSOF.stringValue()) && object instanceof IRI) {
+					hierarchy.addSubClassOf(subjectIRI, object.stringValue());
+				}
+				if (object instanceof BNode) {
+					IntList owners = bnodeOwners.get(bnode((BNode)object));
+					owners.add(dictionary.intern(subjectIRI));
+					owners.add(dictionary.intern(predicate));
+				}
+			} else if (subject instanceof BNode) {
+				int b = bnode((BNode)subject);
+				IntList refs = bnodeTerms.get(b);
+				refs.add(dictionary.intern(predicate));
+				refs.add(object instanceof IRI ? dictionary.intern(object.stringValue()) : -1);
+				if (object instanceof BNode) {
+					int child = bnode((BNode)object);
+					bnodeChildren.get(b).add(child);
+					bnodeParents.get(child).add(b);
+				}
+			}
+		}
+	}
+
+	private class SecondPass extends AbstractRDFHandler {
+
+		private final SimpleValueFactory factory = SimpleValueFactory.getInstance();
+		private final RDFHandler writer;
+		private final IRI ontology;
+		private final String originalOWL;
+		long written = 0;
+		long dropped = 0;
+
+		SecondPass(RDFHandler writer, String slimmedIRI, String originalOWL) {
+			this.writer = writer;
+			this.ontology = factory.createIRI(slimmedIRI != null ? slimmedIRI : ontologyIRI);
+			this.originalOWL = originalOWL;
+		}
+
+		@Override
+		public void startRDF() {
+			writer.startRDF();
+			writer.handleNamespace("ncicp", Slimmer.NCICP);
+		}
+
+		@Override
+		public void handleNamespace(String prefix, String uri) {
+			writer.handleNamespace(prefix, uri);
+		}
+
+		@Override
+		public void handleStatement(Statement statement) {
+			Resource subject = statement.getSubject();
+			IRI predicate = statement.getPredicate();
+			Value object = statement.getObject();
+			String predicateIRI = predicate.stringValue();
+
+			boolean keep = !isRemoved(predicateIRI);
+			if (keep && subject instanceof IRI) {
+				String subjectIRI = subject.stringValue();
+				if (subjectIRI.equals(ontologyIRI)) {
+					if (predicate.equals(OWL.IMPORTS) || predicate.equals(OWL.VERSIONIRI)) keep = false;
+					subject = ontology;
+				} else if (isRemoved(subjectIRI)) {
+					keep = false;
+				} else if (hierarchy.contains(subjectIRI)) {
+					if (object instanceof Literal && !annotationRules.isLanguageKept(((Literal)object).getLanguage().orElse(null))) {
+						keep = false;
+					} else {
+						for (String target : annotationRules.getCopies(predicateIRI)) emit(subject, factory.createIRI(target), object);
+						if (annotationRules.isDropped(predicateIRI)) keep = false;
+					}
+				}
+			} else if (keep && subject instanceof BNode) {
+				keep = !droppedBNodes[bnodeIds.get(((BNode)subject).getID())];
+			}
+			if (keep && object instanceof IRI) {
+				keep = !isRemoved(object.stringValue()) || isAnnotationProperty(predicateIRI);
+			} else if (keep && object instanceof BNode) {
+				keep = !droppedBNodes[bnodeIds.get(((BNode)object).getID())];
+			}
+			if (keep) emit(subject, predicate, object);
+			else dropped++;
+		}
+
+		@Override
+		public void endRDF() {
+			// new super classes
+			IRI owlClass = OWL.CLASS;
+			for (Map.Entry<String,String> entry : newSuperClasses.entrySet()) {
+				if (!hierarchy.contains(entry.getKey()) || isRemoved(entry.getKey()) || isRemoved(entry.getValue())) continue;
+				IRI superClass = factory.createIRI(entry.getValue());
+				if (!hierarchy.contains(entry.getValue())) emit(superClass, RDF.TYPE, owlClass);
+				emit(factory.createIRI(entry.getKey()), RDFS.SUBCLASSOF, superClass);
+			}
+			// provenance
+			if (ontologyIRI == null) emit(ontology, RDF.TYPE, OWL.ONTOLOGY);
+			emit(ontology, OWL.VERSIONINFO, factory.createLiteral(Slimmer.VERSION_INFO));
+			emit(ontology, factory.createIRI(Slimmer.PAV_IMPORTED_FROM), factory.createLiteral(originalOWL));
+			emit(ontology, factory.createIRI(Slimmer.AUTO_GENERATED_BY), factory.createLiteral("Slimmer"));
+			emit(ontology, factory.createIRI(Slimmer.GENERATION_DATE),
+				factory.createLiteral(new SimpleDateFormat(Slimmer.DATE_FORMAT).format(new Date())));
+			writer.endRDF();
+		}
+
+		private void emit(Resource subject, IRI predicate, Value object) {
+			if (subject instanceof BNode) subject = factory.createBNode("b" + bnodeIds.get(((BNode)subject).getID()));
+			if (object instanceof BNode) object = factory.createBNode("b" + bnodeIds.get(((BNode)object).getID()));
+			writer.handleStatement(factory.createStatement(subject, predicate, object));
+			written++;
+		}
+	}
+
+	/**
+	 * Value factory that numbers anonymous blank nodes in parse order, so that both passes
+	 * see the same blank node identifiers.
+	 */
+	@SuppressWarnings("serial")
+	private static class CountingValueFactory extends SimpleValueFactory {
+		private long count = 0;
+
+		@Override
+		public BNode createBNode() {
+			// '#' cannot occur in rdf:nodeID values, so these never clash with them
+			return createBNode("anon#" + (count++));
+		}
+	}
+
+	private static class IntList {
+		int[] data = new int[4];
+		int size = 0;
+
+		void add(int value) {
+			if (size == data.length) data = Arrays.copyOf(data, size * 2);
+			data[size++] = value;
+		}
+	}
+}
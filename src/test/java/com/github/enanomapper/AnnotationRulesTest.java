@@ -0,0 +1,150 @@
+package com.github.enanomapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.formats.RDFXMLDocumentFormat;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAnnotationAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+public class AnnotationRulesTest {
+
+	private static final String EX = "http://example.org/";
+	private static final String IAO_DEFINITION = "http://purl.obolibrary.org/obo/IAO_0000115";
+	private static final String DESCRIPTION = "http://purl.org/dc/elements/1.1/description";
+	private static final String NCIT_DEFINITION = "http://ncicb.nci.nih.gov/xml/owl/EVS/Thesaurus.owl#P97";
+	private static final String NPO_FULL_SYN = "http://purl.bioontology.org/ontology/npo#FULL_SYN";
+	private static final String LABEL = "http://www.w3.org/2000/01/rdf-schema#label";
+	private static final String PREF_LABEL = "http://www.w3.org/2004/02/skos/core#prefLabel";
+
+	@TempDir
+	File folder;
+
+	private OWLOntology ontology() throws Exception {
+		OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+		OWLDataFactory factory = man.getOWLDataFactory();
+		OWLOntology onto = man.createOntology(IRI.create(EX + "onto"));
+		for (String name : new String[] {"A", "B"}) {
+			OWLClass clazz = factory.getOWLClass(IRI.create(EX + name));
+			man.addAxiom(onto, factory.getOWLDeclarationAxiom(clazz));
+			annotate(onto, name, DESCRIPTION, factory.getOWLLiteral("description of " + name, "en"));
+			annotate(onto, name, NCIT_DEFINITION, factory.getOWLLiteral("definition of " + name));
+			annotate(onto, name, NPO_FULL_SYN, factory.getOWLLiteral("synonym of " + name));
+			annotate(onto, name, LABEL, factory.getOWLLiteral(name, "en"));
+			annotate(onto, name, LABEL, factory.getOWLLiteral(name + " (de)", "de"));
+		}
+		return onto;
+	}
+
+	private void annotate(OWLOntology onto, String name, String property, OWLLiteral value) {
+		OWLDataFactory factory = onto.getOWLOntologyManager().getOWLDataFactory();
+		onto.getOWLOntologyManager().addAxiom(onto, factory.getOWLAnnotationAssertionAxiom(
+			factory.getOWLAnnotationProperty(IRI.create(property)), IRI.create(EX + name), value));
+	}
+
+	private Set<String> values(OWLOntology onto, String name, String property) {
+		return onto.getAnnotationAssertionAxioms(IRI.create(EX + name)).stream()
+			.filter(axiom -> axiom.getProperty().getIRI().toString().equals(property))
+			.map(OWLAnnotationAssertionAxiom::getValue)
+			.map(value -> value.asLiteral().get().getLiteral())
+			.collect(Collectors.toSet());
+	}
+
+	private OWLOntology rewrite(AnnotationRules rules, boolean removeB) throws Exception {
+		OWLOntology onto = ontology();
+		ChangePlan plan = new ChangePlan(onto.getOWLOntologyManager());
+		if (removeB) plan.entityRemoved(onto.getOWLOntologyManager().getOWLDataFactory().getOWLClass(IRI.create(EX + "B")));
+		rules.plan(onto, plan);
+		plan.apply();
+		return onto;
+	}
+
+	@Test
+	public void testDefaults() throws Exception {
+		OWLOntology onto = rewrite(AnnotationRules.defaults(), true);
+		assertEquals(2, values(onto, "A", IAO_DEFINITION).size());
+		assertTrue(values(onto, "A", IAO_DEFINITION).contains("description of A"));
+		assertEquals(1, values(onto, "A", DESCRIPTION).size());
+		assertTrue(values(onto, "A", NPO_FULL_SYN).isEmpty());
+		assertEquals(2, values(onto, "A", LABEL).size());
+		// classes that are removed are not rewritten
+		assertTrue(values(onto, "B", IAO_DEFINITION).isEmpty());
+		assertEquals(1, values(onto, "B", NPO_FULL_SYN).size());
+	}
+
+	@Test
+	public void testDeclaredRules() throws Exception {
+		Properties props = new Properties();
+		props.load(new StringReader(
+			"annotations.copy=" + LABEL + ">" + PREF_LABEL + ", " + NCIT_DEFINITION + ">" + IAO_DEFINITION + "\n"
+			+ "annotations.drop=" + NCIT_DEFINITION + "\n"
+			+ "annotations.languages=EN\n"));
+		OWLOntology onto = rewrite(AnnotationRules.read(props), false);
+		for (String name : new String[] {"A", "B"}) {
+			assertEquals(1, values(onto, name, PREF_LABEL).size());
+			assertEquals(1, values(onto, name, LABEL).size());
+			assertEquals(1, values(onto, name, IAO_DEFINITION).size());
+			assertTrue(values(onto, name, NCIT_DEFINITION).isEmpty());
+			assertEquals(1, values(onto, name, DESCRIPTION).size());
+			assertEquals(1, values(onto, name, NPO_FULL_SYN).size());
+		}
+	}
+
+	@Test
+	public void testEmptyTurnsOff() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("annotations.copy", "");
+		props.setProperty("annotations.drop", "");
+		OWLOntology onto = rewrite(AnnotationRules.read(props), false);
+		assertTrue(values(onto, "A", IAO_DEFINITION).isEmpty());
+		assertEquals(1, values(onto, "A", NPO_FULL_SYN).size());
+	}
+
+	@Test
+	public void testInvalidRule() {
+		Properties props = new Properties();
+		props.setProperty("annotations.copy", DESCRIPTION);
+		assertThrows(IllegalArgumentException.class, () -> AnnotationRules.read(props));
+	}
+
+	@Test
+	public void testStreamingSameRules() throws Exception {
+		File owlFile = new File(folder, "annotated.owl");
+		OWLOntology onto = ontology();
+		onto.getOWLOntologyManager().saveOntology(onto, new RDFXMLDocumentFormat(), IRI.create(owlFile));
+		Configuration config = new Configuration();
+		config.read(new StringReader("+:" + EX + "A"));
+		Properties props = new Properties();
+		props.setProperty("annotations.copy", LABEL + ">" + PREF_LABEL);
+		props.setProperty("annotations.languages", "en");
+
+		StreamingSlimmer streaming = new StreamingSlimmer(owlFile, SlimmerListener.NONE);
+		streaming.setAnnotationRules(AnnotationRules.read(props));
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		streaming.slim(config, output, EX + "slim", EX + "onto");
+		OWLOntology streamed = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(
+			new ByteArrayInputStream(output.toByteArray()));
+
+		OWLOntology expected = rewrite(AnnotationRules.read(props), true);
+		for (String property : new String[] {PREF_LABEL, LABEL, IAO_DEFINITION, NPO_FULL_SYN}) {
+			assertEquals(values(expected, "A", property), values(streamed, "A", property));
+		}
+	}
+}
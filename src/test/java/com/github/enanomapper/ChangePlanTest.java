@@ -0,0 +1,106 @@
+package com.github.enanomapper;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+public class ChangePlanTest {
+
+	private static final String INSTRUCTIONS =
+		"+D(http://purl.obolibrary.org/obo/CHEBI_23367):http://www.ifomis.org/bfo/1.1/snap#MaterialEntity\n"
+		+ "+U:http://www.ifomis.org/bfo/1.1/snap#DependentContinuant\n"
+		+ "-D:http://www.ifomis.org/bfo/1.1/snap#Object\n";
+
+	private Configuration config() throws Exception {
+		Configuration config = new Configuration();
+		config.read(new StringReader(INSTRUCTIONS));
+		return config;
+	}
+
+	private Slimmer bfo() throws Exception {
+		return new Slimmer("bfo-1.1.owl", this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl"),
+			null, SlimmerListener.NONE);
+	}
+
+	@Test
+	public void testSameAsRemoving() throws Exception {
+		Configuration config = config();
+		Slimmer expected = bfo();
+		expected.removeAllExcept(config.getTreePartsToSave());
+		expected.removeAll(config.getTreePartsToRemove());
+
+		Slimmer planned = bfo();
+		planned.apply(planned.plan(config.getTreePartsToSave(), config.getTreePartsToRemove()));
+		assertEquals(expected.getOntology().getClassesInSignature(), planned.getOntology().getClassesInSignature());
+		assertEquals(expected.getOntology().getAxioms(), planned.getOntology().getAxioms());
+	}
+
+	@Test
+	public void testSuperClassOutsideOntology() throws Exception {
+		// built with the API, so the new super class is not also kept by an instruction of its own
+		String snap = "http://www.ifomis.org/bfo/1.1/snap#";
+		Set<Instruction> irisToSave = new HashSet<Instruction>();
+		irisToSave.add(new Instruction(snap + "MaterialEntity", Instruction.Scope.DOWN, "http://example.org/Outside", null));
+		Set<Instruction> irisToRemove = Collections.singleton(new Instruction(snap + "Object", Instruction.Scope.DOWN, null));
+
+		Slimmer removing = bfo();
+		removing.removeAllExcept(irisToSave);
+		Slimmer planned = bfo();
+		planned.apply(planned.plan(irisToSave, irisToRemove));
+
+		OWLClass materialEntity = OWLManager.getOWLDataFactory().getOWLClass(IRI.create(snap + "MaterialEntity"));
+		OWLClass outside = OWLManager.getOWLDataFactory().getOWLClass(IRI.create("http://example.org/Outside"));
+		OWLAxiom axiom = OWLManager.getOWLDataFactory().getOWLSubClassOfAxiom(materialEntity, outside);
+		assertTrue(removing.getOntology().containsAxiom(axiom));
+		assertTrue(planned.getOntology().containsAxiom(axiom));
+	}
+
+	@Test
+	public void testDryRun() throws Exception {
+		Configuration config = config();
+		Slimmer slimmer = bfo();
+		OWLOntology ontology = slimmer.getOntology();
+		int axioms = ontology.getAxiomCount();
+		ChangePlan plan = slimmer.plan(config.getTreePartsToSave(), config.getTreePartsToRemove());
+		assertEquals(axioms, ontology.getAxiomCount());
+
+		OWLClass object = OWLManager.getOWLDataFactory().getOWLClass(IRI.create("http://www.ifomis.org/bfo/1.1/snap#Object"));
+		OWLClass materialEntity = OWLManager.getOWLDataFactory().getOWLClass(IRI.create("http://www.ifomis.org/bfo/1.1/snap#MaterialEntity"));
+		assertTrue(plan.isRemoved(object));
+		assertTrue(!plan.isRemoved(materialEntity));
+
+		Map<String,Integer> counts = plan.getCounts();
+		assertEquals(1, counts.get("superclass"));
+		assertTrue(counts.get("remove") > 0);
+		assertEquals(plan.size(), counts.get("superclass") + counts.get("remove"));
+
+		StringWriter written = new StringWriter();
+		plan.write(written);
+		String[] lines = written.toString().split("\n");
+		assertEquals(plan.size(), lines.length);
+		assertTrue(written.toString().contains("superclass\t+ SubClassOf(<http://www.ifomis.org/bfo/1.1/snap#MaterialEntity> <http://purl.obolibrary.org/obo/CHEBI_23367>)"));
+	}
+
+	@Test
+	public void testNoDuplicates() throws Exception {
+		Slimmer slimmer = bfo();
+		ChangePlan plan = new ChangePlan(slimmer.getManager());
+		slimmer.planProvenance(plan, "http://example.org/bfo.owl");
+		int size = plan.size();
+		plan.addAll("again", plan.getChanges());
+		assertEquals(size, plan.size());
+	}
+}
@@ -0,0 +1,148 @@
+package com.github.enanomapper;
+
+import java.io.InputStream;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+
+public class ClassHierarchyTest {
+
+	@Test
+	public void testSubClasses() throws Exception {
+		InputStream stream = this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl");
+		OWLOntology ontology = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(stream);
+		ClassHierarchy hierarchy = new ClassHierarchy(ontology);
+		assertTrue(hierarchy.isAcyclic());
+		assertEquals(38, hierarchy.getSubClasses("http://www.ifomis.org/bfo/1.1#Entity").size());
+		assertEquals(3, hierarchy.getSubClasses("http://www.ifomis.org/bfo/1.1/snap#MaterialEntity").size());
+		assertEquals(0, hierarchy.getSubClasses("http://www.ifomis.org/bfo/1.1/snap#FiatObjectPart").size());
+	}
+
+	@Test
+	public void testSuperClasses() throws Exception {
+		InputStream stream = this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl");
+		OWLOntology ontology = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(stream);
+		ClassHierarchy hierarchy = new ClassHierarchy(ontology);
+		Set<String> superClasses = hierarchy.getSuperClasses("http://www.ifomis.org/bfo/1.1/snap#DependentContinuant");
+		assertEquals(2, superClasses.size());
+		assertTrue(superClasses.contains("http://www.ifomis.org/bfo/1.1#Entity"));
+	}
+
+	@Test
+	public void testUnknownClass() throws Exception {
+		InputStream stream = this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl");
+		OWLOntology ontology = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(stream);
+		ClassHierarchy hierarchy = new ClassHierarchy(ontology);
+		assertFalse(hierarchy.contains("http://example.org/Unknown"));
+		assertEquals(0, hierarchy.getSubClasses("http://example.org/Unknown").size());
+
+		// exploding does not add unknown IRIs to the dictionary, as they are not in the ontology
+		int size = hierarchy.getDictionary().size();
+		for (Instruction.Scope scope : Instruction.Scope.values()) {
+			Instruction unknown = new Instruction("http://example.org/Unknown", scope, "");
+			assertTrue(hierarchy.explode(Collections.singleton(unknown), SlimmerListener.NONE).isEmpty(), scope.toString());
+		}
+		assertEquals(size, hierarchy.getDictionary().size());
+	}
+
+	@Test
+	public void testCycle() throws Exception {
+		OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+		OWLDataFactory factory = man.getOWLDataFactory();
+		OWLOntology ontology = man.createOntology();
+		OWLClass a = factory.getOWLClass(IRI.create("http://example.org/A"));
+		OWLClass b = factory.getOWLClass(IRI.create("http://example.org/B"));
+		OWLClass c = factory.getOWLClass(IRI.create("http://example.org/C"));
+		man.addAxiom(ontology, factory.getOWLSubClassOfAxiom(a, b));
+		man.addAxiom(ontology, factory.getOWLSubClassOfAxiom(b, a));
+		man.addAxiom(ontology, factory.getOWLSubClassOfAxiom(c, a));
+		ClassHierarchy hierarchy = new ClassHierarchy(ontology);
+		assertFalse(hierarchy.isAcyclic());
+		assertEquals(3, hierarchy.getSubClasses("http://example.org/B").size());
+		assertEquals(2, hierarchy.getSuperClasses("http://example.org/C").size());
+	}
+
+	@Test
+	public void testDerive() throws Exception {
+		InputStream stream = this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl");
+		OWLOntology ontology = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(stream);
+		ClassHierarchy hierarchy = new ClassHierarchy(ontology);
+		IRIDictionary dictionary = hierarchy.getDictionary();
+		int material = dictionary.getId("http://www.ifomis.org/bfo/1.1/snap#MaterialEntity");
+		BitSet retained = (BitSet)hierarchy.getSubClassIds(material).clone();
+		retained.set(material);
+		ClassHierarchy derived = hierarchy.derive(retained,
+			Collections.singletonMap("http://www.ifomis.org/bfo/1.1/snap#MaterialEntity", "http://example.org/Root"));
+		assertSame(dictionary, derived.getDictionary());
+		assertEquals(5, derived.size());
+		assertEquals(4, derived.getSubClasses("http://example.org/Root").size());
+		assertFalse(derived.contains("http://www.ifomis.org/bfo/1.1#Entity"));
+	}
+
+	@Test
+	public void testWildcard() throws Exception {
+		InputStream stream = this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl");
+		OWLOntology ontology = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(stream);
+		ClassHierarchy hierarchy = new ClassHierarchy(ontology);
+		String prefix = "http://www.ifomis.org/bfo/1.1/span#";
+		for (Instruction.Scope scope : Instruction.Scope.values()) {
+			Set<Instruction> exact = new HashSet<Instruction>();
+			for (OWLClass clazz : ontology.getClassesInSignature()) {
+				String iri = clazz.getIRI().toString();
+				if (iri.startsWith(prefix)) exact.add(new Instruction(iri, scope, ""));
+			}
+			Instruction wildcard = new Instruction(prefix + Instruction.WILDCARD, scope, "");
+			assertTrue(wildcard.isWildcard());
+			assertEquals(prefix, wildcard.getPrefix());
+			BitSet expected = hierarchy.explode(exact, SlimmerListener.NONE);
+			assertFalse(expected.isEmpty());
+			assertEquals(expected, hierarchy.explode(Collections.singleton(wildcard), SlimmerListener.NONE), scope.toString());
+		}
+	}
+
+	@Test
+	public void testDepth() throws Exception {
+		InputStream stream = this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl");
+		OWLOntology ontology = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(stream);
+		ClassHierarchy hierarchy = new ClassHierarchy(ontology);
+		String entity = "http://www.ifomis.org/bfo/1.1#Entity";
+		int id = hierarchy.getDictionary().getId(entity);
+		Set<String> children = new HashSet<String>();
+		for (OWLSubClassOfAxiom axiom : ontology.getSubClassAxiomsForSuperClass(ontology.getOWLOntologyManager().getOWLDataFactory().getOWLClass(IRI.create(entity)))) {
+			if (!axiom.getSubClass().isAnonymous()) children.add(axiom.getSubClass().asOWLClass().getIRI().toString());
+		}
+		assertFalse(children.isEmpty());
+		assertEquals(children, hierarchy.getDictionary().toIRIs(hierarchy.getSubClassIds(id, 1)));
+		BitSet two = hierarchy.getSubClassIds(id, 2);
+		assertTrue(two.cardinality() > children.size());
+		assertTrue(two.cardinality() < hierarchy.getSubClassIds(id).cardinality());
+		assertEquals(hierarchy.getSubClassIds(id), hierarchy.getSubClassIds(id, 100));
+
+		String dependent = "http://www.ifomis.org/bfo/1.1/snap#DependentContinuant";
+		int dependentId = hierarchy.getDictionary().getId(dependent);
+		assertEquals(hierarchy.getSuperClassIds(dependentId), hierarchy.getSuperClassIds(dependentId, 100));
+		assertEquals(1, hierarchy.getSuperClassIds(dependentId, 1).cardinality());
+
+		// instructions with a depth, exact and wildcard, which include the class itself
+		two.set(id);
+		Instruction exact = new Instruction(entity, Instruction.Scope.DOWN, 2, null, "");
+		assertEquals(two, hierarchy.explode(Collections.singleton(exact), SlimmerListener.NONE));
+		Instruction wildcard = new Instruction("http://www.ifomis.org/bfo/1.1#Ent" + Instruction.WILDCARD, Instruction.Scope.DOWN, 2, null, "");
+		assertEquals(two, hierarchy.explode(Collections.singleton(wildcard), SlimmerListener.NONE));
+	}
+}
@@ -1,14 +1,22 @@
 package com.github.enanomapper;
 
+import java.io.File;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ConfigurationTest {
 
@@ -182,4 +190,117 @@ public class ConfigurationTest {
 		assertEquals(7, conf.getTreePartsToSave().size());
 		assertEquals(1, conf.getTreePartsToRemove().size());
 	}
+
+	@Test
+	public void testAllErrors() {
+		String test = "+U:http://www.ifomis.org/bfo/1.1/snap#MaterialEntity\n"
+				    + "U:http://www.ifomis.org/bfo/1.1/snap#DependentContinuant\n"
+				    + "+D(http://www.ifomis.org/bfo/1.1/snap#Entity:http://www.ifomis.org/bfo/1.1/snap#Site\n"
+				    + "\n"
+				    + "+Uhttp://www.ifomis.org/bfo/1.1/snap#Site\n"
+				    + "-:\n"
+				    + "+\n";
+		Configuration conf = new Configuration();
+		ConfigurationException exception = assertThrows(ConfigurationException.class, () -> {
+		    conf.read(new StringReader(test));
+		});
+		assertEquals(5, exception.getErrors().size());
+		assertTrue(exception.getErrors().get(0).startsWith("Invalid configuration input at line 2:"));
+		assertTrue(exception.getErrors().get(1).startsWith("Invalid configuration input at line 3:"));
+		assertEquals("Invalid configuration input at line 5: expected ':' at position 3.", exception.getErrors().get(2));
+		assertTrue(exception.getErrors().get(3).startsWith("Invalid configuration input at line 6:"));
+		assertTrue(exception.getErrors().get(4).startsWith("Invalid configuration input at line 7:"));
+		// the valid lines are still read
+		assertEquals(1, conf.getTreePartsToSave().size());
+	}
+
+	@Test
+	public void testUTF8File(@TempDir File folder) throws Exception {
+		File file = new File(folder, "test.iris");
+		Files.write(file.toPath(), "+D:http://example.org/Sch\u00e4del\t\u00b5-scale  nano\tparticle \n".getBytes(StandardCharsets.UTF_8));
+		Configuration conf = new Configuration();
+		conf.read(file);
+		Instruction instruction = conf.getTreePartsToSave().iterator().next();
+		assertEquals("http://example.org/Sch\u00e4del", instruction.getUriString());
+		assertEquals("\u00b5-scale  nano particle", instruction.getComment());
+		assertEquals(Instruction.Scope.DOWN, instruction.getScope());
+	}
+
+	@Test
+	public void testSharedSuperClass() throws Exception {
+		String test = "+D(http://purl.obolibrary.org/obo/BFO_0000019):http://semanticscience.org/resource/CHEMINF_000101\n"
+				    + "+D(http://purl.obolibrary.org/obo/BFO_0000019):http://semanticscience.org/resource/CHEMINF_000031\n";
+		Configuration conf = new Configuration();
+		conf.read(new StringReader(test));
+		assertEquals(3, conf.getTreePartsToSave().size());
+		String superClass = null;
+		for (Instruction instruction : conf.getTreePartsToSave()) {
+			if (instruction.getNewSuperClass() == null) continue;
+			if (superClass != null) assertSame(superClass, instruction.getNewSuperClass());
+			superClass = instruction.getNewSuperClass();
+		}
+	}
+
+	@Test
+	public void testWildcard() throws Exception {
+		String test = "+:http://purl.obolibrary.org/obo/CHEBI_* all of ChEBI\n"
+				    + "-D:http://purl.obolibrary.org/obo/BFO_*\n";
+		Configuration conf = new Configuration();
+		conf.read(new StringReader(test));
+		Instruction keep = conf.getTreePartsToSave().iterator().next();
+		assertTrue(keep.isWildcard());
+		assertEquals("http://purl.obolibrary.org/obo/CHEBI_", keep.getPrefix());
+		assertEquals("all of ChEBI", keep.getComment());
+		assertTrue(conf.getTreePartsToRemove().iterator().next().isWildcard());
+
+		ConfigurationException exception = assertThrows(ConfigurationException.class, () -> {
+		    new Configuration().read(new StringReader("+D(http://purl.obolibrary.org/obo/BFO_0000040):http://purl.obolibrary.org/obo/CHEBI_*"));
+		});
+		assertEquals(1, exception.getErrors().size());
+	}
+
+	@Test
+	public void testDepth() throws Exception {
+		String test = "+D2:http://purl.obolibrary.org/obo/BFO_0000040\n"
+				    + "-U1:http://purl.obolibrary.org/obo/BFO_0000002\n"
+				    + "+D12(http://purl.obolibrary.org/obo/BFO_0000001):http://purl.obolibrary.org/obo/BFO_0000004 comment\n";
+		Configuration conf = new Configuration();
+		conf.read(new StringReader(test));
+		// the new super class is kept too
+		assertEquals(3, conf.getTreePartsToSave().size());
+		for (Instruction instruction : conf.getTreePartsToSave()) {
+			if (instruction.getScope() == Instruction.Scope.SINGLE) {
+				assertEquals(Instruction.UNBOUNDED, instruction.getDepth());
+			} else if (instruction.getNewSuperClass() == null) {
+				assertEquals(2, instruction.getDepth());
+			} else {
+				assertEquals(12, instruction.getDepth());
+				assertEquals("comment", instruction.getComment());
+			}
+		}
+		Instruction remove = conf.getTreePartsToRemove().iterator().next();
+		assertEquals(Instruction.Scope.UP, remove.getScope());
+		assertEquals(1, remove.getDepth());
+
+		ConfigurationException exception = assertThrows(ConfigurationException.class, () -> {
+		    new Configuration().read(new StringReader("+D0:http://purl.obolibrary.org/obo/BFO_0000040"));
+		});
+		assertEquals(1, exception.getErrors().size());
+	}
+
+	@Test
+	public void testEmptyLineReported() throws Exception {
+		List<String> messages = new ArrayList<String>();
+		SlimmerListener listener = new SlimmerListener() {
+			@Override
+			public void info(String message) {
+				messages.add(message);
+			}
+		};
+		Configuration conf = new Configuration();
+		conf.read(new StringReader("+:http://purl.obolibrary.org/obo/BFO_0000040\n\n"), listener);
+		assertEquals(1, conf.getTreePartsToSave().size());
+		assertEquals(1, messages.size());
+		assertTrue(messages.get(0).contains("line 2"), messages.get(0));
+	}
 }
@@ -0,0 +1,65 @@
+package com.github.enanomapper;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class FlightRecorderListenerTest {
+
+	@TempDir
+	File folder;
+
+	@Test
+	public void testEvents() throws Exception {
+		SlimmerListener listener = SlimmerListener.withFlightRecorder(SlimmerListener.NONE);
+		assertTrue(listener instanceof FlightRecorderListener);
+		InputStream stream = this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl");
+		OWLOntology ontology = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(stream);
+		ClassHierarchy hierarchy = new ClassHierarchy(ontology);
+
+		File output = new File(folder, "slimmer.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("com.github.enanomapper.Phase");
+			recording.enable("com.github.enanomapper.Instruction");
+			recording.enable("com.github.enanomapper.Count");
+			recording.start();
+			listener.phaseStarted("explode");
+			hierarchy.explode(Collections.singleton(
+				new Instruction("http://www.ifomis.org/bfo/1.1#Entity", Instruction.Scope.DOWN, 1, null, "")
+			), listener);
+			listener.count("expanded IRIs", 3);
+			listener.phaseFinished("explode");
+			recording.stop();
+			recording.dump(output.toPath());
+		}
+
+		Map<String,RecordedEvent> events = new HashMap<String,RecordedEvent>();
+		for (RecordedEvent event : RecordingFile.readAllEvents(output.toPath())) {
+			events.put(event.getEventType().getName(), event);
+		}
+		assertEquals("explode", events.get("com.github.enanomapper.Phase").getString("phase"));
+		RecordedEvent count = events.get("com.github.enanomapper.Count");
+		assertEquals("explode", count.getString("phase"));
+		assertEquals("expanded IRIs", count.getString("name"));
+		assertEquals(3, count.getLong("value"));
+		RecordedEvent instruction = events.get("com.github.enanomapper.Instruction");
+		assertEquals("http://www.ifomis.org/bfo/1.1#Entity", instruction.getString("iri"));
+		assertEquals("DOWN", instruction.getString("scope"));
+		assertEquals(1, instruction.getInt("depth"));
+		assertEquals(2, instruction.getInt("closureSize"));
+	}
+}
@@ -0,0 +1,44 @@
+package com.github.enanomapper;
+
+import java.util.BitSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.semanticweb.owlapi.model.IRI;
+
+public class IRIDictionaryTest {
+
+	@Test
+	public void testIntern() {
+		IRIDictionary dictionary = new IRIDictionary();
+		assertEquals(0, dictionary.intern("http://example.org/A"));
+		assertEquals(1, dictionary.intern("http://example.org/B"));
+		assertEquals(0, dictionary.intern("http://example.org/A"));
+		assertEquals(2, dictionary.size());
+		assertEquals("http://example.org/B", dictionary.getIRI(1));
+		assertEquals(-1, dictionary.getId("http://example.org/C"));
+	}
+
+	@Test
+	public void testOWLIRIs() {
+		IRIDictionary dictionary = new IRIDictionary();
+		int id = dictionary.intern("http://example.org/A");
+		assertEquals(-1, dictionary.getId(IRI.create("http://example.org/A")));
+		assertEquals(id, dictionary.intern(IRI.create("http://example.org/A")));
+		assertEquals(id, dictionary.getId(IRI.create("http://example.org/A")));
+	}
+
+	@Test
+	public void testToIRIs() {
+		IRIDictionary dictionary = new IRIDictionary();
+		dictionary.intern("http://example.org/A");
+		BitSet set = new BitSet();
+		set.set(dictionary.intern("http://example.org/B"));
+		Set<String> iris = dictionary.toIRIs(set);
+		assertEquals(1, iris.size());
+		assertTrue(iris.contains("http://example.org/B"));
+	}
+}
@@ -0,0 +1,127 @@
+package com.github.enanomapper;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.formats.RDFXMLDocumentFormat;
+import org.semanticweb.owlapi.model.AddImport;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+public class ImportCatalogTest {
+
+	private static final String EX = "http://example.org/";
+
+	@TempDir
+	File folder;
+
+	private File write(File dir, String filename, String name, String... imports) throws Exception {
+		OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+		OWLDataFactory factory = man.getOWLDataFactory();
+		OWLOntology ontology = man.createOntology(IRI.create(EX + name + ".owl"));
+		for (String imported : imports) {
+			man.applyChange(new AddImport(ontology, factory.getOWLImportsDeclaration(IRI.create(imported))));
+		}
+		man.addAxiom(ontology, factory.getOWLDeclarationAxiom(factory.getOWLClass(IRI.create(EX + name))));
+		dir.mkdirs();
+		File file = new File(dir, filename);
+		try (OutputStream stream = filename.endsWith(".gz") ? new GZIPOutputStream(new FileOutputStream(file)) : new FileOutputStream(file)) {
+			man.saveOntology(ontology, new RDFXMLDocumentFormat(), stream);
+		}
+		return file;
+	}
+
+	private File catalog(File dir, String content) throws IOException {
+		File file = new File(dir, ImportCatalog.CATALOG_FILENAME);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	@Test
+	public void testCatalog() throws Exception {
+		File imports = new File(folder, "imports");
+		write(imports, "a.owl", "A");
+		write(imports, "b.owl.gz", "B");
+		File other = new File(folder, "other");
+		other.mkdir();
+		catalog(other, "<catalog xmlns=\"urn:oasis:names:tc:entity:xmlns:xml:catalog\">\n"
+			+ "  <uri name=\"" + EX + "C.owl\" uri=\"c.owl\"/>\n"
+			+ "  <nextCatalog catalog=\"../" + ImportCatalog.CATALOG_FILENAME + "\"/>\n"
+			+ "</catalog>\n");
+		File catalog = catalog(folder, "<?xml version=\"1.0\"?>\n"
+			+ "<!DOCTYPE catalog PUBLIC \"-//OASIS//DTD XML Catalogs V1.1//EN\" \"http://www.oasis-open.org/committees/entity/release/1.1/catalog.dtd\">\n"
+			+ "<catalog prefer=\"public\" xmlns=\"urn:oasis:names:tc:entity:xmlns:xml:catalog\">\n"
+			+ "  <group id=\"Folder Repository\" prefer=\"public\" xml:base=\"imports/\">\n"
+			+ "    <uri id=\"Automatically generated entry\" name=\"" + EX + "A.owl\" uri=\"a.owl\"/>\n"
+			+ "    <uri name=\"" + EX + "B.owl\" uri=\"b.owl\"/>\n"
+			+ "  </group>\n"
+			+ "  <uri name=\"" + EX + "A.owl\" uri=\"ignored.owl\"/>\n"
+			+ "  <uri name=\"" + EX + "D.owl\" uri=\"http://mirror.example.org/D.owl\"/>\n"
+			+ "  <nextCatalog catalog=\"other/" + ImportCatalog.CATALOG_FILENAME + "\"/>\n"
+			+ "</catalog>\n");
+
+		ImportCatalog mappings = new ImportCatalog();
+		mappings.add(catalog);
+		// the first entry wins, relative to the xml:base of its group
+		assertEquals(IRI.create(new File(imports, "a.owl")), mappings.getDocumentIRI(IRI.create(EX + "A.owl")));
+		// a compressed copy is found too
+		assertEquals(IRI.create(new File(imports, "b.owl.gz")), mappings.getDocumentIRI(IRI.create(EX + "B.owl")));
+		assertEquals(IRI.create(new File(other, "c.owl")), mappings.getDocumentIRI(IRI.create(EX + "C.owl")));
+		assertEquals(IRI.create("http://mirror.example.org/D.owl"), mappings.getDocumentIRI(IRI.create(EX + "D.owl")));
+		assertNull(mappings.getDocumentIRI(IRI.create(EX + "E.owl")));
+		assertEquals(4, mappings.size());
+
+		assertThrows(IOException.class, () -> mappings.add(new File(folder, "missing.xml")));
+		Files.write(new File(folder, "broken.xml").toPath(), "<catalog>".getBytes(StandardCharsets.UTF_8));
+		assertThrows(IOException.class, () -> mappings.add(new File(folder, "broken.xml")));
+	}
+
+	@Test
+	public void testFolder() throws Exception {
+		// file names that do not match the IRIs, so that only the declared ontology IRIs map them
+		File imports = new File(folder, "imports");
+		write(imports, "first.owl", "A");
+		write(new File(imports, "nested"), "second.owl", "B");
+		ImportCatalog mappings = new ImportCatalog();
+		mappings.add(imports);
+		assertEquals(IRI.create(new File(imports, "first.owl")), mappings.getDocumentIRI(IRI.create(EX + "A.owl")));
+		assertEquals(IRI.create(new File(imports, "nested/second.owl")), mappings.getDocumentIRI(IRI.create(EX + "B.owl")));
+		assertEquals(2, mappings.size());
+	}
+
+	@Test
+	public void testImportLoader() throws Exception {
+		File imports = new File(folder, "imports");
+		write(imports, "first.owl", "A", EX + "B.owl");
+		write(imports, "second.owl.gz", "B");
+		catalog(folder, "<catalog xmlns=\"urn:oasis:names:tc:entity:xmlns:xml:catalog\">\n"
+			+ "  <uri name=\"" + EX + "B.owl\" uri=\"imports/second.owl\"/>\n"
+			+ "</catalog>\n");
+		File source = write(folder, "source.owl", "source", EX + "A.owl");
+
+		ImportCatalog mappings = new ImportCatalog();
+		mappings.add(folder);
+		// an empty mirror folder: everything must come from the catalog
+		File mirror = new File(folder, "mirror");
+		mirror.mkdir();
+		Slimmer slimmer = new Slimmer(source, EX + "merged.owl", new ImportLoader(mirror, 2, mappings), SlimmerListener.NONE);
+		for (String name : new String[] {"source", "A", "B"}) {
+			assertTrue(slimmer.getOntology().containsClassInSignature(IRI.create(EX + name)), name);
+		}
+	}
+}
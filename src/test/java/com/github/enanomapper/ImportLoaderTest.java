@@ -0,0 +1,134 @@
+package com.github.enanomapper;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.formats.RDFXMLDocumentFormat;
+import org.semanticweb.owlapi.model.AddImport;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+public class ImportLoaderTest {
+
+	private static final String EX = "http://example.org/";
+
+	@TempDir
+	File folder;
+
+	private static class RecordingListener implements SlimmerListener {
+		List<String> infos = Collections.synchronizedList(new ArrayList<String>());
+		List<String> warnings = Collections.synchronizedList(new ArrayList<String>());
+		Map<String,Long> counts = new HashMap<String,Long>();
+
+		@Override
+		public void info(String message) {
+			infos.add(message);
+		}
+
+		@Override
+		public void warning(String message) {
+			warnings.add(message);
+		}
+
+		@Override
+		public void count(String name, long value) {
+			counts.put(name, value);
+		}
+
+		long loaded(String iri) {
+			return infos.stream().filter(message -> message.startsWith("Loaded imported ontology: " + iri + " ")).count();
+		}
+	}
+
+	/**
+	 * Writes an ontology with one class, named after the ontology, that imports the given IRIs.
+	 */
+	private File write(File dir, String name, String... imports) throws Exception {
+		OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+		OWLDataFactory factory = man.getOWLDataFactory();
+		OWLOntology ontology = man.createOntology(IRI.create(EX + name + ".owl"));
+		for (String imported : imports) {
+			man.applyChange(new AddImport(ontology, factory.getOWLImportsDeclaration(IRI.create(imported))));
+		}
+		man.addAxiom(ontology, factory.getOWLDeclarationAxiom(factory.getOWLClass(IRI.create(EX + name))));
+		File file = new File(dir, name + ".owl");
+		try (FileOutputStream stream = new FileOutputStream(file)) {
+			man.saveOntology(ontology, new RDFXMLDocumentFormat(), stream);
+		}
+		return file;
+	}
+
+	@Test
+	public void testMirror() throws Exception {
+		File mirror = new File(folder, "mirror");
+		mirror.mkdir();
+		// A and B both import C, and C imports A again
+		write(mirror, "A", EX + "C.owl");
+		write(mirror, "B", EX + "A.owl", EX + "C.owl");
+		write(mirror, "C", EX + "A.owl");
+		File source = write(folder, "source", EX + "A.owl", EX + "B.owl", EX + "D.owl");
+
+		RecordingListener listener = new RecordingListener();
+		Slimmer slimmer = new Slimmer(source, EX + "merged.owl", new ImportLoader(mirror, 2), listener);
+		for (String name : new String[] {"source", "A", "B", "C"}) {
+			assertTrue(slimmer.getOntology().containsClassInSignature(IRI.create(EX + name)), name);
+		}
+		for (String name : new String[] {"A", "B", "C"}) {
+			assertEquals(1, listener.loaded(EX + name + ".owl"), name);
+		}
+		assertEquals(3L, listener.counts.get("loaded imports"));
+		// D is not mirrored, so it is skipped instead of downloaded
+		assertEquals(1, listener.warnings.size());
+		assertTrue(listener.warnings.get(0).contains(EX + "D.owl"));
+	}
+
+	@Test
+	public void testImportClosure() throws Exception {
+		File mirror = new File(folder, "mirror");
+		mirror.mkdir();
+		write(mirror, "A", EX + "C.owl");
+		write(mirror, "C");
+		File source = write(folder, "source", EX + "A.owl");
+
+		OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+		OWLOntology ontology;
+		try (InputStream stream = SourceInput.open(source)) {
+			ontology = new ImportLoader(mirror, 4).load(man, false, stream, SlimmerListener.NONE);
+		}
+		assertEquals(3, ontology.getImportsClosure().size());
+		assertEquals(IRI.create(new File(mirror, "C.owl")), man.getOntologyDocumentIRI(man.getOntology(IRI.create(EX + "C.owl"))));
+	}
+
+	@Test
+	public void testWithoutMirror() throws Exception {
+		File c = write(folder, "C");
+		File a = write(folder, "A", IRI.create(c).toString());
+		File source = write(folder, "source", IRI.create(a).toString(), IRI.create(c).toString());
+
+		RecordingListener listener = new RecordingListener();
+		Slimmer slimmer = new Slimmer(source, EX + "merged.owl", new ImportLoader(null, 4), listener);
+		for (String name : new String[] {"source", "A", "C"}) {
+			assertTrue(slimmer.getOntology().containsClassInSignature(IRI.create(EX + name)), name);
+		}
+		assertEquals(1, listener.loaded(IRI.create(c).toString()));
+		assertTrue(listener.warnings.isEmpty());
+
+		// the same as when the OWLAPI loads the imports itself
+		Slimmer serial = new Slimmer(source, EX + "merged.owl", SlimmerListener.NONE);
+		assertEquals(serial.getOntology().getAxioms(), slimmer.getOntology().getAxioms());
+	}
+}
@@ -0,0 +1,75 @@
+package com.github.enanomapper;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.semanticweb.owlapi.model.OWLOntology;
+
+public class IncrementalSlimmerTest {
+
+	private static final String MATERIAL_ENTITY = "+D:http://www.ifomis.org/bfo/1.1/snap#MaterialEntity\n";
+	private static final String DEPENDENT_CONTINUANT = "+U:http://www.ifomis.org/bfo/1.1/snap#DependentContinuant\n";
+	private static final String NOT_OBJECT = "-D:http://www.ifomis.org/bfo/1.1/snap#Object\n";
+
+	private static class Counts implements SlimmerListener {
+		Map<String,Long> counts = new HashMap<String,Long>();
+
+		@Override
+		public void count(String name, long value) {
+			counts.put(name, value);
+		}
+	}
+
+	private Configuration config(String instructions) throws Exception {
+		Configuration config = new Configuration();
+		config.read(new StringReader(instructions));
+		return config;
+	}
+
+	private Slimmer bfo() throws Exception {
+		return new Slimmer("bfo-1.1.owl", this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl"),
+			null, SlimmerListener.NONE);
+	}
+
+	private OWLOntology slim(String instructions) throws Exception {
+		Configuration config = config(instructions);
+		Slimmer slimmer = bfo();
+		slimmer.removeAllExcept(config.getTreePartsToSave());
+		slimmer.removeAll(config.getTreePartsToRemove());
+		return slimmer.getOntology();
+	}
+
+	@Test
+	public void testSameAsSlimmer() throws Exception {
+		IncrementalSlimmer incremental = new IncrementalSlimmer(bfo());
+		int classes = incremental.getSource().getOntology().getClassesInSignature().size();
+		for (String instructions : new String[] {
+			MATERIAL_ENTITY, MATERIAL_ENTITY + DEPENDENT_CONTINUANT, DEPENDENT_CONTINUANT + NOT_OBJECT, MATERIAL_ENTITY + NOT_OBJECT
+		}) {
+			OWLOntology expected = slim(instructions);
+			OWLOntology slimmed = incremental.slim(config(instructions), SlimmerListener.NONE).getOntology();
+			assertEquals(expected.getClassesInSignature(), slimmed.getClassesInSignature());
+			assertEquals(expected.getLogicalAxioms(), slimmed.getLogicalAxioms());
+		}
+		assertEquals(classes, incremental.getSource().getOntology().getClassesInSignature().size());
+	}
+
+	@Test
+	public void testOnlyChangedInstructions() throws Exception {
+		IncrementalSlimmer incremental = new IncrementalSlimmer(bfo());
+		Counts counts = new Counts();
+		incremental.slim(config(MATERIAL_ENTITY), counts);
+		assertEquals(1, counts.counts.get("added instructions"));
+		incremental.slim(config(MATERIAL_ENTITY + DEPENDENT_CONTINUANT), counts);
+		assertEquals(1, counts.counts.get("added instructions"));
+		assertEquals(0, counts.counts.get("dropped instructions"));
+		incremental.slim(config(DEPENDENT_CONTINUANT + NOT_OBJECT), counts);
+		assertEquals(0, counts.counts.get("added instructions"));
+		assertEquals(1, counts.counts.get("dropped instructions"));
+		assertEquals(3, counts.counts.get("kept classes"));
+	}
+}
@@ -1,7 +1,11 @@
 package com.github.enanomapper;
 
+import java.util.Arrays;
+import java.util.HashSet;
+
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 
 public class InstructionTest {
@@ -30,4 +34,35 @@ public class InstructionTest {
 		assertNotSame(superIns.hashCode(), superIns2.hashCode());
 	}
 
+	@Test
+	public void testEquals_SameHash() throws Exception {
+		// "Aa" and "BB" have the same hash code, so the strings of these instructions do too
+		Instruction aa = new Instruction("http://example.org/Aa", Instruction.Scope.SINGLE, "");
+		Instruction bb = new Instruction("http://example.org/BB", Instruction.Scope.SINGLE, "");
+		assertEquals(aa.toString().hashCode(), bb.toString().hashCode());
+		assertNotEquals(aa, bb);
+		assertEquals(2, new HashSet<Instruction>(Arrays.asList(aa, bb)).size());
+	}
+
+	@Test
+	public void testEquals_NewSuperClass() throws Exception {
+		String uri = "http://www.ifomis.org/bfo/1.1/snap#DependentContinuant";
+		Instruction plain = new Instruction(uri, Instruction.Scope.DOWN, "");
+		Instruction moved = new Instruction(uri, Instruction.Scope.DOWN, "http://www.ifomis.org/bfo/1.1#Entity", "");
+		assertNotEquals(plain, moved);
+		assertEquals(moved, new Instruction(uri, Instruction.Scope.DOWN, "http://www.ifomis.org/bfo/1.1#Entity", ""));
+		assertEquals("D(http://www.ifomis.org/bfo/1.1#Entity):" + uri + " ", moved.toString());
+	}
+
+	@Test
+	public void testEquals_Depth() throws Exception {
+		String uri = "http://www.ifomis.org/bfo/1.1/snap#DependentContinuant";
+		Instruction unbounded = new Instruction(uri, Instruction.Scope.DOWN, "");
+		Instruction bounded = new Instruction(uri, Instruction.Scope.DOWN, 2, null, "");
+		assertNotEquals(unbounded, bounded);
+		assertEquals(unbounded, new Instruction(uri, Instruction.Scope.DOWN, Instruction.UNBOUNDED, null, ""));
+		assertEquals("D2:" + uri + " ", bounded.toString());
+		// a depth means nothing for a single class
+		assertEquals(Instruction.UNBOUNDED, new Instruction(uri, Instruction.Scope.SINGLE, 2, null, "").getDepth());
+	}
 }
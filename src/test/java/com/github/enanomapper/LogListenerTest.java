@@ -0,0 +1,66 @@
+package com.github.enanomapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogListenerTest {
+
+	private String log(LogListener.Level level) {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		LogListener listener = new LogListener(new PrintStream(buffer, true), level);
+		listener.phaseStarted("keep");
+		if (listener.isDebugEnabled()) listener.entityRemoved("http://example.org/A");
+		listener.count("removed classes", 1);
+		listener.warning("something odd");
+		listener.phaseFinished("keep");
+		return buffer.toString();
+	}
+
+	@Test
+	public void testInfo() {
+		String log = log(LogListener.Level.INFO);
+		assertTrue(log.contains("Finished: keep"));
+		assertTrue(log.contains("removed classes: 1"));
+		assertTrue(log.contains("Warning: something odd"));
+		assertFalse(log.contains("http://example.org/A"));
+	}
+
+	@Test
+	public void testDebug() {
+		String log = log(LogListener.Level.DEBUG);
+		assertTrue(log.contains("Remove: http://example.org/A"));
+	}
+
+	@Test
+	public void testQuiet() {
+		String log = log(LogListener.Level.QUIET);
+		assertEquals("Warning: something odd", log.trim());
+	}
+
+	@Test
+	public void testSlimmerCounts() throws Exception {
+		Map<String,Long> counts = new HashMap<String,Long>();
+		SlimmerListener listener = new SlimmerListener() {
+			@Override
+			public void count(String name, long value) {
+				counts.put(name, value);
+			}
+		};
+		Configuration conf = new Configuration();
+		conf.read(new StringReader("+D:http://www.ifomis.org/bfo/1.1/snap#MaterialEntity"));
+		InputStream stream = this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl");
+		Slimmer slimmer = new Slimmer("bfo-1.1.owl", stream, null, listener);
+		slimmer.removeAllExcept(conf.getTreePartsToSave());
+		assertEquals(4, counts.get("kept classes"));
+		assertEquals(35, counts.get("removed classes"));
+	}
+}
@@ -0,0 +1,170 @@
+package com.github.enanomapper;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.formats.RDFXMLDocumentFormat;
+import org.semanticweb.owlapi.model.AddImport;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+public class OntologyCacheTest {
+
+	private static final String EX = "http://example.org/";
+
+	private static final SlimmerListener quiet = SlimmerListener.NONE;
+
+	@TempDir
+	File folder;
+
+	private File resource(String name) throws Exception {
+		return new File(this.getClass().getClassLoader().getResource(name).toURI());
+	}
+
+	@Test
+	public void testCopies() throws Exception {
+		File owlFile = resource("bfo-1.1.owl");
+		OntologyCache cache = new OntologyCache();
+		cache.expect(owlFile);
+		cache.expect(owlFile);
+		Slimmer first = cache.createSlimmer(owlFile, null, quiet);
+		Slimmer second = cache.createSlimmer(owlFile, null, quiet);
+		assertNotSame(first.getOntology(), second.getOntology());
+		assertEquals(first.getOntology().getAxiomCount(), second.getOntology().getAxiomCount());
+	}
+
+	@Test
+	public void testCopiesAreIndependent() throws Exception {
+		File owlFile = resource("bfo-1.1.owl");
+		OntologyCache cache = new OntologyCache();
+		cache.expect(owlFile);
+		cache.expect(owlFile);
+		Slimmer first = cache.createSlimmer(owlFile, null, quiet);
+		Configuration conf = new Configuration();
+		conf.read(new StringReader("+D:http://www.ifomis.org/bfo/1.1/snap#MaterialEntity"));
+		first.removeAllExcept(conf.getTreePartsToSave());
+		assertEquals(4, first.getOntology().getClassesInSignature().size());
+
+		Slimmer second = cache.createSlimmer(owlFile, null, quiet);
+		assertEquals(39, second.getOntology().getClassesInSignature().size());
+	}
+
+	@Test
+	public void testMerged() throws Exception {
+		File owlFile = resource("bfo-1.1.owl");
+		OntologyCache cache = new OntologyCache();
+		Slimmer slimmer = cache.createSlimmer(owlFile, "http://example.org/merged.owl", quiet);
+		assertEquals("http://example.org/merged.owl",
+			slimmer.getOntology().getOntologyID().getOntologyIRI().get().toString());
+		assertEquals(39, slimmer.getOntology().getClassesInSignature().size());
+	}
+
+	@Test
+	public void testRelease() throws Exception {
+		File owlFile = resource("bfo-1.1.owl");
+		OntologyCache cache = new OntologyCache();
+		AtomicInteger loads = new AtomicInteger();
+		SlimmerListener listener = new SlimmerListener() {
+			@Override
+			public void phaseStarted(String phase) {
+				if ("load".equals(phase)) loads.incrementAndGet();
+			}
+		};
+		cache.expect(owlFile);
+		cache.expect(owlFile);
+		cache.createSlimmer(owlFile, null, listener);
+		cache.release(owlFile);
+		cache.createSlimmer(owlFile, null, listener);
+		assertEquals(1, loads.get());
+		cache.release(owlFile);
+		cache.createSlimmer(owlFile, null, listener);
+		assertEquals(2, loads.get()); // dropped after the last expected job
+
+		// a job that never takes its copy, like one that hits the result cache, releases too
+		cache.expect(owlFile);
+		cache.expect(owlFile);
+		cache.createSlimmer(owlFile, null, listener);
+		cache.release(owlFile);
+		cache.release(owlFile);
+		cache.createSlimmer(owlFile, null, listener);
+		assertEquals(4, loads.get());
+	}
+
+	/**
+	 * Writes an ontology with one class, named after the ontology, that imports the given files.
+	 */
+	private File write(String name, File... imports) throws Exception {
+		OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+		OWLDataFactory factory = man.getOWLDataFactory();
+		OWLOntology ontology = man.createOntology(IRI.create(EX + name + ".owl"));
+		for (File imported : imports) {
+			man.applyChange(new AddImport(ontology, factory.getOWLImportsDeclaration(IRI.create(imported))));
+		}
+		man.addAxiom(ontology, factory.getOWLDeclarationAxiom(factory.getOWLClass(IRI.create(EX + name))));
+		File file = new File(folder, name + ".owl");
+		try (FileOutputStream stream = new FileOutputStream(file)) {
+			man.saveOntology(ontology, new RDFXMLDocumentFormat(), stream);
+		}
+		return file;
+	}
+
+	@Test
+	public void testSharedImports() throws Exception {
+		File c = write("C");
+		File a = write("A", c);
+		File first = write("first", a);
+		File second = write("second", c);
+		List<String> loaded = Collections.synchronizedList(new ArrayList<String>());
+		SlimmerListener listener = new SlimmerListener() {
+			@Override
+			public void info(String message) {
+				if (message.startsWith("Loaded imported ontology: ")) loaded.add(message);
+			}
+		};
+		OntologyCache cache = new OntologyCache();
+		cache.setImportLoader(new ImportLoader(null, 2));
+		cache.createSlimmer(first, null, listener);
+		assertEquals(2, loaded.size());
+
+		// the second source only gets the cached import it imports itself
+		Slimmer slimmer = cache.createSlimmer(second, null, listener);
+		assertEquals(2, loaded.size());
+		assertEquals(2, slimmer.getOntology().getImportsClosure().size());
+		assertTrue(slimmer.getOntology().getImportsClosure().stream()
+			.anyMatch(imported -> imported.containsClassInSignature(IRI.create(EX + "C"))));
+
+		// a changed import document is parsed again
+		Files.write(c.toPath(), "<!-- changed -->\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+		cache.createSlimmer(second, null, listener);
+		assertEquals(3, loaded.size());
+	}
+
+	@Test
+	public void testSharedImportsWithoutLoader() throws Exception {
+		File c = write("C");
+		File a = write("A", c);
+		OntologyCache cache = new OntologyCache();
+		cache.createSlimmer(write("first", a), null, quiet);
+		Slimmer slimmer = cache.createSlimmer(write("second", c), null, quiet);
+		assertEquals(2, slimmer.getOntology().getImportsClosure().size());
+		assertTrue(slimmer.getOntology().getImportsClosure().stream()
+			.anyMatch(imported -> imported.containsClassInSignature(IRI.create(EX + "C"))));
+	}
+}
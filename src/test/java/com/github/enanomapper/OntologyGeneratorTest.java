@@ -0,0 +1,95 @@
+package com.github.enanomapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+public class OntologyGeneratorTest {
+
+	@TempDir
+	File folder;
+
+	private OntologyGenerator generator() {
+		OntologyGenerator generator = new OntologyGenerator();
+		generator.setClassCount(500);
+		generator.setDepth(4);
+		generator.setFanIn(3);
+		generator.setMultipleParentRatio(0.2);
+		generator.setObjectPropertyCount(4);
+		generator.setDataPropertyCount(2);
+		return generator;
+	}
+
+	private byte[] ontology(OntologyGenerator generator) {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		generator.writeOntology(output, "http://example.org/synthetic.owl");
+		return output.toByteArray();
+	}
+
+	@Test
+	public void testShape() throws Exception {
+		OWLOntology ontology = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(
+			new ByteArrayInputStream(ontology(generator()))
+		);
+		assertEquals(500, ontology.getClassesInSignature().stream()
+			.filter(clazz -> clazz.getIRI().toString().startsWith("http://example.org/synthetic/C_")).count());
+		assertEquals(4, ontology.getObjectPropertiesInSignature().size());
+		assertEquals(2, ontology.getDataPropertiesInSignature().size());
+
+		ClassHierarchy hierarchy = new ClassHierarchy(ontology);
+		assertTrue(hierarchy.isAcyclic());
+		assertEquals(499, hierarchy.getSubClasses("http://example.org/synthetic/C_0").size());
+		OWLClass multipleParents = ontology.getClassesInSignature().stream()
+			.filter(clazz -> ontology.getSubClassAxiomsForSubClass(clazz).stream()
+				.filter(axiom -> axiom.getSuperClass().isOWLClass()).count() > 1)
+			.findFirst().orElse(null);
+		assertTrue(multipleParents != null);
+	}
+
+	@Test
+	public void testSameSeed() {
+		assertArrayEquals(ontology(generator()), ontology(generator()));
+		OntologyGenerator other = generator();
+		other.setSeed(7);
+		assertFalse(new String(ontology(generator())).equals(new String(ontology(other))));
+	}
+
+	@Test
+	public void testConfiguration() throws Exception {
+		OntologyGenerator generator = generator();
+		StringWriter iris = new StringWriter();
+		generator.writeConfiguration(iris, 12);
+		Configuration config = new Configuration();
+		config.read(new StringReader(iris.toString()));
+		assertEquals(12, iris.toString().split("\n").length);
+		assertFalse(config.getTreePartsToSave().isEmpty());
+		assertFalse(config.getTreePartsToRemove().isEmpty());
+
+		Slimmer slimmer = new Slimmer("synthetic", new ByteArrayInputStream(ontology(generator)), null, SlimmerListener.NONE);
+		slimmer.removeAllExcept(config.getTreePartsToSave());
+		slimmer.removeAll(config.getTreePartsToRemove());
+		assertTrue(slimmer.getOntology().containsClassInSignature(IRI.create("http://example.org/synthetic/Root")));
+	}
+
+	@Test
+	public void testWriteFiles() throws Exception {
+		generator().write(folder, "synthetic", 6);
+		assertTrue(new File(folder, "synthetic.owl").exists());
+		assertTrue(new File(folder, "synthetic.iris").exists());
+		assertTrue(new File(folder, "synthetic.props").exists());
+	}
+}
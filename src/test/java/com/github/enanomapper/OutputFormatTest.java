@@ -0,0 +1,111 @@
+package com.github.enanomapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.util.Models;
+import org.eclipse.rdf4j.rio.Rio;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+public class OutputFormatTest {
+
+	private static final String INSTRUCTIONS =
+		"+D:http://www.ifomis.org/bfo/1.1/snap#MaterialEntity\n"
+		+ "+U:http://www.ifomis.org/bfo/1.1/snap#DependentContinuant\n";
+
+	@TempDir
+	File folder;
+
+	private Configuration config() throws Exception {
+		Configuration config = new Configuration();
+		config.read(new StringReader(INSTRUCTIONS));
+		return config;
+	}
+
+	@Test
+	public void testRead() {
+		Properties props = new Properties();
+		assertEquals(Arrays.asList(OutputFormat.RDFXML), OutputFormat.read(props));
+		props.setProperty("formats", "Turtle, ntriples functional,turtle obo");
+		assertEquals(Arrays.asList(OutputFormat.TURTLE, OutputFormat.NTRIPLES, OutputFormat.FUNCTIONAL, OutputFormat.OBO),
+			OutputFormat.read(props));
+		props.setProperty("formats", "jsonld");
+		assertThrows(IllegalArgumentException.class, () -> OutputFormat.read(props));
+		props.setProperty("formats", "");
+		assertThrows(IllegalArgumentException.class, () -> OutputFormat.read(props));
+	}
+
+	@Test
+	public void testFilename() {
+		assertEquals("bao-slim.owl", OutputFormat.RDFXML.getFilename("bao-slim.owl", false));
+		assertEquals("bao-slim.owl.gz", OutputFormat.RDFXML.getFilename("bao-slim.owl", true));
+		assertEquals("bao-slim.ttl", OutputFormat.TURTLE.getFilename("bao-slim.owl", false));
+		assertEquals("bao-slim.nt.gz", OutputFormat.NTRIPLES.getFilename("bao-slim.owl", true));
+		assertEquals("bao-slim.ofn", OutputFormat.FUNCTIONAL.getFilename("bao-slim", false));
+	}
+
+	@Test
+	public void testAllFormats() throws Exception {
+		Slimmer slimmer = new Slimmer("bfo-1.1.owl", this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl"),
+			null, SlimmerListener.NONE);
+		Configuration config = config();
+		slimmer.apply(slimmer.plan(config.getTreePartsToSave(), config.getTreePartsToRemove()));
+		int classes = slimmer.getOntology().getClassesInSignature().size();
+		for (OutputFormat format : OutputFormat.values()) {
+			File file = new File(folder, format.getFilename("bfo-slim.owl", true));
+			try (OutputStream output = OutputFormat.open(file, true)) {
+				slimmer.save(output, format);
+			}
+			OWLOntology saved;
+			try (InputStream input = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+				saved = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(input);
+			}
+			assertEquals(classes, saved.getClassesInSignature().size(), format.getName());
+		}
+	}
+
+	@Test
+	public void testStreamingFormats() throws Exception {
+		File owlFile = new File(folder, "bfo-1.1.owl");
+		try (InputStream source = this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl")) {
+			Files.copy(source, owlFile.toPath());
+		}
+		Map<OutputFormat,OutputStream> outputs = new LinkedHashMap<OutputFormat,OutputStream>();
+		for (OutputFormat format : new OutputFormat[] {OutputFormat.RDFXML, OutputFormat.NTRIPLES, OutputFormat.TURTLE}) {
+			outputs.put(format, new ByteArrayOutputStream());
+		}
+		new StreamingSlimmer(owlFile, SlimmerListener.NONE).slim(config(), outputs,
+			"http://example.org/bfo-slim.owl", "http://www.ifomis.org/bfo/1.1/bfo-1.1.owl");
+
+		Model expected = null;
+		for (Map.Entry<OutputFormat,OutputStream> output : outputs.entrySet()) {
+			Model model = Rio.parse(new ByteArrayInputStream(((ByteArrayOutputStream)output.getValue()).toByteArray()),
+				"http://example.org/", output.getKey().getRioFormat());
+			assertTrue(model.size() > 0);
+			if (expected == null) expected = model;
+			else assertTrue(Models.isomorphic(expected, model), output.getKey().getName());
+		}
+
+		outputs.put(OutputFormat.OBO, new ByteArrayOutputStream());
+		assertThrows(IllegalArgumentException.class, () -> new StreamingSlimmer(owlFile, SlimmerListener.NONE)
+			.slim(config(), outputs, "http://example.org/bfo-slim.owl", "http://www.ifomis.org/bfo/1.1/bfo-1.1.owl"));
+	}
+}
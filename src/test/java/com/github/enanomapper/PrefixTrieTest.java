@@ -0,0 +1,41 @@
+package com.github.enanomapper;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PrefixTrieTest {
+
+	private static final int SINGLE = PrefixTrie.mask(Instruction.Scope.SINGLE);
+	private static final int UP = PrefixTrie.mask(Instruction.Scope.UP);
+	private static final int DOWN = PrefixTrie.mask(Instruction.Scope.DOWN);
+
+	@Test
+	public void testMatch() {
+		PrefixTrie trie = new PrefixTrie();
+		assertTrue(trie.isEmpty());
+		trie.add("http://purl.obolibrary.org/obo/CHEBI_", Instruction.Scope.SINGLE);
+		trie.add("http://purl.obolibrary.org/obo/CHEBI_33", Instruction.Scope.DOWN);
+		trie.add("http://purl.obolibrary.org/obo/BFO_", Instruction.Scope.UP);
+		trie.add("http://purl.obolibrary.org/obo/BFO_", Instruction.Scope.DOWN);
+		assertEquals(3, trie.size());
+
+		assertEquals(SINGLE, trie.match("http://purl.obolibrary.org/obo/CHEBI_50828"));
+		assertEquals(SINGLE | DOWN, trie.match("http://purl.obolibrary.org/obo/CHEBI_33250"));
+		assertEquals(UP | DOWN, trie.match("http://purl.obolibrary.org/obo/BFO_0000040"));
+		assertEquals(UP | DOWN, trie.match("http://purl.obolibrary.org/obo/BFO_"));
+		assertEquals(0, trie.match("http://purl.obolibrary.org/obo/BFO"));
+		assertEquals(0, trie.match("http://purl.obolibrary.org/obo/IAO_0000030"));
+		assertEquals(0, trie.match(""));
+	}
+
+	@Test
+	public void testEmptyPrefix() {
+		PrefixTrie trie = new PrefixTrie();
+		trie.add("", Instruction.Scope.SINGLE);
+		trie.add("http://example.org/", Instruction.Scope.UP);
+		assertEquals(SINGLE, trie.match(""));
+		assertEquals(SINGLE, trie.match("http://purl.obolibrary.org/obo/BFO_0000040"));
+		assertEquals(SINGLE | UP, trie.match("http://example.org/A"));
+	}
+}
@@ -0,0 +1,91 @@
+package com.github.enanomapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReportListenerTest {
+
+	@TempDir
+	File folder;
+
+	@Test
+	public void testReport() {
+		CountingListener counting = new CountingListener();
+		ReportListener report = new ReportListener("bfo \"test\".props", counting);
+		report.phaseStarted("source");
+		report.phaseStarted("load");
+		report.count("parsed axioms", 10);
+		report.phaseFinished("load");
+		report.count("loaded axioms", 12);
+		report.phaseFinished("source");
+		report.phaseStarted("save"); // not finished, because the job fails
+		report.finish(false);
+		// all events are passed on
+		assertEquals(3, counting.phases);
+		assertEquals(2, counting.counts);
+
+		String json = report.toJson();
+		assertTrue(json.contains("\"job\": \"bfo \\\"test\\\".props\""), json);
+		assertTrue(json.contains("\"succeeded\": false"), json);
+		assertTrue(json.contains("{\"name\": \"load\", \"depth\": 1,"), json);
+		assertTrue(json.contains("\"counts\": {\"parsed axioms\": 10}}"), json);
+		assertTrue(json.contains("\"counts\": {\"loaded axioms\": 12}}"), json);
+		assertTrue(json.contains("{\"name\": \"save\", \"depth\": 0,"), json);
+
+		ReportListener other = new ReportListener("uo.props", SlimmerListener.NONE);
+		other.phaseStarted("source");
+		other.phaseFinished("source");
+		other.finish(true);
+		String summary = ReportListener.summary(Arrays.asList(report, other), 1000000);
+		assertTrue(summary.contains("\"jobs\": 2,"), summary);
+		assertTrue(summary.contains("\"failed\": 1,"), summary);
+		assertTrue(summary.contains("\"wallMillis\": 1,"), summary);
+		assertTrue(summary.contains("\"source\": {\"count\": 2,"), summary);
+		assertTrue(summary.contains("{\"job\": \"uo.props\", \"succeeded\": true,"), summary);
+	}
+
+	@Test
+	public void testApplyPhase() throws Exception {
+		File props = new File(folder, "bfo.props");
+		try (FileWriter writer = new FileWriter(props)) {
+			writer.write("owl=http://www.ifomis.org/bfo/1.1/bfo-1.1.owl\n");
+			writer.write("iris=bfo.iris\n");
+			writer.write("slimmed=http://example.org/bfo-slim.owl\n");
+		}
+		ReportListener report = new ReportListener("bfo.props", SlimmerListener.NONE);
+		SlimmingJob job = new SlimmingJob(folder.getPath(), props, report);
+		File owlFile = new File(this.getClass().getClassLoader().getResource("bfo-1.1.owl").toURI());
+		job.save(new Slimmer(owlFile, null, SlimmerListener.NONE), new ByteArrayOutputStream(), OutputFormat.RDFXML);
+		report.finish(true);
+
+		// the changes are applied in a phase of their own, before the ontology is written
+		String json = report.toJson();
+		int apply = json.indexOf("{\"name\": \"apply\", \"depth\": 0,");
+		int save = json.indexOf("{\"name\": \"save\", \"depth\": 0,");
+		assertTrue(apply >= 0 && save > apply, json);
+		assertTrue(json.contains("\"counts\": {\"axioms before apply\": "), json);
+		assertTrue(json.contains("\"applied classes\": "), json);
+	}
+
+	private static class CountingListener implements SlimmerListener {
+		int phases;
+		int counts;
+
+		@Override
+		public void phaseStarted(String phase) {
+			phases++;
+		}
+
+		@Override
+		public void count(String name, long value) {
+			counts++;
+		}
+	}
+}
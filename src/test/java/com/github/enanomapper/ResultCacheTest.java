@@ -0,0 +1,87 @@
+package com.github.enanomapper;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.semanticweb.owlapi.model.IRI;
+
+public class ResultCacheTest {
+
+	private static final SlimmerListener quiet = SlimmerListener.NONE;
+
+	@TempDir
+	File folder;
+
+	private File write(String filename, String content) throws Exception {
+		File file = new File(folder, filename);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private static Configuration config(String content) throws Exception {
+		Configuration config = new Configuration();
+		config.read(new StringReader(content));
+		return config;
+	}
+
+	@Test
+	public void testKey() throws Exception {
+		File source = write("source.owl", "<rdf:RDF/>");
+		Properties props = new Properties();
+		props.setProperty("owl", "http://example.org/source.owl");
+		props.setProperty("slimmed", "http://example.org/slim.owl");
+		String key = ResultCache.key(source, props, config("+:http://example.org/A\n-D:http://example.org/B\n"));
+		// the order of the instructions does not matter
+		assertEquals(key, ResultCache.key(source, props, config("-D:http://example.org/B\n+:http://example.org/A\n")));
+
+		assertNotEquals(key, ResultCache.key(source, props, config("+D:http://example.org/A\n-D:http://example.org/B\n")));
+		props.setProperty("formats", "turtle");
+		assertNotEquals(key, ResultCache.key(source, props, config("+:http://example.org/A\n-D:http://example.org/B\n")));
+		props.remove("formats");
+		write("source.owl", "<rdf:RDF></rdf:RDF>");
+		assertNotEquals(key, ResultCache.key(source, props, config("+:http://example.org/A\n-D:http://example.org/B\n")));
+	}
+
+	@Test
+	public void testVersion() throws Exception {
+		// the tests run from the classes folder of the build, whose content identifies the code
+		String version = ResultCache.getVersion();
+		assertTrue(version.startsWith("classes "), version);
+		assertEquals(version, ResultCache.getVersion());
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		File source = write("source.owl", "<rdf:RDF/>");
+		File imported = write("imported.owl", "<rdf:RDF/>");
+		File slim = write("slim.owl", "slimmed");
+		File target = new File(folder, "target");
+		target.mkdir();
+		ResultCache cache = new ResultCache(new File(folder, "results"));
+		assertFalse(cache.restore("key", target, quiet));
+
+		cache.store("key", source, Collections.singleton(IRI.create(imported)), Collections.singleton(slim), quiet);
+		assertTrue(cache.restore("key", target, quiet));
+		assertEquals("slimmed", new String(Files.readAllBytes(new File(target, "slim.owl").toPath()), StandardCharsets.UTF_8));
+
+		// a stored result can be replaced
+		write("slim.owl", "slimmed again");
+		cache.store("key", source, Collections.singleton(IRI.create(imported)), Collections.singleton(slim), quiet);
+		assertTrue(cache.restore("key", target, quiet));
+		assertEquals("slimmed again", new String(Files.readAllBytes(new File(target, "slim.owl").toPath()), StandardCharsets.UTF_8));
+
+		write("imported.owl", "<rdf:RDF></rdf:RDF>"); // same key, but a changed import
+		assertFalse(cache.restore("key", target, quiet));
+	}
+}
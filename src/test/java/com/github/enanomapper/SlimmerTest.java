@@ -1,23 +1,36 @@
 package com.github.enanomapper;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.formats.RDFXMLDocumentFormat;
+import org.semanticweb.owlapi.model.AddImport;
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLClass;
 import org.semanticweb.owlapi.model.OWLClassAxiom;
+import org.semanticweb.owlapi.model.OWLDataFactory;
 import org.semanticweb.owlapi.model.OWLEntity;
 import org.semanticweb.owlapi.model.OWLOntology;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
 import org.semanticweb.owlapi.model.parameters.Imports;
 import org.semanticweb.owlapi.search.Searcher;
 
@@ -434,6 +447,92 @@ public class SlimmerTest {
 		assertTrue(owlOutput.contains("pav:importedFrom"));
 	}
 
+	@Test
+	public void testFilteredMerge(@TempDir File folder) throws Exception {
+		String bfo = "http://www.ifomis.org/bfo/1.1";
+		String snap = bfo + "/snap#";
+		String ex = "http://example.org/source#";
+		try (InputStream stream = this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl")) {
+			Files.copy(stream, new File(folder, "bfo-1.1.owl").toPath());
+		}
+		File catalog = new File(folder, ImportCatalog.CATALOG_FILENAME);
+		Files.write(catalog.toPath(), ("<catalog xmlns=\"urn:oasis:names:tc:entity:xmlns:xml:catalog\">"
+			+ "<uri name=\"" + bfo + "\" uri=\"bfo-1.1.owl\"/></catalog>").getBytes(StandardCharsets.UTF_8));
+
+		// a source that extends the imported BFO
+		OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+		OWLDataFactory factory = man.getOWLDataFactory();
+		OWLOntology ontology = man.createOntology(IRI.create("http://example.org/source.owl"));
+		man.applyChange(new AddImport(ontology, factory.getOWLImportsDeclaration(IRI.create(bfo))));
+		OWLClass part = factory.getOWLClass(IRI.create(ex + "Part"));
+		OWLClass site = factory.getOWLClass(IRI.create(ex + "Site"));
+		man.addAxiom(ontology, factory.getOWLSubClassOfAxiom(part, factory.getOWLClass(IRI.create(snap + "FiatObjectPart"))));
+		man.addAxiom(ontology, factory.getOWLSubClassOfAxiom(site, factory.getOWLClass(IRI.create(snap + "Site"))));
+		man.addAxiom(ontology, factory.getOWLAnnotationAssertionAxiom(factory.getRDFSLabel(), part.getIRI(), factory.getOWLLiteral("part")));
+		man.addAxiom(ontology, factory.getOWLAnnotationAssertionAxiom(factory.getRDFSLabel(), site.getIRI(), factory.getOWLLiteral("site")));
+		man.addAxiom(ontology, factory.getOWLAnnotationAssertionAxiom(factory.getRDFSComment(), IRI.create(snap + "Site"), factory.getOWLLiteral("removed")));
+		File source = new File(folder, "source.owl");
+		try (OutputStream stream = new FileOutputStream(source)) {
+			man.saveOntology(ontology, new RDFXMLDocumentFormat(), stream);
+		}
+
+		Configuration conf = new Configuration();
+		conf.read(new StringReader("+D:" + snap + "MaterialEntity\n"
+			+ "+(" + snap + "Object):" + ex + "Part\n"
+			+ "-:" + snap + "ObjectAggregate\n"));
+		ImportCatalog mappings = new ImportCatalog();
+		mappings.add(catalog);
+		ImportLoader imports = new ImportLoader(null, 2, mappings);
+
+		Slimmer full = new Slimmer(source, "http://example.org/merged.owl", imports, SlimmerListener.NONE);
+		int fullCount = full.getOntology().getAxiomCount();
+		full.apply(full.plan(conf.getTreePartsToSave(), conf.getTreePartsToRemove()));
+
+		Slimmer filtered = new Slimmer(source, null, imports, SlimmerListener.NONE);
+		filtered.merge("http://example.org/merged.owl", conf.getTreePartsToSave());
+		assertTrue(filtered.getOntology().getAxiomCount() < fullCount);
+		filtered.apply(filtered.plan(conf.getTreePartsToSave(), conf.getTreePartsToRemove()));
+
+		assertTrue(filtered.getOntology().containsClassInSignature(part.getIRI()));
+		assertFalse(filtered.getOntology().containsClassInSignature(site.getIRI()));
+		assertFalse(filtered.getOntology().containsClassInSignature(IRI.create(snap + "ObjectAggregate")));
+		assertEquals(full.getOntology().getAxioms(), filtered.getOntology().getAxioms());
+		assertEquals(full.getOntology().getAnnotations(), filtered.getOntology().getAnnotations());
+	}
+
+	@Test
+	public void testExtract() throws Exception {
+		Configuration conf = new Configuration();
+		conf.read(new StringReader("+D:http://www.ifomis.org/bfo/1.1/snap#IndependentContinuant\n"
+			+ "+(http://www.ifomis.org/bfo/1.1#Foo):http://www.ifomis.org/bfo/1.1/span#ProcessualEntity\n"
+			+ "-D:http://www.ifomis.org/bfo/1.1/snap#ObjectAggregate\n"));
+		Set<Instruction> irisToSave = conf.getTreePartsToSave();
+		Set<Instruction> irisToRemove = conf.getTreePartsToRemove();
+
+		Slimmer removing = new Slimmer("bfo-1.1.owl", this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl"), "http://example.org/bfo-slim.owl", SlimmerListener.NONE);
+		removing.apply(removing.plan(irisToSave, irisToRemove));
+		Slimmer extracting = new Slimmer("bfo-1.1.owl", this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl"), "http://example.org/bfo-slim.owl", SlimmerListener.NONE);
+		extracting.extract(irisToSave, irisToRemove);
+
+		OWLOntology ontology = extracting.getOntology();
+		assertEquals(removing.getManager().getOntologies().size(), extracting.getManager().getOntologies().size());
+		assertTrue(ontology.containsClassInSignature(IRI.create("http://www.ifomis.org/bfo/1.1#Foo")));
+		assertFalse(ontology.containsClassInSignature(IRI.create("http://www.ifomis.org/bfo/1.1/snap#ObjectAggregate")));
+		assertEquals(removing.getOntology().getOntologyID(), ontology.getOntologyID());
+		assertEquals(removing.getOntology().getAxioms(), ontology.getAxioms());
+		assertEquals(removing.getOntology().getAnnotations(), ontology.getAnnotations());
+
+		// a new super class outside the ontology, which the .iris parser would also keep by itself
+		irisToSave = new HashSet<Instruction>(irisToSave);
+		irisToSave.add(new Instruction("http://www.ifomis.org/bfo/1.1/snap#Site", Instruction.Scope.SINGLE, "http://example.org/Outside", null));
+		removing = new Slimmer("bfo-1.1.owl", this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl"), "http://example.org/bfo-slim.owl", SlimmerListener.NONE);
+		removing.apply(removing.plan(irisToSave, irisToRemove));
+		extracting = new Slimmer("bfo-1.1.owl", this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl"), "http://example.org/bfo-slim.owl", SlimmerListener.NONE);
+		extracting.extract(irisToSave, irisToRemove);
+		assertTrue(extracting.getOntology().containsClassInSignature(IRI.create("http://example.org/Outside")));
+		assertEquals(removing.getOntology().getAxioms(), extracting.getOntology().getAxioms());
+	}
+
 	@Test
 	public void testGenerationDate() throws Exception {
 		Configuration conf = new Configuration();
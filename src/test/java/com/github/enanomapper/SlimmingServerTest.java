@@ -0,0 +1,154 @@
+package com.github.enanomapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+public class SlimmingServerTest {
+
+	private static final String MATERIAL_ENTITY = "+D:http://www.ifomis.org/bfo/1.1/snap#MaterialEntity\n";
+
+	@TempDir
+	File folder;
+
+	private SlimmingServer server;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		try (InputStream source = this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl")) {
+			Files.copy(source, new File(folder, "bfo-1.1.owl").toPath());
+		}
+		for (String name : new String[] {"bfo", "bfo2"}) {
+			try (FileWriter props = new FileWriter(new File(folder, name + ".props"))) {
+				props.write("owl=http://www.ifomis.org/bfo/1.1/bfo-1.1.owl\n");
+				props.write("iris=" + name + ".iris\n");
+				props.write("slimmed=http://example.org/" + name + "-slim.owl\n");
+			}
+		}
+	}
+
+	@AfterEach
+	public void tearDown() {
+		if (server != null) server.stop();
+	}
+
+	private void start(long heapBudget) throws IOException {
+		server = new SlimmingServer(folder.getPath(), heapBudget, SlimmerListener.NONE);
+		server.start(0, 4);
+	}
+
+	private HttpURLConnection request(String method, String path, String body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection)new URL("http://localhost:" + server.getPort() + path).openConnection();
+		connection.setRequestMethod(method);
+		if (body != null) {
+			connection.setDoOutput(true);
+			try (OutputStream output = connection.getOutputStream()) {
+				output.write(body.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		return connection;
+	}
+
+	private byte[] read(HttpURLConnection connection) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (InputStream input = connection.getInputStream()) {
+			byte[] buffer = new byte[8192];
+			for (int count = input.read(buffer); count != -1; count = input.read(buffer)) bytes.write(buffer, 0, count);
+		}
+		return bytes.toByteArray();
+	}
+
+	private OWLOntology slim(String id, String instructions) throws Exception {
+		HttpURLConnection connection = request("POST", "/slim/" + id, instructions);
+		assertEquals(200, connection.getResponseCode());
+		return OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(
+			new ByteArrayInputStream(read(connection))
+		);
+	}
+
+	private String sources() throws IOException {
+		return new String(read(request("GET", "/sources", null)), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testSlim() throws Exception {
+		start(Long.MAX_VALUE);
+		OWLOntology ontology = slim("bfo", MATERIAL_ENTITY);
+		assertEquals(4, ontology.getClassesInSignature().size());
+		assertEquals("http://example.org/bfo-slim.owl", ontology.getOntologyID().getOntologyIRI().get().toString());
+		assertTrue(server.isResident("bfo"));
+
+		// the resident source is not changed by a slim
+		assertEquals(3, slim("bfo", "+U:http://www.ifomis.org/bfo/1.1/snap#DependentContinuant").getClassesInSignature().size());
+		assertEquals(4, slim("bfo", MATERIAL_ENTITY).getClassesInSignature().size());
+
+		HttpURLConnection connection = request("POST", "/slim/bfo?format=turtle", MATERIAL_ENTITY);
+		assertEquals(200, connection.getResponseCode());
+		assertEquals("text/turtle", connection.getContentType());
+		assertEquals(4, OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(
+			new ByteArrayInputStream(read(connection))).getClassesInSignature().size());
+	}
+
+	@Test
+	public void testConcurrentRequests() throws Exception {
+		start(Long.MAX_VALUE);
+		ExecutorService clients = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<OWLOntology>> slims = new ArrayList<Future<OWLOntology>>();
+			for (int i=0; i<16; i++) {
+				String instructions = i % 2 == 0 ? MATERIAL_ENTITY : MATERIAL_ENTITY + "-:http://www.ifomis.org/bfo/1.1/snap#Object";
+				slims.add(clients.submit(() -> slim("bfo", instructions)));
+			}
+			for (int i=0; i<slims.size(); i++) {
+				assertEquals(i % 2 == 0 ? 4 : 3, slims.get(i).get().getClassesInSignature().size());
+			}
+		} finally {
+			clients.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testErrors() throws Exception {
+		start(Long.MAX_VALUE);
+		assertEquals(404, request("POST", "/slim/unknown", MATERIAL_ENTITY).getResponseCode());
+		assertEquals(404, request("POST", "/slim/..%2Fbfo", MATERIAL_ENTITY).getResponseCode());
+		assertEquals(400, request("POST", "/slim/bfo", "*D:http://www.ifomis.org/bfo/1.1/snap#MaterialEntity").getResponseCode());
+		assertEquals(405, request("GET", "/slim/bfo", null).getResponseCode());
+		assertEquals(400, request("POST", "/slim/bfo?format=jsonld", MATERIAL_ENTITY).getResponseCode());
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		start(1); // every source is over budget, so only the last one stays resident
+		assertEquals("bfo\nbfo2\n", sources());
+		slim("bfo", MATERIAL_ENTITY);
+		assertEquals("bfo (loaded)\nbfo2\n", sources());
+		slim("bfo2", MATERIAL_ENTITY);
+		assertFalse(server.isResident("bfo"));
+		assertEquals("bfo\nbfo2 (loaded)\n", sources());
+	}
+}
@@ -0,0 +1,151 @@
+package com.github.enanomapper;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.formats.RDFXMLDocumentFormat;
+import org.semanticweb.owlapi.model.AddImport;
+import org.semanticweb.owlapi.model.AddOntologyAnnotation;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+public class SnapshotStoreTest {
+
+	private static final SlimmerListener quiet = SlimmerListener.NONE;
+
+	@TempDir
+	File folder;
+
+	/**
+	 * Writes a source ontology with one class, which is a sub class of a class in an
+	 * imported ontology that is written to a second file.
+	 */
+	private File writeSource() throws Exception {
+		File importFile = writeImport("B");
+		OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+		OWLDataFactory factory = man.getOWLDataFactory();
+		OWLClass superClass = factory.getOWLClass(IRI.create("http://example.org/B"));
+		File sourceFile = new File(folder, "source.owl");
+		OWLOntology source = man.createOntology(IRI.create("http://example.org/source.owl"));
+		man.applyChange(new AddImport(source, factory.getOWLImportsDeclaration(IRI.create(importFile))));
+		OWLClass clazz = factory.getOWLClass(IRI.create("http://example.org/A"));
+		man.addAxiom(source, factory.getOWLSubClassOfAxiom(clazz, superClass));
+		try (FileOutputStream stream = new FileOutputStream(sourceFile)) {
+			man.saveOntology(source, new RDFXMLDocumentFormat(), stream);
+		}
+		return sourceFile;
+	}
+
+	private File writeImport(String importedClass) throws Exception {
+		OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+		OWLDataFactory factory = man.getOWLDataFactory();
+		File importFile = new File(folder, "imported.owl");
+		OWLOntology imported = man.createOntology(IRI.create("http://example.org/imported.owl"));
+		man.addAxiom(imported, factory.getOWLDeclarationAxiom(factory.getOWLClass(IRI.create("http://example.org/B"))));
+		man.addAxiom(imported, factory.getOWLDeclarationAxiom(factory.getOWLClass(IRI.create("http://example.org/" + importedClass))));
+		try (FileOutputStream stream = new FileOutputStream(importFile)) {
+			man.saveOntology(imported, new RDFXMLDocumentFormat(), stream);
+		}
+		return importFile;
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		File sourceFile = writeSource();
+		SnapshotStore store = new SnapshotStore(new File(folder, "snapshots"));
+		assertNull(store.load(sourceFile, "http://example.org/merged.owl", quiet));
+
+		Slimmer slimmer = new Slimmer(sourceFile, "http://example.org/merged.owl", quiet);
+		assertEquals(2, slimmer.getOntology().getClassesInSignature().size());
+		store.save(sourceFile, slimmer, quiet);
+
+		Slimmer fromSnapshot = store.load(sourceFile, "http://example.org/other.owl", quiet);
+		assertNotNull(fromSnapshot);
+		OWLOntology ontology = fromSnapshot.getOntology();
+		assertEquals(slimmer.getOntology().getAxiomCount(), ontology.getAxiomCount());
+		assertEquals("http://example.org/other.owl", ontology.getOntologyID().getOntologyIRI().get().toString());
+	}
+
+	@Test
+	public void testRelativeOntologyIRI() throws Exception {
+		OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+		OWLDataFactory factory = man.getOWLDataFactory();
+		File sourceFile = new File(folder, "annotated.owl");
+		OWLOntology source = man.createOntology(IRI.create("http://example.org/annotated.owl"));
+		man.applyChange(new AddOntologyAnnotation(source, factory.getRDFSLabel("Annotated")));
+		man.addAxiom(source, factory.getOWLDeclarationAxiom(factory.getOWLClass(IRI.create("http://example.org/A"))));
+		try (FileOutputStream stream = new FileOutputStream(sourceFile)) {
+			man.saveOntology(source, new RDFXMLDocumentFormat(), stream);
+		}
+		SnapshotStore store = new SnapshotStore(new File(folder, "snapshots"));
+
+		// the jobs merge into an ontology named after the file name of the slim
+		Slimmer slimmer = new Slimmer(sourceFile, "annotated-slim.owl", quiet);
+		store.save(sourceFile, slimmer, quiet);
+		assertEquals("annotated-slim.owl", slimmer.getOntology().getOntologyID().getOntologyIRI().get().toString());
+
+		Slimmer fromSnapshot = store.load(sourceFile, "annotated-slim.owl", quiet);
+		assertNotNull(fromSnapshot);
+		assertEquals(1, fromSnapshot.getOntology().getAnnotations().size());
+		assertEquals("annotated-slim.owl", fromSnapshot.getOntology().getOntologyID().getOntologyIRI().get().toString());
+	}
+
+	@Test
+	public void testChangedImport() throws Exception {
+		File sourceFile = writeSource();
+		SnapshotStore store = new SnapshotStore(new File(folder, "snapshots"));
+		store.save(sourceFile, new Slimmer(sourceFile, "http://example.org/merged.owl", quiet), quiet);
+		assertNotNull(store.load(sourceFile, "http://example.org/merged.owl", quiet));
+
+		writeImport("C"); // same source file, but a changed import
+		assertNull(store.load(sourceFile, "http://example.org/merged.owl", quiet));
+	}
+
+	@Test
+	public void testImportResolution() throws Exception {
+		// a source that imports http://example.org/imported.owl, which is not mirrored yet
+		OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+		OWLDataFactory factory = man.getOWLDataFactory();
+		OWLOntology source = man.createOntology(IRI.create("http://example.org/source.owl"));
+		man.applyChange(new AddImport(source, factory.getOWLImportsDeclaration(IRI.create("http://example.org/imported.owl"))));
+		man.addAxiom(source, factory.getOWLDeclarationAxiom(factory.getOWLClass(IRI.create("http://example.org/A"))));
+		File sourceFile = new File(folder, "source.owl");
+		try (FileOutputStream stream = new FileOutputStream(sourceFile)) {
+			man.saveOntology(source, new RDFXMLDocumentFormat(), stream);
+		}
+		File mirror = new File(folder, "mirror");
+		mirror.mkdir();
+		ImportLoader imports = new ImportLoader(mirror, 1);
+		SnapshotStore store = new SnapshotStore(new File(folder, "snapshots"));
+		store.save(sourceFile, new Slimmer(sourceFile, "http://example.org/merged.owl", imports, quiet), imports, quiet);
+		assertNotNull(store.load(sourceFile, "http://example.org/merged.owl", imports, quiet));
+
+		// the missing import can be read now
+		File imported = writeImport("C");
+		Files.copy(imported.toPath(), new File(mirror, "imported.owl").toPath());
+		assertNull(store.load(sourceFile, "http://example.org/merged.owl", imports, quiet));
+		store.save(sourceFile, new Slimmer(sourceFile, "http://example.org/merged.owl", imports, quiet), imports, quiet);
+		assertNotNull(store.load(sourceFile, "http://example.org/merged.owl", imports, quiet));
+
+		// the import is mapped to another document
+		File other = new File(folder, "other");
+		other.mkdir();
+		Files.copy(imported.toPath(), new File(other, "imported.owl").toPath());
+		ImportCatalog catalog = new ImportCatalog();
+		catalog.addFolder(other);
+		assertNull(store.load(sourceFile, "http://example.org/merged.owl", new ImportLoader(mirror, 1, catalog), quiet));
+		// or is loaded by the OWLAPI instead
+		assertNull(store.load(sourceFile, "http://example.org/merged.owl", quiet));
+	}
+}
@@ -0,0 +1,142 @@
+package com.github.enanomapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZOutputStream;
+
+public class SourceInputTest {
+
+	@TempDir
+	File folder;
+
+	private byte[] owl;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		try (InputStream source = this.getClass().getClassLoader().getResourceAsStream("bfo-1.1.owl")) {
+			owl = read(source);
+		}
+	}
+
+	private static byte[] read(InputStream input) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1000];
+		for (int count = input.read(buffer); count != -1; count = input.read(buffer)) bytes.write(buffer, 0, count);
+		return bytes.toByteArray();
+	}
+
+	private File write(String name, byte[] content) throws Exception {
+		File file = new File(folder, name);
+		Files.write(file.toPath(), content);
+		return file;
+	}
+
+	private File gzip(String name) throws Exception {
+		File file = new File(folder, name);
+		try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(file.toPath()))) {
+			output.write(owl);
+		}
+		return file;
+	}
+
+	private File xz(String name) throws Exception {
+		File file = new File(folder, name);
+		try (OutputStream output = new XZOutputStream(Files.newOutputStream(file.toPath()), new LZMA2Options())) {
+			output.write(owl);
+		}
+		return file;
+	}
+
+	private File zip(String name) throws Exception {
+		File file = new File(folder, name);
+		try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(file.toPath()))) {
+			output.putNextEntry(new ZipEntry("bfo/"));
+			output.putNextEntry(new ZipEntry("bfo/README.txt"));
+			output.write("Basic Formal Ontology".getBytes(StandardCharsets.UTF_8));
+			output.putNextEntry(new ZipEntry("bfo/bfo-1.1.owl"));
+			output.write(owl);
+		}
+		return file;
+	}
+
+	@Test
+	public void testOpen() throws Exception {
+		for (File file : new File[] {write("plain.owl", owl), gzip("gzip.owl.gz"), xz("xz.owl.xz"), zip("zip.zip"), gzip("no-extension")}) {
+			try (InputStream input = SourceInput.open(file)) {
+				assertArrayEquals(owl, read(input), file.getName());
+			}
+		}
+	}
+
+	@Test
+	public void testMapped() throws Exception {
+		File file = write("mapped.owl", owl);
+		try (InputStream input = new SourceInput.MappedInputStream(file)) {
+			assertEquals(owl[0] & 0xff, input.read());
+			assertEquals(10, input.skip(10));
+			byte[] rest = read(input);
+			assertEquals(owl.length - 11, rest.length);
+			assertEquals(owl[11], rest[0]);
+			assertEquals(-1, input.read());
+		}
+		try (InputStream input = new SourceInput.MappedInputStream(write("empty.owl", new byte[0]))) {
+			assertEquals(-1, input.read());
+		}
+	}
+
+	@Test
+	public void testFind() throws Exception {
+		File plain = new File(folder, "bfo-1.1.owl");
+		assertEquals(plain, SourceInput.find(plain));
+		File compressed = xz("bfo-1.1.owl.xz");
+		assertEquals(compressed, SourceInput.find(plain));
+		write("bfo-1.1.owl", owl);
+		assertEquals(plain, SourceInput.find(plain));
+	}
+
+	@Test
+	public void testCompressedSource() throws Exception {
+		gzip("bfo-1.1.owl.gz");
+		File props = new File(folder, "bfo.props");
+		try (FileWriter writer = new FileWriter(props)) {
+			writer.write("owl=http://www.ifomis.org/bfo/1.1/bfo-1.1.owl\n");
+			writer.write("iris=bfo.iris\n");
+			writer.write("slimmed=http://example.org/bfo-slim.owl\n");
+		}
+		SlimmingJob job = new SlimmingJob(folder.getPath(), props, SlimmerListener.NONE);
+		assertEquals(new File(folder, "bfo-1.1.owl.gz"), job.getSourceFile());
+
+		Slimmer compressed = new Slimmer(job.getSourceFile(), null, SlimmerListener.NONE);
+		Slimmer plain = new Slimmer(write("bfo-1.1.owl", owl), null, SlimmerListener.NONE);
+		assertEquals(plain.getOntology().getAxioms(), compressed.getOntology().getAxioms());
+
+		Configuration config = new Configuration();
+		config.read(new StringReader("+D:http://www.ifomis.org/bfo/1.1/snap#MaterialEntity\n"));
+		ByteArrayOutputStream fromXZ = new ByteArrayOutputStream();
+		new StreamingSlimmer(xz("bfo.owl.xz"), SlimmerListener.NONE).slim(config, fromXZ, "http://example.org/bfo-slim.owl", "bfo");
+		ByteArrayOutputStream fromPlain = new ByteArrayOutputStream();
+		new StreamingSlimmer(new File(folder, "bfo-1.1.owl"), SlimmerListener.NONE).slim(config, fromPlain, "http://example.org/bfo-slim.owl", "bfo");
+		assertEquals(withoutDate(fromPlain), withoutDate(fromXZ));
+	}
+
+	private static String withoutDate(ByteArrayOutputStream output) {
+		return new String(output.toByteArray(), StandardCharsets.UTF_8).replaceAll("\\d{4}-\\d\\d-\\d\\d \\d\\d:\\d\\d:\\d\\d", "");
+	}
+}
@@ -0,0 +1,79 @@
+package com.github.enanomapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+public class StreamingSlimmerTest {
+
+	private static final SlimmerListener quiet = SlimmerListener.NONE;
+
+	private File resource(String name) throws Exception {
+		return new File(this.getClass().getClassLoader().getResource(name).toURI());
+	}
+
+	private OWLOntology streamingSlim(String resource, String instructions) throws Exception {
+		Configuration conf = new Configuration();
+		conf.read(new StringReader(instructions));
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		new StreamingSlimmer(resource(resource), quiet).slim(conf, output, "http://example.org/slim.owl", resource);
+		return OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(
+			new ByteArrayInputStream(output.toByteArray())
+		);
+	}
+
+	private OWLOntology slim(String resource, String instructions) throws Exception {
+		Configuration conf = new Configuration();
+		conf.read(new StringReader(instructions));
+		Slimmer slimmer = new Slimmer(this.getClass().getClassLoader().getResourceAsStream(resource));
+		slimmer.removeAllExcept(conf.getTreePartsToSave());
+		slimmer.removeAll(conf.getTreePartsToRemove());
+		return slimmer.getOntology();
+	}
+
+	private void assertSameSlim(String resource, String instructions) throws Exception {
+		OWLOntology expected = slim(resource, instructions);
+		OWLOntology streamed = streamingSlim(resource, instructions);
+		assertEquals(expected.getClassesInSignature(), streamed.getClassesInSignature());
+		assertEquals(expected.getObjectPropertiesInSignature(), streamed.getObjectPropertiesInSignature());
+		assertEquals(expected.getLogicalAxioms(), streamed.getLogicalAxioms());
+	}
+
+	@Test
+	public void testParsingDown() throws Exception {
+		OWLOntology ontology = streamingSlim("bfo-1.1.owl", "+D:http://www.ifomis.org/bfo/1.1/snap#MaterialEntity");
+		assertEquals(4, ontology.getClassesInSignature().size());
+		assertEquals("http://example.org/slim.owl", ontology.getOntologyID().getOntologyIRI().get().toString());
+		assertTrue(ontology.getImportsDeclarations().isEmpty());
+	}
+
+	@Test
+	public void testSameAsSlimmer() throws Exception {
+		assertSameSlim("bfo-1.1.owl", "+D:http://www.ifomis.org/bfo/1.1/snap#MaterialEntity");
+		assertSameSlim("bfo-1.1.owl", "+U:http://www.ifomis.org/bfo/1.1/snap#DependentContinuant");
+		assertSameSlim("bfo-1.1.owl", "+D:http://www.ifomis.org/bfo/1.1#Entity\n"
+			+ "-D:http://www.ifomis.org/bfo/1.1/snap#MaterialEntity");
+		assertSameSlim("uo.owl", "+D:http://purl.obolibrary.org/obo/UO_0000001\n"
+			+ "+:http://purl.obolibrary.org/obo/uo#is_unit_of");
+	}
+
+	@Test
+	public void testNewSuperClassFromOtherOntology() throws Exception {
+		OWLOntology ontology = streamingSlim("bfo-1.1.owl",
+			"+(http://purl.obolibrary.org/obo/CHEBI_23367):http://www.ifomis.org/bfo/1.1/snap#MaterialEntity");
+		assertEquals(2, ontology.getClassesInSignature().size());
+		OWLClass owlClass = OWLManager.getOWLDataFactory().getOWLClass(
+			IRI.create("http://www.ifomis.org/bfo/1.1/snap#MaterialEntity"));
+		assertEquals(1, ontology.getSubClassAxiomsForSubClass(owlClass).size());
+	}
+}